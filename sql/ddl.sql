@@ -2,14 +2,31 @@
 --drop table if exists member CASCADE;
 --create table member
 --(
---    id bigint generated by default as identity,
+--    id bigint not null,
 --    name varchar(255),
---    primary key (id)
+--    primary key (id),
+--    constraint uk_member_name unique (name)
 --);
+--drop table if exists member_seq CASCADE;
+--create table member_seq
+--(
+--    name varchar(64) not null primary key,
+--    last_val bigint not null
+--);
+--insert into member_seq(name, last_val) values ('member', 0);
 
 -- mysql
 create table member
 (
-    id int not null auto_increment primary key,
-    name varchar(255)
-);
\ No newline at end of file
+    id int not null primary key, -- id는 member_seq에서 블록 단위로 받아 insert 전에 채운다
+    name varchar(255),
+    unique key uk_member_name (name) -- 이름 중복은 DB가 막는다
+);
+
+-- 회원 id 블록 할당 (MemberIdAllocator, MemberIdGenerator 공용): last_val은 마지막으로 예약된 id
+create table member_seq
+(
+    name varchar(64) not null primary key,
+    last_val bigint not null
+);
+insert into member_seq(name, last_val) values ('member', 0);
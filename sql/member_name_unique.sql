@@ -0,0 +1,5 @@
+-- 기존 member 테이블에 이름 unique index 추가 (mysql)
+-- 이미 중복된 이름이 있으면 index 생성이 실패하므로, 먼저 확인해서 정리한다
+select name, count(*) from member group by name having count(*) > 1;
+
+alter table member add unique key uk_member_name (name);
@@ -0,0 +1,10 @@
+-- 기존 member 테이블을 member_seq 기반 id 할당으로 전환 (mysql)
+-- 애플리케이션을 모두 내린 뒤 실행한다 (auto_increment로 insert하는 인스턴스가 남아 있으면 id가 겹칠 수 있다)
+create table member_seq
+(
+    name varchar(64) not null primary key,
+    last_val bigint not null
+);
+insert into member_seq(name, last_val) select 'member', coalesce(max(id), 0) from member;
+
+alter table member modify id int not null;
@@ -0,0 +1,10 @@
+-- db-replica 컨테이너를 처음 띄울 때 실행된다 (docker-entrypoint-initdb.d)
+-- GTID 기반으로 db(primary)의 처음부터 복제한다: database, 계정, 이후 ddl.sql로 만든 테이블과 데이터까지
+CHANGE MASTER TO
+    MASTER_HOST = 'db',
+    MASTER_PORT = 3306,
+    MASTER_USER = 'root',
+    MASTER_PASSWORD = 'root',
+    MASTER_AUTO_POSITION = 1,
+    MASTER_CONNECT_RETRY = 5;
+START SLAVE;
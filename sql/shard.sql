@@ -0,0 +1,38 @@
+-- sharded 저장소의 shard DB (mysql, application-shard.properties)
+-- 로컬에서는 db 컨테이너 하나에 shard마다 database를 만들어 쓴다 (root로 실행)
+-- 운영에서는 DB 서버마다 아래 create table을 실행하고 member.shard.urls에 그 순서대로 적는다
+create database if not exists hellospring_shard0;
+create database if not exists hellospring_shard1;
+grant all privileges on `hellospring\_shard%`.* to 'hellospring'@'%';
+
+-- shard마다 (use hellospring_shard0; ... use hellospring_shard1; ...)
+use hellospring_shard0;
+create table member
+(
+    id bigint not null primary key, -- 아래 8비트가 shard 번호, 나머지는 이 shard의 member_seq 번호
+    -- utf8mb4_bin: 이름을 글자 그대로(끝 공백만 무시) 비교한다. ShardedMemberRepository가 같은 기준으로 shard를 고르므로
+    -- 같은 이름은 같은 shard로 가고 shard 안의 unique index로 중복을 막는다
+    -- (utf8mb4_unicode_ci는 ß = ss 처럼 같다고 보는 이름이 많아 shard를 고르는 쪽이 따라 할 수 없다)
+    name varchar(255) character set utf8mb4 collate utf8mb4_bin,
+    unique key uk_member_name (name)
+);
+create table member_seq
+(
+    name varchar(64) not null primary key,
+    last_val bigint not null
+);
+insert into member_seq(name, last_val) values ('member', 0);
+
+use hellospring_shard1;
+create table member
+(
+    id bigint not null primary key,
+    name varchar(255) character set utf8mb4 collate utf8mb4_bin,
+    unique key uk_member_name (name)
+);
+create table member_seq
+(
+    name varchar(64) not null primary key,
+    last_val bigint not null
+);
+insert into member_seq(name, last_val) values ('member', 0);
@@ -0,0 +1,245 @@
+package hello.hellospring.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hello.hellospring.domain.Member;
+import hello.hellospring.domain.MemberSummary;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 벤치마크용 MemberRepository 구현체 생성
+ * DB 기반 구현체는 MySQL 대신 임베디드 H2(MySQL 모드)를 사용한다
+ */
+final class BenchmarkBackends implements AutoCloseable {
+
+    static final String MEMORY = "memory";
+    static final String OFF_HEAP = "offHeap";
+    static final String JDBC = "jdbc";
+    static final String JDBC_TEMPLATE = "jdbcTemplate";
+    static final String JPA = "jpa";
+    static final String SPRING_DATA_JPA = "springDataJpa";
+
+    private static final AtomicInteger databaseSequence = new AtomicInteger();
+    private static final int ID_BLOCK_SIZE = 1000; // member.id-block-size 기본값과 같게
+
+    private final AnnotationConfigApplicationContext context;
+    private final MemberRepository repository;
+
+    BenchmarkBackends(String backend, int poolSize) {
+        if (MEMORY.equals(backend)) {
+            context = null;
+            repository = new MemoryMemberRepository();
+            return;
+        }
+        if (OFF_HEAP.equals(backend)) {
+            context = null;
+            repository = new OffHeapMemberRepository();
+            return;
+        }
+
+        // trial마다 새 DB를 사용해 이전 측정의 데이터가 섞이지 않도록 한다
+        String url = "jdbc:h2:mem:bench" + databaseSequence.incrementAndGet() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean("dataSource", DataSource.class, () -> dataSource(url, poolSize));
+        context.register(JpaConfig.class);
+        context.refresh();
+
+        DataSource dataSource = context.getBean(DataSource.class);
+        new JdbcTemplate(dataSource).execute(
+                "create table member (id bigint generated by default as identity, name varchar(255), primary key (id))");
+        new JdbcTemplate(dataSource).execute(
+                "create table member_seq (name varchar(64) not null primary key, last_val bigint not null)");
+
+        switch (backend) {
+            case JDBC:
+                repository = new JdbcMemberRepository(dataSource, new MemberIdAllocator(dataSource, ID_BLOCK_SIZE));
+                break;
+            case JDBC_TEMPLATE:
+                repository = new JdbcTemplateMemberRepository(dataSource, new MemberIdAllocator(dataSource, ID_BLOCK_SIZE));
+                break;
+            case JPA:
+                EntityManagerFactory emf = context.getBean(EntityManagerFactory.class);
+                repository = new TransactionalMemberRepository(
+                        new JpaMemberRepository(SharedEntityManagerCreator.createSharedEntityManager(emf)),
+                        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)));
+                break;
+            case SPRING_DATA_JPA:
+                repository = context.getBean(SpringDataJpaMemberRepository.class);
+                break;
+            default:
+                throw new IllegalArgumentException("알 수 없는 backend: " + backend);
+        }
+    }
+
+    MemberRepository repository() {
+        return repository;
+    }
+
+    /**
+     * 측정 전 데이터 적재: DB 기반 구현체는 JDBC batch로 바로 넣는다
+     */
+    void load(String[] names) {
+        if (context == null) {
+            for (String name : names) {
+                Member member = new Member();
+                member.setName(name);
+                repository.save(member);
+            }
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(names.length);
+        for (String name : names) {
+            args.add(new Object[]{name});
+        }
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        jdbcTemplate.batchUpdate("insert into member(name) values(?)", args);
+        // 적재한 id 다음부터 할당하도록 member_seq를 맞춘다 (아직 id를 예약한 저장소가 없을 때만 호출)
+        jdbcTemplate.update("insert into member_seq(name, last_val) select 'member', coalesce(max(id), 0) from member");
+    }
+
+    @Override
+    public void close() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    private static HikariDataSource dataSource(String url, int poolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(poolSize);
+        return dataSource;
+    }
+
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = SpringDataJpaMemberRepository.class)
+    static class JpaConfig {
+
+        @Bean
+        public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean emf = new LocalContainerEntityManagerFactoryBean();
+            emf.setDataSource(dataSource);
+            emf.setPackagesToScan(Member.class.getPackage().getName());
+            emf.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            Properties properties = new Properties();
+            properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+            emf.setJpaProperties(properties);
+            return emf;
+        }
+
+        @Bean
+        public PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
+            return new JpaTransactionManager(emf);
+        }
+    }
+
+    /**
+     * JpaMemberRepository는 persist에 트랜잭션이 필요하므로, 서비스 계층처럼 호출마다 트랜잭션을 연다
+     */
+    private static class TransactionalMemberRepository implements MemberRepository {
+
+        private final MemberRepository target;
+        private final TransactionTemplate transactionTemplate;
+
+        TransactionalMemberRepository(MemberRepository target, TransactionTemplate transactionTemplate) {
+            this.target = target;
+            this.transactionTemplate = transactionTemplate;
+        }
+
+        @Override
+        public <S extends Member> S save(S member) {
+            return transactionTemplate.execute(status -> target.save(member));
+        }
+
+        @Override
+        public List<Member> saveAll(Collection<Member> members) {
+            return transactionTemplate.execute(status -> target.saveAll(members));
+        }
+
+        @Override
+        public Optional<Member> findById(Long id) {
+            return transactionTemplate.execute(status -> target.findById(id));
+        }
+
+        @Override
+        public Optional<Member> findByName(String name) {
+            return transactionTemplate.execute(status -> target.findByName(name));
+        }
+
+        @Override
+        public List<Member> findAllById(Collection<Long> ids) {
+            return transactionTemplate.execute(status -> target.findAllById(ids));
+        }
+
+        @Override
+        public List<Member> findAllByNameIn(Collection<String> names) {
+            return transactionTemplate.execute(status -> target.findAllByNameIn(names));
+        }
+
+        @Override
+        public List<Member> findAll() {
+            return transactionTemplate.execute(status -> target.findAll());
+        }
+
+        @Override
+        public List<Member> findAllAfter(Long afterId, int limit) {
+            return transactionTemplate.execute(status -> target.findAllAfter(afterId, limit));
+        }
+
+        @Override
+        public List<Member> findAllBefore(Long beforeId, int limit) {
+            return transactionTemplate.execute(status -> target.findAllBefore(beforeId, limit));
+        }
+
+        @Override
+        public List<MemberSummary> findSummariesAfter(Long afterId, int limit) {
+            return transactionTemplate.execute(status -> target.findSummariesAfter(afterId, limit));
+        }
+
+        @Override
+        public List<MemberSummary> findSummariesBefore(Long beforeId, int limit) {
+            return transactionTemplate.execute(status -> target.findSummariesBefore(beforeId, limit));
+        }
+
+        @Override
+        public Stream<Member> streamAll() {
+            List<Member> members = transactionTemplate.execute(status -> {
+                try (Stream<Member> stream = target.streamAll()) {
+                    return stream.collect(Collectors.toList());
+                }
+            });
+            return members.stream();
+        }
+
+        @Override
+        public Stream<MemberSummary> streamSummaries() {
+            List<MemberSummary> members = transactionTemplate.execute(status -> {
+                try (Stream<MemberSummary> stream = target.streamSummaries()) {
+                    return stream.collect(Collectors.toList());
+                }
+            });
+            return members.stream();
+        }
+    }
+}
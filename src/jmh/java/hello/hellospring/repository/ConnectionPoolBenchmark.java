@@ -0,0 +1,119 @@
+package hello.hellospring.repository;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import hello.hellospring.datasource.PoolMetrics;
+import hello.hellospring.domain.Member;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동시 요청 200개에서 커넥션 풀 설정별 JdbcMemberRepository 지연시간 비교
+ *
+ * default: HikariCP 기본값 (풀 10개, 획득 대기 30초, statement 캐시 없음)
+ * tuned: application.properties의 spring.datasource.hikari.* 설정
+ *
+ * 기본은 임베디드 H2로 측정하고, MySQL로 측정하려면 docker-compose로 DB를 띄운 뒤
+ * -Dbench.jdbcUrl=jdbc:mysql://localhost:3307/ -Dbench.username=root -Dbench.password=... 로 실행한다.
+ * MySQL에서는 hellospring_bench database를 새로 만들어 그 안의 member 테이블로 측정하고 끝나면 지운다
+ * (애플리케이션의 hellospring database는 건드리지 않는다, database를 만들 수 있는 계정이어야 한다).
+ * (prepared statement 캐시 설정은 MySQL 드라이버에만 적용된다)
+ * 측정이 끝나면 풀별 획득 대기시간, 타임아웃 횟수를 출력한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(200)
+@Fork(1)
+public class ConnectionPoolBenchmark {
+
+    private static final int SIZE = 10000;
+    private static final String MYSQL_DATABASE = "hellospring_bench"; // 벤치마크가 만들고 지우는 database
+
+    @Param({"default", "tuned"})
+    public String pool;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate admin; // MySQL에서 벤치마크 database를 만들고 지울 때
+    private PoolMetrics poolMetrics;
+    private MemberRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = System.getProperty("bench.jdbcUrl", "jdbc:h2:mem:pool-" + pool + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        String username = System.getProperty("bench.username", "sa");
+        String password = System.getProperty("bench.password", "");
+        boolean mysql = url.startsWith("jdbc:mysql:");
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setPoolName(pool);
+        if (mysql) {
+            // 이전 실행이 남긴 database는 지우고 새로 만든다, 풀의 커넥션은 모두 이 database를 쓴다
+            admin = new JdbcTemplate(new DriverManagerDataSource(url, username, password));
+            admin.execute("drop database if exists " + MYSQL_DATABASE);
+            admin.execute("create database " + MYSQL_DATABASE);
+            config.setCatalog(MYSQL_DATABASE);
+        }
+        if ("tuned".equals(pool)) {
+            config.setMaximumPoolSize(32);
+            config.setMinimumIdle(32);
+            config.setConnectionTimeout(3000);
+            if (mysql) {
+                config.addDataSourceProperty("cachePrepStmts", "true");
+                config.addDataSourceProperty("useServerPrepStmts", "true");
+                config.addDataSourceProperty("prepStmtCacheSize", "250");
+                config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+            }
+        }
+        poolMetrics = new PoolMetrics();
+        config.setMetricsTrackerFactory(poolMetrics);
+        dataSource = new HikariDataSource(config);
+
+        // H2는 pool마다 새 메모리 DB, MySQL은 방금 만든 빈 database라 테이블부터 만든다
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table member (id bigint not null, name varchar(255), primary key (id),"
+                + " constraint uk_member_name unique (name))");
+        jdbcTemplate.execute("create table member_seq (name varchar(64) not null primary key, last_val bigint not null)");
+        repository = new JdbcMemberRepository(dataSource, new MemberIdAllocator(dataSource, SIZE));
+        List<Member> members = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            Member member = new Member();
+            member.setName("member-" + i);
+            members.add(member);
+        }
+        repository.saveAll(members);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        poolMetrics.snapshots().forEach((poolName, snapshot) -> System.out.println(
+                "\n[" + poolName + "] acquire p50=" + snapshot.getAcquire().getP50() + "ns p99=" + snapshot.getAcquire().getP99()
+                        + "ns max=" + snapshot.getAcquire().getMax() + "ns timeouts=" + snapshot.getTimeouts()));
+        dataSource.close();
+        if (admin != null) {
+            admin.execute("drop database if exists " + MYSQL_DATABASE);
+        }
+    }
+
+    @Benchmark
+    public Optional<Member> findByName() {
+        return repository.findByName("member-" + ThreadLocalRandom.current().nextInt(SIZE));
+    }
+
+    @Benchmark
+    public List<Member> findAllAfter() {
+        return repository.findAllAfter((long) ThreadLocalRandom.current().nextInt(SIZE), 20);
+    }
+}
@@ -0,0 +1,66 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.Member;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 1M/10M/50M명에서 MemoryMemberRepository와 OffHeapMemberRepository 비교
+ *
+ * 조회 지연시간과 함께, 적재 후 힙 사용량(GC 직후)과 OffHeapMemberRepository의 회원당 메모리를 출력한다.
+ * GC 횟수/시간은 gc 프로파일러(build.gradle jmh 설정)로 본다.
+ * 50M은 memory 기준 힙이 수십 GB 필요하므로 jvmArgs를 측정 환경에 맞게 조정한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms24g", "-Xmx24g", "-XX:MaxDirectMemorySize=8g"})
+public class LargeMemoryStoreBenchmark {
+
+    @Param({BenchmarkBackends.MEMORY, BenchmarkBackends.OFF_HEAP})
+    public String backend;
+
+    @Param({"1000000", "10000000", "50000000"})
+    public int size;
+
+    private MemberRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = BenchmarkBackends.MEMORY.equals(backend) ? new MemoryMemberRepository() : new OffHeapMemberRepository();
+        for (int i = 0; i < size; i++) {
+            Member member = new Member();
+            member.setName("member-" + i);
+            repository.save(member);
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        memory.gc();
+        System.out.printf("%n[%s, %,d] heap used after load: %,d bytes%n", backend, size, memory.getHeapMemoryUsage().getUsed());
+        if (repository instanceof OffHeapMemberRepository) {
+            System.out.println("[" + backend + ", " + size + "] " + ((OffHeapMemberRepository) repository).footprint());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        repository = null;
+    }
+
+    @Benchmark
+    public Optional<Member> findById() {
+        return repository.findById((long) ThreadLocalRandom.current().nextInt(size) + 1);
+    }
+
+    @Benchmark
+    public Optional<Member> findByName() {
+        return repository.findByName("member-" + ThreadLocalRandom.current().nextInt(size));
+    }
+}
@@ -0,0 +1,81 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.Member;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동시 요청 200개에서 findById / findByName을 그대로 보낼 때와 MemberCoalescer로 묶을 때 비교
+ *
+ * hot: 요청이 회원 100명에 몰리는 경우 (같은 키를 조회 중이면 결과를 나눠 받는다)
+ * uniform: 회원 10만 명에 고르게 퍼지는 경우 (in 쿼리로 묶이는 효과만 있다)
+ * 커넥션 풀은 32개 (application.properties와 같게), DB는 임베디드 H2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(200)
+@Fork(1)
+public class MemberCoalescingBenchmark {
+
+    private static final int SIZE = 100_000;
+    private static final int HOT_SIZE = 100;
+
+    @Param({BenchmarkBackends.JDBC_TEMPLATE, BenchmarkBackends.SPRING_DATA_JPA})
+    public String backend;
+
+    @Param({"false", "true"})
+    public boolean coalescing;
+
+    @Param({"hot", "uniform"})
+    public String keys;
+
+    private BenchmarkBackends backends;
+    private MemberRepository repository;
+    private MemberCoalescer coalescer;
+    private String[] names;
+    private int range;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        names = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            names[i] = "member-" + i;
+        }
+        backends = new BenchmarkBackends(backend, 32);
+        backends.load(names);
+        repository = backends.repository();
+        if (coalescing) {
+            // member.coalescing.* 기본값
+            coalescer = new MemberCoalescer(Duration.ofMillis(1), 100, NameCollation.EXACT);
+            repository = new CoalescingMemberRepository(repository, coalescer);
+        }
+        range = "hot".equals(keys) ? HOT_SIZE : SIZE;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (coalescer != null) {
+            MemberCoalescer.Stats stats = coalescer.getByIdStats();
+            System.out.printf("%nfindById: requests=%d shared=%d queries=%d keysPerQuery=%.1f%n",
+                    stats.getRequests(), stats.getShared(), stats.getQueries(), stats.getKeysPerQuery());
+        }
+        backends.close();
+    }
+
+    @Benchmark
+    public Optional<Member> findById() {
+        return repository.findById((long) ThreadLocalRandom.current().nextInt(range) + 1);
+    }
+
+    @Benchmark
+    public Optional<Member> findByName() {
+        return repository.findByName(names[ThreadLocalRandom.current().nextInt(range)]);
+    }
+}
@@ -0,0 +1,103 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.Member;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 회원 로그(MemberLog)를 켠 MemoryMemberRepository의 저장 처리량과 재시작 replay 시간
+ *
+ * save: 목표 100k ops/s 이상 (로그 디렉토리는 측정할 디스크의 임시 디렉토리, -Djava.io.tmpdir로 바꾼다)
+ * Replay.restore: 회원 size명이 기록된 로그로 저장소를 다시 만드는 시간, 목표 10M명 수 초
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberLogBenchmark {
+
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    @State(Scope.Benchmark)
+    public static class Save {
+
+        private Path directory;
+        private MemberLog log;
+        private MemoryMemberRepository repository;
+        private final AtomicLong sequence = new AtomicLong();
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("member-log-bench");
+            log = new MemberLog(directory, SEGMENT_SIZE, Duration.ofMillis(10), Duration.ZERO);
+            repository = new MemoryMemberRepository(log);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            log.close();
+            delete(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Replay {
+
+        @Param({"1000000", "10000000"})
+        public int size;
+
+        private Path directory;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("member-log-bench");
+            MemberLog log = new MemberLog(directory, SEGMENT_SIZE, Duration.ofMillis(10), Duration.ZERO);
+            for (int i = 1; i <= size; i++) {
+                log.append(i, "member-" + i);
+            }
+            log.close();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            delete(directory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(4)
+    public Member save(Save state) {
+        Member member = new Member();
+        member.setName("member-" + state.sequence.incrementAndGet());
+        return state.repository.save(member);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public MemoryMemberRepository restore(Replay state) {
+        MemberLog log = new MemberLog(state.directory, SEGMENT_SIZE, Duration.ofMillis(10), Duration.ZERO);
+        try {
+            return new MemoryMemberRepository(log);
+        } finally {
+            log.close();
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.MemberSummary;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 이름 검색(MemberNameIndex) 한 번의 지연 시간
+ *
+ * 10M은 힙이 넉넉해야 한다 (-Xmx8g 이상)
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MemberNameIndexBenchmark {
+
+    private static final int LIMIT = 20;
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    private MemberNameIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new MemberNameIndex();
+        for (int i = 1; i <= size; i++) {
+            index.add(new MemberSummary((long) i, "member-" + i));
+        }
+    }
+
+    @Benchmark
+    public List<MemberSummary> prefix() {
+        return index.prefix("member-" + ThreadLocalRandom.current().nextInt(1, size / 100), LIMIT);
+    }
+
+    // 한 글자 오타: 맨 끝 숫자를 다른 숫자로
+    @Benchmark
+    public List<MemberNameIndex.Match> fuzzy() {
+        int id = ThreadLocalRandom.current().nextInt(1_000_000, size + 1);
+        String name = "member-" + id;
+        char last = name.charAt(name.length() - 1);
+        return index.fuzzy(name.substring(0, name.length() - 1) + (last == '9' ? '0' : (char) (last + 1)), LIMIT);
+    }
+}
@@ -0,0 +1,97 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.Member;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MemberRepository 구현체별 save / findById / findByName / findAll 성능 비교
+ *
+ * ./gradlew jmh 로 실행하면 build.gradle의 jmh 설정(gc 프로파일러 포함)으로 측정한다.
+ * 여러 스레드 수로 측정하려면 main을 실행한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime}) // ops/s, 지연시간 백분위수
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberRepositoryBenchmark {
+
+    @Param({BenchmarkBackends.MEMORY, BenchmarkBackends.OFF_HEAP, BenchmarkBackends.JDBC, BenchmarkBackends.JDBC_TEMPLATE,
+            BenchmarkBackends.JPA, BenchmarkBackends.SPRING_DATA_JPA})
+    public String backend;
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private BenchmarkBackends backends;
+    private MemberRepository repository;
+    private String[] names;
+    private final AtomicLong saveSequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        names = new String[size];
+        for (int i = 0; i < size; i++) {
+            names[i] = "member-" + i;
+        }
+        backends = new BenchmarkBackends(backend, Runtime.getRuntime().availableProcessors() * 2);
+        backends.load(names);
+        repository = backends.repository();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        backends.close();
+    }
+
+    @Benchmark
+    public Member save() {
+        Member member = new Member();
+        member.setName("new-member-" + saveSequence.incrementAndGet());
+        return repository.save(member);
+    }
+
+    @Benchmark
+    public Optional<Member> findById() {
+        return repository.findById((long) ThreadLocalRandom.current().nextInt(size) + 1);
+    }
+
+    @Benchmark
+    public Optional<Member> findByName() {
+        return repository.findByName(names[ThreadLocalRandom.current().nextInt(size)]);
+    }
+
+    @Benchmark
+    public List<Member> findAll() {
+        return repository.findAll();
+    }
+
+    /**
+     * 스레드 수(1, 4, 16)를 바꿔 가며 전체 벤치마크 실행
+     */
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 4, 16}) {
+            Options options = new OptionsBuilder()
+                    .include(MemberRepositoryBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("build/reports/jmh/member-repository-" + threads + "-threads.json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
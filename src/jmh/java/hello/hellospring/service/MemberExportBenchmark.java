@@ -0,0 +1,55 @@
+package hello.hellospring.service;
+
+import hello.hellospring.domain.Member;
+import hello.hellospring.repository.MemoryMemberRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 내보내기(MemberExporter) 처리량, 결과 단위는 행/초
+ *
+ * DB 대신 MemoryMemberRepository에서 읽어 버리는 스트림에 쓰므로 직렬화·압축 비용만 잰다
+ * gc 프로파일러의 gc.alloc.rate.norm이 행 수와 관계없이 일정해야 한다 (행마다 할당하지 않음)
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MemberExportBenchmark {
+
+    private static final int SIZE = 1_000_000;
+
+    @Param({"CSV", "NDJSON"})
+    public MemberFormat format;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private MemberExporter exporter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MemoryMemberRepository repository = new MemoryMemberRepository();
+        List<Member> members = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            Member member = new Member();
+            member.setName("member-" + i);
+            members.add(member);
+        }
+        repository.saveAll(members);
+        exporter = new MemberExporter(new MemberService(repository));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(SIZE)
+    public MemberExporter.Result export() throws IOException {
+        return exporter.export(format, gzip, OutputStream.nullOutputStream());
+    }
+}
@@ -2,6 +2,7 @@ package hello.hellospring;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 
@@ -10,8 +11,13 @@ import org.springframework.context.annotation.EnableAspectJAutoProxy;
 @EnableAspectJAutoProxy
 public class HelloSpringApplication {
 
+	private static final int STARTUP_STEPS = 10000; // 기동 단계 기록 수 (빈마다 한 개 이상)
+
 	public static void main(String[] args) {
-		SpringApplication.run(HelloSpringApplication.class, args);
+		SpringApplication application = new SpringApplication(HelloSpringApplication.class);
+		// 단계/빈별 기동 시간 기록: StartupTimings가 기동 직후 리포트로 정리한다 (/metrics/startup)
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+		application.run(args);
 	}
 
 }
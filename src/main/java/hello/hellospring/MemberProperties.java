@@ -0,0 +1,309 @@
+package hello.hellospring;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * application.properties의 member.* 설정
+ */
+@ConfigurationProperties(prefix = "member")
+public class MemberProperties {
+
+    private RepositoryType repository = RepositoryType.SPRING_DATA_JPA; // 사용할 MemberRepository 구현체
+    private int batchSize = 500; // 일괄 가입 시 한 번에 insert할 회원 수
+    private int idBlockSize = 1000; // member_seq에서 한 번에 예약하는 id 수 (jdbc, jdbc-template, jpa, spring-data-jpa 공통)
+    private final Cache cache = new Cache();
+    private final Coalescing coalescing = new Coalescing();
+    private final Log log = new Log();
+    private final Search search = new Search();
+    private final WriteBehind writeBehind = new WriteBehind();
+    private final Shard shard = new Shard();
+
+    public enum RepositoryType {
+        MEMORY, OFF_HEAP, JDBC, JDBC_TEMPLATE, JPA, SPRING_DATA_JPA, SHARDED
+    }
+
+    public RepositoryType getRepository() {
+        return repository;
+    }
+
+    public void setRepository(RepositoryType repository) {
+        this.repository = repository;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getIdBlockSize() {
+        return idBlockSize;
+    }
+
+    public void setIdBlockSize(int idBlockSize) {
+        this.idBlockSize = idBlockSize;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Coalescing getCoalescing() {
+        return coalescing;
+    }
+
+    public Log getLog() {
+        return log;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public WriteBehind getWriteBehind() {
+        return writeBehind;
+    }
+
+    public Shard getShard() {
+        return shard;
+    }
+
+    /**
+     * member.cache.*: 저장소 앞의 회원 캐시
+     */
+    public static class Cache {
+
+        private boolean enabled = false;
+        private long maximumSize = 100_000; // id 캐시, 이름 캐시 각각의 최대 항목 수
+        private Duration ttl = Duration.ofMinutes(10); // 저장 후 이 시간이 지나면 만료
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * member.coalescing.*: 동시에 들어온 단건 조회를 in 쿼리 한 번으로 묶기
+     */
+    public static class Coalescing {
+
+        private boolean enabled = false;
+        private Duration window = Duration.ofMillis(1); // 먼저 온 요청이 다른 요청을 기다리는 시간 (단건 조회 지연이 그만큼 늘 수 있다)
+        private int maxBatch = 100; // 이만큼 모이면 window 전이라도 조회
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getMaxBatch() {
+            return maxBatch;
+        }
+
+        public void setMaxBatch(int maxBatch) {
+            this.maxBatch = maxBatch;
+        }
+    }
+
+    /**
+     * member.log.*: memory 저장소를 재시작 후에도 유지하는 회원 로그
+     */
+    public static class Log {
+
+        private boolean enabled = false;
+        private String directory = "data/member-log";
+        private DataSize segmentSize = DataSize.ofMegabytes(64); // segment 파일 하나의 크기 (mmap 단위)
+        private Duration fsyncInterval = Duration.ofMillis(10); // group commit 주기, 전원이 나가면 이 시간만큼의 저장을 잃을 수 있다
+        private Duration compactInterval = Duration.ofMinutes(10); // 다 쓴 segment를 합치는 주기 (0이면 하지 않음)
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public Duration getFsyncInterval() {
+            return fsyncInterval;
+        }
+
+        public void setFsyncInterval(Duration fsyncInterval) {
+            this.fsyncInterval = fsyncInterval;
+        }
+
+        public Duration getCompactInterval() {
+            return compactInterval;
+        }
+
+        public void setCompactInterval(Duration compactInterval) {
+            this.compactInterval = compactInterval;
+        }
+    }
+
+    /**
+     * member.search.*: 회원 이름 검색 (메모리 인덱스)
+     */
+    public static class Search {
+
+        private boolean enabled = false;
+        private int parallelism = Runtime.getRuntime().availableProcessors(); // 기동 시 인덱스를 채우는 스레드 수
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+    }
+
+    /**
+     * member.write-behind.*: 회원 가입을 큐에 모아 batch로 저장
+     */
+    public static class WriteBehind {
+
+        private boolean enabled = false;
+        private int capacity = 10_000; // 큐에 담아 둘 수 있는 회원 수, 가득 차면 가입 요청이 기다린다
+        private int maxBatch = 500; // 한 트랜잭션에 저장할 최대 회원 수
+        private Duration flushInterval = Duration.ofMillis(5); // 첫 회원을 꺼낸 뒤 더 모으는 시간
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public int getMaxBatch() {
+            return maxBatch;
+        }
+
+        public void setMaxBatch(int maxBatch) {
+            this.maxBatch = maxBatch;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+    }
+
+    /**
+     * member.shard.*: sharded 저장소의 shard DB
+     */
+    public static class Shard {
+
+        private List<String> urls = new ArrayList<>(); // shard마다 하나, 순서가 shard 번호라 한 번 정하면 바꾸지 않는다
+        private String username;
+        private String password;
+        private int maximumPoolSize = 16; // shard마다의 커넥션 풀 크기
+
+        public List<String> getUrls() {
+            return urls;
+        }
+
+        public void setUrls(List<String> urls) {
+            this.urls = urls;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+    }
+}
@@ -1,57 +1,218 @@
 package hello.hellospring;
 
+import com.zaxxer.hikari.HikariDataSource;
+import hello.hellospring.datasource.PoolMetrics;
+import hello.hellospring.repository.CachingMemberRepository;
+import hello.hellospring.repository.CoalescingMemberRepository;
+import hello.hellospring.repository.IndexedMemberRepository;
+import hello.hellospring.repository.JdbcMemberRepository;
+import hello.hellospring.repository.JdbcTemplateMemberRepository;
+import hello.hellospring.repository.JpaMemberRepository;
+import hello.hellospring.repository.MemberCache;
+import hello.hellospring.repository.MemberCoalescer;
+import hello.hellospring.repository.MemberIdAllocator;
+import hello.hellospring.repository.MemberLog;
+import hello.hellospring.repository.MemberNameIndex;
 import hello.hellospring.repository.MemberRepository;
+import hello.hellospring.repository.MemoryMemberRepository;
+import hello.hellospring.repository.NameCollation;
+import hello.hellospring.repository.OffHeapMemberRepository;
+import hello.hellospring.repository.ShardedMemberRepository;
+import hello.hellospring.repository.SpringDataJpaMemberRepository;
+import hello.hellospring.service.MemberExporter;
+import hello.hellospring.service.MemberImporter;
+import hello.hellospring.service.MemberSearch;
 import hello.hellospring.service.MemberService;
+import hello.hellospring.service.MemberWriteBehind;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
 
 @Configuration
+@EnableConfigurationProperties(MemberProperties.class)
 public class SpringConfig {
 
     /* ---- Repository ---- */
-    /* MemoryMemberRepository 구현체 */
-    // @Bean
-    // public MemberRepository memberRepository() {
-    // return new MemoryMemberRepository();
-    // }
+    // member.repository 설정으로 구현체를 고른다: memory, off-heap, jdbc, jdbc-template, jpa, spring-data-jpa(기본), sharded
+    // MemoryMemberRepository 구현체: 저장소 없음 (member.log.enabled면 회원 로그 파일에 남기고 재시작 시 복구)
+    // OffHeapMemberRepository 구현체: 저장소 없음, 회원 수천만 명을 메모리에 둘 때 (GC 부담이 적다)
+    // JdbcMemberRepository, JdbcTemplateMemberRepository 구현체: DataSource 필요
+    // JpaMemberRepository 구현체: EntityManager 필요
+    // SpringDataJpaMemberRepository 구현체: Spring Data JPA에서 알아서 repository 구현체 생성
+    // ShardedMemberRepository 구현체: member.shard.urls의 DB마다 커넥션 풀 필요
+    private final DataSource dataSource;
+    private final EntityManager em;
+    private final SpringDataJpaMemberRepository springDataJpaMemberRepository;
+    private final MemberProperties memberProperties;
 
-    /* JdbcMemberRepository 구현체: DataSource 필요 */
-    // private DataSource dataSource;
-    // @Autowired
-    // public SpringConfig(Datasource datasource) {
-    // this.datasource = dataSource;
-    // }
-    // @Bean
-    // public MemberRepository memberRepository() {
-    // // return new JdbcMemberRepository();
-    // }
+    @Autowired
+    public SpringConfig(DataSource dataSource, EntityManager em,
+                        SpringDataJpaMemberRepository springDataJpaMemberRepository,
+                        MemberProperties memberProperties) {
+        this.dataSource = dataSource;
+        this.em = em;
+        this.springDataJpaMemberRepository = springDataJpaMemberRepository;
+        this.memberProperties = memberProperties;
+    }
 
-    /* JpaMemberRepository 구현체: EntityManger 필요 */
-    // @PersistentContext
-    // private Entitymaneger em;
-    // public SpringConfig(EntityManger em) {
-    // this.em = em;
-    // }
-    // @Bean
-    // public MemberRepository memberRepository() {
-    // // return new JpaMemberRepository();
-    // }
+    // 서비스 등에서 MemberRepository를 주입받으면 이 빈이 선택된다
+    // (member.search.enabled면 저장할 때 이름 검색 인덱스에 넣고, member.coalescing.enabled면 캐시에 없는 단건 조회를 묶고,
+    // member.cache.enabled면 캐시로 감싼다)
+    @Bean
+    @Primary
+    public MemberRepository memberRepository(Optional<MemberCache> memberCache, Optional<MemberLog> memberLog,
+                                             Optional<MemberNameIndex> memberNameIndex,
+                                             Optional<MemberCoalescer> memberCoalescer,
+                                             Optional<ShardedMemberRepository> shardedMemberRepository) {
+        MemberRepository repository = backendRepository(memberLog, shardedMemberRepository);
+        if (memberNameIndex.isPresent()) {
+            repository = new IndexedMemberRepository(repository, memberNameIndex.get());
+        }
+        if (memberCoalescer.isPresent()) {
+            repository = new CoalescingMemberRepository(repository, memberCoalescer.get());
+        }
+        if (memberCache.isPresent()) {
+            return new CachingMemberRepository(repository, memberCache.get());
+        }
+        return repository;
+    }
 
-    // spring 데이터 jpa: 알아서 repository 구현체 만듦
+    private MemberRepository backendRepository(Optional<MemberLog> memberLog,
+                                               Optional<ShardedMemberRepository> shardedMemberRepository) {
+        switch (memberProperties.getRepository()) {
+            case MEMORY:
+                return memberLog.map(MemoryMemberRepository::new).orElseGet(MemoryMemberRepository::new);
+            case OFF_HEAP:
+                return new OffHeapMemberRepository();
+            case JDBC:
+                return new JdbcMemberRepository(dataSource, memberIdAllocator());
+            case JDBC_TEMPLATE:
+                return new JdbcTemplateMemberRepository(dataSource, memberIdAllocator());
+            case JPA:
+                return new JpaMemberRepository(em);
+            case SHARDED:
+                return shardedMemberRepository.orElseThrow();
+            default:
+                return springDataJpaMemberRepository;
+        }
+    }
 
-    /* SpringDataMemberRepository 구현체: Spring Data JPA에서 알아서 repository 구현체 생성 */
-    private final MemberRepository memberRepository;
+    // JDBC 저장소용 id 블록 할당 (JPA는 Member의 MemberIdGenerator가 같은 member_seq 테이블을 쓴다)
+    private MemberIdAllocator memberIdAllocator() {
+        return new MemberIdAllocator(dataSource, memberProperties.getIdBlockSize());
+    }
 
-    @Autowired
-    public SpringConfig(MemberRepository memberRepository) {
-        this.memberRepository = memberRepository;
+    // shard 수 = member.shard.urls 수, url 순서가 shard 번호 (회원 id에 들어가므로 순서를 바꾸거나 중간에 끼워 넣지 않는다)
+    // shard마다 풀을 만들고 /metrics/pool에 member-shard-N으로 보인다, 종료 시 close로 풀과 조회 스레드를 닫는다
+    @Bean
+    @ConditionalOnProperty(prefix = "member", name = "repository", havingValue = "sharded")
+    public ShardedMemberRepository shardedMemberRepository(PoolMetrics poolMetrics) {
+        MemberProperties.Shard shard = memberProperties.getShard();
+        List<HikariDataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < shard.getUrls().size(); i++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("member-shard-" + i);
+            dataSource.setJdbcUrl(shard.getUrls().get(i));
+            dataSource.setUsername(shard.getUsername());
+            dataSource.setPassword(shard.getPassword());
+            dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+            dataSource.setMetricsTrackerFactory(poolMetrics);
+            dataSources.add(dataSource);
+        }
+        // 조회 스레드는 모든 shard 풀의 커넥션을 동시에 쓸 수 있을 만큼
+        return new ShardedMemberRepository(dataSources, memberProperties.getIdBlockSize(),
+                shard.getMaximumPoolSize() * dataSources.size());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "member.cache", name = "enabled", havingValue = "true")
+    public MemberCache memberCache() {
+        MemberProperties.Cache cache = memberProperties.getCache();
+        return new MemberCache(cache.getMaximumSize(), cache.getTtl());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "member.coalescing", name = "enabled", havingValue = "true")
+    public MemberCoalescer memberCoalescer() {
+        MemberProperties.Coalescing coalescing = memberProperties.getCoalescing();
+        return new MemberCoalescer(coalescing.getWindow(), coalescing.getMaxBatch(), nameCollation());
+    }
+
+    // 메모리 저장소는 이름을 글자 그대로, DB 저장소는 MySQL 컬럼 collation(utf8mb4_unicode_ci, shard는 utf8mb4_bin)으로 비교한다
+    private NameCollation nameCollation() {
+        switch (memberProperties.getRepository()) {
+            case MEMORY:
+            case OFF_HEAP:
+                return NameCollation.EXACT;
+            case SHARDED:
+                return NameCollation.BINARY;
+            default:
+                return NameCollation.UNICODE_CI;
+        }
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "member.log", name = "enabled", havingValue = "true")
+    public MemberLog memberLog() {
+        MemberProperties.Log log = memberProperties.getLog();
+        return new MemberLog(Paths.get(log.getDirectory()), (int) log.getSegmentSize().toBytes(),
+                log.getFsyncInterval(), log.getCompactInterval());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "member.search", name = "enabled", havingValue = "true")
+    public MemberNameIndex memberNameIndex() {
+        return new MemberNameIndex();
     }
 
     /* ---- Service ---- */
     @Bean
-    public MemberService memberService() {
-        return new MemberService(memberRepository);
+    public MemberService memberService(MemberRepository memberRepository) {
+        return new MemberService(memberRepository, memberProperties.getBatchSize());
+    }
+
+    @Bean
+    public MemberExporter memberExporter(MemberService memberService) {
+        return new MemberExporter(memberService);
+    }
+
+    @Bean
+    public MemberImporter memberImporter(MemberService memberService) {
+        return new MemberImporter(memberService, memberProperties.getBatchSize());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "member.search", name = "enabled", havingValue = "true")
+    public MemberSearch memberSearch(MemberService memberService, MemberNameIndex memberNameIndex) {
+        return new MemberSearch(memberService, memberNameIndex, memberProperties.getSearch().getParallelism());
+    }
+
+    // 종료 시 close로 큐에 남은 회원을 저장한다 (MemberService, DataSource보다 먼저 닫힌다)
+    @Bean
+    @ConditionalOnProperty(prefix = "member.write-behind", name = "enabled", havingValue = "true")
+    public MemberWriteBehind memberWriteBehind(MemberService memberService) {
+        MemberProperties.WriteBehind writeBehind = memberProperties.getWriteBehind();
+        return new MemberWriteBehind(memberService, writeBehind.getCapacity(), writeBehind.getMaxBatch(),
+                writeBehind.getFlushInterval());
+    }
+
+    /* ---- Controller ---- */
+    // 회원 controller가 DB를 기다리는 작업을 실행할 executor (호출한 Tomcat 스레드에서 바로 실행)
+    @Bean
+    public Executor memberExecutor() {
+        return new SyncTaskExecutor();
     }
 
     /* ---- AOP 설정 Spring Config에서도 가능 ---- */
@@ -0,0 +1,130 @@
+package hello.hellospring.aop;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 접근 로그 레코드용 고정 크기 링 버퍼 (여러 요청 스레드가 쓰고, drainer 스레드 하나가 읽는다)
+ *
+ * 슬롯은 미리 만들어 둔 배열이라 요청 스레드는 락 없이 CAS로 자리만 잡고 값을 채운다.
+ * 슬롯마다 게시된 sequence를 기록해서, drainer는 다 채워진 레코드만 순서대로 읽는다.
+ */
+public class AccessLogBuffer {
+
+    public enum OverflowPolicy {
+        DROP, // 버퍼가 가득 차면 버리고 개수만 센다
+        BLOCK // 버퍼에 자리가 날 때까지 요청 스레드가 기다린다
+    }
+
+    /**
+     * drainer가 레코드를 하나씩 받아 처리
+     */
+    public interface RecordHandler {
+        void handle(long timestamp, String method, String uri, int status, long durationNanos, long bytes);
+    }
+
+    private static final long BLOCK_PARK_NANOS = 10_000L;
+
+    private final int capacity;
+    private final int mask;
+    private final OverflowPolicy overflowPolicy;
+
+    private final long[] timestamps;
+    private final String[] methods;
+    private final String[] uris;
+    private final int[] statuses;
+    private final long[] durations;
+    private final long[] bytes;
+    private final AtomicLongArray published; // 슬롯에 게시된 sequence + 1 (0은 비어 있음)
+
+    private final AtomicLong tail = new AtomicLong(); // 다음에 쓸 sequence
+    private volatile long head; // 다음에 읽을 sequence (drainer만 변경)
+    private final LongAdder dropped = new LongAdder();
+
+    public AccessLogBuffer(int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity는 2의 거듭제곱이어야 합니다: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.overflowPolicy = overflowPolicy;
+        this.timestamps = new long[capacity];
+        this.methods = new String[capacity];
+        this.uris = new String[capacity];
+        this.statuses = new int[capacity];
+        this.durations = new long[capacity];
+        this.bytes = new long[capacity];
+        this.published = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * 레코드 추가, DROP 정책에서 버퍼가 가득 차 있으면 false
+     */
+    public boolean offer(String method, String uri, int status, long durationNanos, long bytes) {
+        long sequence = claim();
+        if (sequence < 0) {
+            dropped.increment();
+            return false;
+        }
+        int index = (int) (sequence & mask);
+        this.timestamps[index] = System.currentTimeMillis();
+        this.methods[index] = method;
+        this.uris[index] = uri;
+        this.statuses[index] = status;
+        this.durations[index] = durationNanos;
+        this.bytes[index] = bytes;
+        published.lazySet(index, sequence + 1); // 위의 값들이 모두 보인 뒤에 게시된다
+        return true;
+    }
+
+    private long claim() {
+        while (true) {
+            long current = tail.get();
+            if (current - head >= capacity) {
+                if (overflowPolicy == OverflowPolicy.DROP) {
+                    return -1;
+                }
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                continue;
+            }
+            if (tail.compareAndSet(current, current + 1)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * 게시된 레코드를 최대 maxRecords개까지 순서대로 처리하고 처리한 개수를 반환 (drainer 스레드 전용)
+     */
+    public int drain(RecordHandler handler, int maxRecords) {
+        long sequence = head;
+        int drained = 0;
+        while (drained < maxRecords) {
+            int index = (int) (sequence & mask);
+            if (published.get(index) != sequence + 1) {
+                break; // 아직 자리만 잡고 값을 채우는 중
+            }
+            handler.handle(timestamps[index], methods[index], uris[index], statuses[index], durations[index], bytes[index]);
+            methods[index] = null;
+            uris[index] = null;
+            sequence++;
+            drained++;
+        }
+        head = sequence;
+        return drained;
+    }
+
+    public long size() {
+        return tail.get() - head;
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
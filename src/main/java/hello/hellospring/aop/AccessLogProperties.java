@@ -0,0 +1,74 @@
+package hello.hellospring.aop;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * application.properties의 access-log.* 설정
+ */
+@ConfigurationProperties(prefix = "access-log")
+public class AccessLogProperties {
+
+    private String file = "logs/access.log"; // 접근 로그 파일
+    private int bufferSize = 8192; // 링 버퍼 크기 (2의 거듭제곱)
+    private AccessLogBuffer.OverflowPolicy overflowPolicy = AccessLogBuffer.OverflowPolicy.DROP;
+    private int batchSize = 512; // drainer가 한 번에 모아서 쓰는 레코드 수
+    private long flushIntervalMs = 100; // 버퍼가 비어 있을 때 drainer가 쉬는 시간
+    private long maxFileSize = 100 * 1024 * 1024; // 이 크기를 넘으면 파일을 굴린다 (access.log → access.log.1)
+    private int maxHistory = 5; // 보관할 이전 파일 수
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public AccessLogBuffer.OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(AccessLogBuffer.OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    public void setMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    public int getMaxHistory() {
+        return maxHistory;
+    }
+
+    public void setMaxHistory(int maxHistory) {
+        this.maxHistory = maxHistory;
+    }
+}
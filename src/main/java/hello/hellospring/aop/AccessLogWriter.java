@@ -0,0 +1,187 @@
+package hello.hellospring.aop;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 접근 로그 비동기 기록기
+ *
+ * 요청 스레드는 링 버퍼에 레코드만 넣고 돌아가고, drainer 스레드가 모아서 한 번에 파일에 쓴다.
+ * 파일이 maxFileSize를 넘으면 access.log.1, access.log.2 ... 로 굴린다.
+ */
+@Component
+@EnableConfigurationProperties(AccessLogProperties.class)
+public class AccessLogWriter implements AccessLogBuffer.RecordHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogWriter.class);
+
+    private final AccessLogProperties properties;
+    private final AccessLogBuffer buffer;
+    private final Path file;
+
+    // 아래는 drainer 스레드만 사용
+    private final StringBuilder line = new StringBuilder(256);
+    private final ByteBuffer out = ByteBuffer.allocateDirect(64 * 1024);
+    private FileChannel channel;
+    private long fileSize;
+    private volatile long written;
+
+    private volatile boolean running;
+    private Thread drainer;
+
+    public AccessLogWriter(AccessLogProperties properties) {
+        this.properties = properties;
+        this.buffer = new AccessLogBuffer(properties.getBufferSize(), properties.getOverflowPolicy());
+        this.file = Paths.get(properties.getFile());
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        open();
+        running = true;
+        drainer = new Thread(this::drainLoop, "access-log-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(drainer);
+        drainer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * 요청 스레드에서 호출: 버퍼에 넣기만 한다
+     */
+    public boolean log(String method, String uri, int status, long durationNanos, long bytes) {
+        return buffer.offer(method, uri, status, durationNanos, bytes);
+    }
+
+    private void drainLoop() {
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMs());
+        // 종료 요청 후에도 버퍼에 남은 레코드는 모두 쓴다
+        while (running || buffer.size() > 0) {
+            try {
+                if (buffer.drain(this, properties.getBatchSize()) > 0) {
+                    flush();
+                } else if (running) {
+                    LockSupport.parkNanos(idleNanos);
+                }
+            } catch (Exception e) {
+                logger.error("접근 로그 기록 실패", e);
+                LockSupport.parkNanos(idleNanos);
+            }
+        }
+        close();
+    }
+
+    // 형식: 2026-01-01T00:00:00.000Z GET /members 200 1234567ns 512B
+    @Override
+    public void handle(long timestamp, String method, String uri, int status, long durationNanos, long bytes) {
+        line.setLength(0);
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(timestamp), line);
+        line.append(' ').append(method)
+                .append(' ').append(uri)
+                .append(' ').append(status)
+                .append(' ').append(durationNanos).append("ns")
+                .append(' ').append(bytes < 0 ? "-" : bytes + "B")
+                .append('\n');
+
+        byte[] encoded = line.toString().getBytes(StandardCharsets.UTF_8);
+        if (encoded.length > out.remaining()) {
+            flush();
+        }
+        out.put(encoded, 0, Math.min(encoded.length, out.remaining()));
+        written++;
+    }
+
+    private void flush() {
+        out.flip();
+        try {
+            while (out.hasRemaining()) {
+                fileSize += channel.write(out);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            out.clear();
+        }
+        if (fileSize >= properties.getMaxFileSize()) {
+            roll();
+        }
+    }
+
+    private void roll() {
+        close();
+        try {
+            for (int i = properties.getMaxHistory() - 1; i >= 1; i--) {
+                Path source = history(i);
+                if (Files.exists(source)) {
+                    Files.move(source, history(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            if (properties.getMaxHistory() > 0) {
+                Files.move(file, history(1), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.delete(file);
+            }
+            open();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path history(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void open() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileSize = channel.size();
+    }
+
+    private void close() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            logger.warn("접근 로그 파일 닫기 실패", e);
+        }
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    public long getDropped() {
+        return buffer.getDropped();
+    }
+
+    public long getPending() {
+        return buffer.size();
+    }
+}
@@ -0,0 +1,96 @@
+package hello.hellospring.aop;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 메소드별 실행 시간 히스토그램 저장소
+ * 메소드마다 이름과 측정 여부(include/exclude)를 처음 한 번만 계산해 두고 재사용한다
+ */
+@Component
+@EnableConfigurationProperties(TimeTraceProperties.class)
+public class MethodTimings {
+
+    private final TimeTraceProperties properties;
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    public MethodTimings(TimeTraceProperties properties) {
+        this.properties = properties;
+    }
+
+    Timer timerFor(Method method) {
+        Timer timer = timers.get(method); // 대부분은 여기서 끝나므로 computeIfAbsent의 람다도 만들지 않는다
+        if (timer == null) {
+            timer = timers.computeIfAbsent(method, this::createTimer);
+        }
+        return timer;
+    }
+
+    // 이름은 패키지를 포함한 클래스 이름 + 파라미터 타입: 단순 이름이 같은 클래스나 오버로드 메소드가 한 줄로 합쳐지지 않도록
+    private Timer createTimer(Method method) {
+        String name = method.getDeclaringClass().getName() + "." + method.getName();
+        StringJoiner parameters = new StringJoiner(",", "(", ")");
+        for (Class<?> type : method.getParameterTypes()) {
+            parameters.add(type.getSimpleName());
+        }
+        return new Timer(name + parameters, isTraced(name));
+    }
+
+    private boolean isTraced(String name) {
+        for (String prefix : properties.getExclude()) {
+            if (name.startsWith(prefix)) {
+                return false;
+            }
+        }
+        if (properties.getInclude().isEmpty()) {
+            return true;
+        }
+        for (String prefix : properties.getInclude()) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    double getSamplingRate() {
+        return properties.getSamplingRate();
+    }
+
+    /**
+     * 측정된 메소드별 요약, 이름 순
+     */
+    public Map<String, LatencyHistogram.Snapshot> snapshots() {
+        Map<String, LatencyHistogram.Snapshot> result = new TreeMap<>();
+        for (Timer timer : timers.values()) {
+            if (timer.traced) {
+                result.put(timer.name, timer.histogram.snapshot());
+            }
+        }
+        return result;
+    }
+
+    public void reset() {
+        for (Timer timer : timers.values()) {
+            timer.histogram.reset();
+        }
+    }
+
+    static class Timer {
+
+        final String name;
+        final boolean traced;
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        Timer(String name, boolean traced) {
+            this.name = name;
+            this.traced = traced;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package hello.hellospring.aop;
+
+import hello.hellospring.web.ResponseCache;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 회원 가입이 성공하면 GET 응답 캐시를 비운다
+ * (트랜잭션 advisor(LOWEST_PRECEDENCE)보다 바깥에서 실행돼 커밋된 뒤에 비운다.
+ *  HIGHEST_PRECEDENCE는 ExposeInvocationInterceptor보다 앞서게 되어 쓰지 않는다)
+ */
+@Aspect
+@Component
+@Order(0)
+public class ResponseCacheAop {
+
+    private final ResponseCache responseCache;
+
+    public ResponseCacheAop(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @AfterReturning("execution(* hello.hellospring.service.MemberService.join*(..))")
+    public void invalidate() {
+        responseCache.invalidateAll();
+    }
+}
@@ -0,0 +1,38 @@
+package hello.hellospring.aop;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * application.properties의 startup.* 설정
+ */
+@ConfigurationProperties(prefix = "startup")
+public class StartupProperties {
+
+    private int topBeans = 30; // 리포트에 남길 빈 수 (자기 시간이 긴 순)
+    private String reportFile; // 지정하면 기동 후 리포트를 탭 구분 파일로 남긴다 (CI에서 비교용)
+    private boolean exitAfterReady = false; // 기동이 끝나면 바로 종료 (CDS 클래스 목록 수집용)
+
+    public int getTopBeans() {
+        return topBeans;
+    }
+
+    public void setTopBeans(int topBeans) {
+        this.topBeans = topBeans;
+    }
+
+    public String getReportFile() {
+        return reportFile;
+    }
+
+    public void setReportFile(String reportFile) {
+        this.reportFile = reportFile;
+    }
+
+    public boolean isExitAfterReady() {
+        return exitAfterReady;
+    }
+
+    public void setExitAfterReady(boolean exitAfterReady) {
+        this.exitAfterReady = exitAfterReady;
+    }
+}
@@ -0,0 +1,221 @@
+package hello.hellospring.aop;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 기동 시간 리포트
+ *
+ * HelloSpringApplication이 BufferingApplicationStartup으로 기록한 단계(step)들을 기동 직후 한 번 모아,
+ * 단계 이름별 / 빈별 "자기 시간"(하위 단계 시간을 뺀 시간)으로 정리한다.
+ * 빈 생성 시간은 의존하는 빈의 생성 시간을 포함하므로, 자기 시간으로 봐야 어느 빈이 느린지 보인다.
+ */
+@Component
+@EnableConfigurationProperties(StartupProperties.class)
+public class StartupTimings implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimings.class);
+
+    private static final String BEAN_INSTANTIATE_STEP = "spring.beans.instantiate";
+
+    private final StartupProperties properties;
+    private final ApplicationStartup applicationStartup;
+    private volatile Report report = Report.EMPTY;
+
+    public StartupTimings(StartupProperties properties, ApplicationStartup applicationStartup) {
+        this.properties = properties;
+        this.applicationStartup = applicationStartup;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        // 테스트 등 main()을 거치지 않고 뜬 컨텍스트는 기록이 없다
+        if (applicationStartup instanceof BufferingApplicationStartup) {
+            // drain: 리포트를 만든 뒤에는 단계 기록을 들고 있지 않는다
+            report = createReport(((BufferingApplicationStartup) applicationStartup).drainBufferedTimeline(),
+                    ManagementFactory.getRuntimeMXBean().getUptime(), properties.getTopBeans());
+            logger.info("started in {}ms (jvm uptime), {} steps recorded, slowest beans: {}",
+                    report.jvmUptimeMs, report.steps, report.beans.stream().limit(5)
+                            .map(bean -> bean.name + "=" + bean.selfMs + "ms").collect(Collectors.joining(", ")));
+            if (properties.getReportFile() != null && !properties.getReportFile().isEmpty()) {
+                writeReport(Paths.get(properties.getReportFile()));
+            }
+        }
+        if (properties.isExitAfterReady()) {
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+
+    static Report createReport(StartupTimeline timeline, long jvmUptimeMs, int topBeans) {
+        List<StartupTimeline.TimelineEvent> events = timeline.getEvents();
+
+        // 부모 단계의 시간에서 하위 단계 시간을 빼서 자기 시간을 구한다
+        Map<Long, Long> childNanos = new HashMap<>();
+        for (StartupTimeline.TimelineEvent event : events) {
+            Long parentId = event.getStartupStep().getParentId();
+            if (parentId != null) {
+                childNanos.merge(parentId, event.getDuration().toNanos(), Long::sum);
+            }
+        }
+
+        Map<String, Phase> phases = new HashMap<>();
+        List<Bean> beans = new ArrayList<>();
+        for (StartupTimeline.TimelineEvent event : events) {
+            StartupStep step = event.getStartupStep();
+            long totalNanos = event.getDuration().toNanos();
+            long selfNanos = Math.max(0, totalNanos - childNanos.getOrDefault(step.getId(), 0L));
+            phases.computeIfAbsent(step.getName(), Phase::new).add(selfNanos);
+            if (BEAN_INSTANTIATE_STEP.equals(step.getName())) {
+                beans.add(new Bean(tag(step, "beanName"), toMillis(selfNanos), toMillis(totalNanos)));
+            }
+        }
+
+        List<Phase> sortedPhases = new ArrayList<>(phases.values());
+        sortedPhases.sort(Comparator.comparingLong((Phase phase) -> phase.selfNanos).reversed());
+        beans.sort(Comparator.comparingDouble((Bean bean) -> bean.selfMs).reversed());
+        return new Report(jvmUptimeMs, events.size(), sortedPhases,
+                beans.subList(0, Math.min(topBeans, beans.size())));
+    }
+
+    private static String tag(StartupStep step, String key) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (key.equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0; // 소수점 둘째 자리까지
+    }
+
+    // 한 줄에 한 항목: 종류, 이름, 자기 시간(ms), 나머지 (phase: 횟수, bean: 하위 포함 시간(ms))
+    private void writeReport(Path file) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+                writer.println("uptime\tjvm\t" + report.jvmUptimeMs);
+                for (Phase phase : report.phases) {
+                    writer.println("phase\t" + phase.name + "\t" + phase.getSelfMs() + "\t" + phase.count);
+                }
+                for (Bean bean : report.beans) {
+                    writer.println("bean\t" + bean.name + "\t" + bean.selfMs + "\t" + bean.totalMs);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("기동 시간 리포트를 쓰지 못했습니다: {}", file, e);
+        }
+    }
+
+    public Report getReport() {
+        return report;
+    }
+
+    public static class Report {
+
+        static final Report EMPTY = new Report(0, 0, Collections.emptyList(), Collections.emptyList());
+
+        private final long jvmUptimeMs; // JVM 시작부터 ApplicationReadyEvent까지
+        private final int steps;
+        private final List<Phase> phases; // 자기 시간이 긴 순
+        private final List<Bean> beans; // 자기 시간이 긴 순, topBeans개
+
+        Report(long jvmUptimeMs, int steps, List<Phase> phases, List<Bean> beans) {
+            this.jvmUptimeMs = jvmUptimeMs;
+            this.steps = steps;
+            this.phases = phases;
+            this.beans = beans;
+        }
+
+        public long getJvmUptimeMs() {
+            return jvmUptimeMs;
+        }
+
+        public int getSteps() {
+            return steps;
+        }
+
+        public List<Phase> getPhases() {
+            return phases;
+        }
+
+        public List<Bean> getBeans() {
+            return beans;
+        }
+    }
+
+    public static class Phase {
+
+        private final String name;
+        private int count;
+        private long selfNanos;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        void add(long nanos) {
+            count++;
+            selfNanos += nanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public double getSelfMs() {
+            return toMillis(selfNanos);
+        }
+    }
+
+    public static class Bean {
+
+        private final String name;
+        private final double selfMs;
+        private final double totalMs; // 의존하는 빈 생성 시간 포함
+
+        Bean(String name, double selfMs, double totalMs) {
+            this.name = name;
+            this.selfMs = selfMs;
+            this.totalMs = totalMs;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getSelfMs() {
+            return selfMs;
+        }
+
+        public double getTotalMs() {
+            return totalMs;
+        }
+    }
+}
@@ -3,22 +3,43 @@ package hello.hellospring.aop;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 @Aspect
-@Component // TODO
+@Component
 public class TimeTraceAop {
-    @Around("execution(* hello.hellospring..*(..))")
+
+    private final MethodTimings methodTimings;
+
+    public TimeTraceAop(MethodTimings methodTimings) {
+        this.methodTimings = methodTimings;
+    }
+
+    // controller, service, repository 계층만 프록시한다
+    // (설정 클래스·데이터소스 등까지 프록시하면 기동 시 프록시 생성 비용만 늘고, aop 패키지는 자기 자신을 다시 측정하게 된다)
+    @Around("execution(* hello.hellospring.controller..*(..))"
+            + " || execution(* hello.hellospring.service..*(..))"
+            + " || execution(* hello.hellospring.repository..*(..))")
     public Object execute(ProceedingJoinPoint joinPoint) throws Throwable {
-        long start = System.currentTimeMillis();
-        System.out.println("START: " + joinPoint.toString());
+        MethodTimings.Timer timer = methodTimings.timerFor(((MethodSignature) joinPoint.getSignature()).getMethod());
+        if (!timer.traced || !sampled()) {
+            return joinPoint.proceed();
+        }
+
+        long start = System.nanoTime();
         try {
             return joinPoint.proceed(); // 다음 메소드로 진행
         } finally {
-            long finish = System.currentTimeMillis();
-            long timeMs = finish - start;
-            System.out.println("END: " + joinPoint.toString() + " " + timeMs + "ms");
+            timer.histogram.record(System.nanoTime() - start);
         }
     }
 
+    private boolean sampled() {
+        double samplingRate = methodTimings.getSamplingRate();
+        return samplingRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < samplingRate;
+    }
+
 }
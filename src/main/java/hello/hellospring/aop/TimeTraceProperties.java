@@ -0,0 +1,41 @@
+package hello.hellospring.aop;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * application.properties의 timetrace.* 설정
+ */
+@ConfigurationProperties(prefix = "timetrace")
+public class TimeTraceProperties {
+
+    private double samplingRate = 1.0; // 0~1, 측정할 호출 비율
+    private List<String> include = new ArrayList<>(); // 측정할 "패키지.클래스.메소드" 접두어, 비어 있으면 전체
+    private List<String> exclude = new ArrayList<>(); // 측정에서 뺄 접두어 (include보다 우선)
+
+    public double getSamplingRate() {
+        return samplingRate;
+    }
+
+    public void setSamplingRate(double samplingRate) {
+        this.samplingRate = samplingRate;
+    }
+
+    public List<String> getInclude() {
+        return include;
+    }
+
+    public void setInclude(List<String> include) {
+        this.include = include;
+    }
+
+    public List<String> getExclude() {
+        return exclude;
+    }
+
+    public void setExclude(List<String> exclude) {
+        this.exclude = exclude;
+    }
+}
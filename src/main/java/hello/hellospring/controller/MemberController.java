@@ -1,23 +1,62 @@
 package hello.hellospring.controller;
 
 import hello.hellospring.domain.Member;
+import hello.hellospring.repository.MemberNameIndex;
+import hello.hellospring.service.MemberExporter;
+import hello.hellospring.service.MemberFormat;
+import hello.hellospring.service.MemberImporter;
+import hello.hellospring.service.MemberPage;
+import hello.hellospring.service.MemberSearch;
 import hello.hellospring.service.MemberService;
+import hello.hellospring.service.MemberWriteBehind;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Controller
 public class MemberController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final MemberService memberService;
+    private final MemberImporter memberImporter;
+    private final MemberExporter memberExporter;
+    private final ObjectProvider<MemberSearch> memberSearch; // member.search.enabled=false면 없음
+    private final ObjectProvider<MemberWriteBehind> memberWriteBehind; // member.write-behind.enabled=false면 없음
+    // DB를 기다리는 작업을 실행 (요청 스레드에서 바로 끝난 future라 CompletedFutureReturnValueHandler가 비동기 요청 없이 렌더링한다)
+    private final Executor memberExecutor;
 
     @Autowired
-    public MemberController(MemberService memberService) {
+    public MemberController(MemberService memberService, MemberImporter memberImporter, MemberExporter memberExporter,
+                            ObjectProvider<MemberSearch> memberSearch,
+                            ObjectProvider<MemberWriteBehind> memberWriteBehind,
+                            @Qualifier("memberExecutor") Executor memberExecutor) {
         this.memberService = memberService;
+        this.memberImporter = memberImporter;
+        this.memberExporter = memberExporter;
+        this.memberSearch = memberSearch;
+        this.memberWriteBehind = memberWriteBehind;
+        this.memberExecutor = memberExecutor;
         System.out.println("class" + memberService.getClass()); // AOP 가상 클래스 확인
     }
 
@@ -28,22 +67,93 @@ public class MemberController {
     }
 
     // 회원 등록 폼 POST
+    // member.write-behind.enabled면 큐에 넣고 batch가 커밋될 때 응답한다 (요청 스레드는 기다리지 않는다)
     @PostMapping("/members/new")
-    public String create(MemberForm form) {
+    public CompletableFuture<String> create(MemberForm form) {
         Member member = new Member();
         member.setName(form.getName());
 
-        memberService.join(member);
+        MemberWriteBehind writeBehind = memberWriteBehind.getIfAvailable();
+        if (writeBehind != null) {
+            return writeBehind.join(member).thenApply(id -> "redirect:/");
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            memberService.join(member);
+            return "redirect:/";
+        }, memberExecutor);
+    }
+
+    // 회원 일괄 가져오기 POST: 본문(CSV 또는 NDJSON, 한 행에 한 명)을 읽으면서 batch 단위로 저장한다
+    // 몇 분씩 걸릴 수 있어 비동기 요청 timeout에 걸리지 않도록 요청 스레드에서 처리한다, 진행 상황은 /metrics/import
+    @PostMapping(value = "/members/import", consumes = {"text/csv", NDJSON})
+    @ResponseBody
+    public ResponseEntity<MemberImporter.Progress> importMembers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                                 InputStream body) {
+        MemberFormat format = contentType.isCompatibleWith(MediaType.parseMediaType(NDJSON))
+                ? MemberFormat.NDJSON : MemberFormat.CSV;
+        MemberImporter.Progress progress = memberImporter.importMembers(body, format);
+        return progress.getError() == null ? ResponseEntity.ok(progress) : ResponseEntity.badRequest().body(progress);
+    }
+
+    // 회원 내보내기 GET: DB 커서에서 읽는 대로 응답에 쓴다 (format=csv|ndjson, Accept-Encoding에 gzip이 있으면 압축)
+    // 가져오기와 같은 이유로 StreamingResponseBody(비동기) 대신 요청 스레드에서 응답 스트림에 바로 쓴다
+    @GetMapping("/members/export")
+    public void exportMembers(@RequestParam(value = "format", defaultValue = "csv") String format,
+                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                              HttpServletResponse response) throws IOException {
+        MemberFormat memberFormat;
+        try {
+            memberFormat = MemberFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format은 csv 또는 ndjson입니다.");
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        response.setContentType(memberFormat.getMediaType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=members." + memberFormat.name().toLowerCase(Locale.ROOT));
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        memberExporter.export(memberFormat, gzip, response.getOutputStream());
+    }
 
-        return "redirect:/";
+    // 회원 이름 검색 GET: mode=prefix(앞부분 일치, 기본)|fuzzy(오타·중간 글자), 메모리 인덱스에서 찾으므로 요청 스레드에서 바로 처리한다
+    @GetMapping("/members/search")
+    @ResponseBody
+    public List<MemberNameIndex.Match> search(@RequestParam("q") String query,
+                                              @RequestParam(value = "mode", defaultValue = "prefix") String mode,
+                                              @RequestParam(value = "size", defaultValue = "20") int size) {
+        MemberSearch search = memberSearch.getIfAvailable();
+        if (search == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "member.search.enabled=false");
+        }
+        MemberSearch.Mode searchMode;
+        try {
+            searchMode = MemberSearch.Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "mode는 prefix 또는 fuzzy입니다.");
+        }
+        if (query.trim().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "q가 비어 있습니다.");
+        }
+        return search.search(query.trim(), searchMode, size);
     }
 
-    // 회원 조회 GET
+    // 회원 조회 GET: 전체 목록 대신 한 페이지씩 (after/before 커서)
     @GetMapping("/members")
-    public String list(Model model) {
-        List<Member> members = memberService.findMembers();
-        model.addAttribute("members", members); // members List 전체를 모델에 담아서 화면에 넘긴다
-        return "members/memberList";
+    public CompletableFuture<String> list(@RequestParam(value = "after", required = false) Long after,
+                                          @RequestParam(value = "before", required = false) Long before,
+                                          @RequestParam(value = "size", defaultValue = "20") int size,
+                                          Model model) {
+        return CompletableFuture.supplyAsync(() -> {
+            MemberPage page = memberService.findMemberPage(after, before, size);
+            model.addAttribute("members", page.getMembers());
+            model.addAttribute("page", page);
+            model.addAttribute("size", size);
+            return "members/memberList";
+        }, memberExecutor);
     }
 
 }
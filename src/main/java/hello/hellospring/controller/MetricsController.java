@@ -0,0 +1,324 @@
+package hello.hellospring.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import hello.hellospring.aop.AccessLogWriter;
+import hello.hellospring.aop.LatencyHistogram;
+import hello.hellospring.aop.MethodTimings;
+import hello.hellospring.aop.StartupTimings;
+import hello.hellospring.datasource.PoolMetrics;
+import hello.hellospring.datasource.ReplicaRoutingDataSource;
+import hello.hellospring.datasource.SqlMetrics;
+import hello.hellospring.repository.MemberCache;
+import hello.hellospring.repository.MemberCoalescer;
+import hello.hellospring.service.MemberExporter;
+import hello.hellospring.service.MemberImporter;
+import hello.hellospring.service.MemberSearch;
+import hello.hellospring.service.MemberWriteBehind;
+import hello.hellospring.web.ResponseCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Controller
+public class MetricsController {
+
+    private final MethodTimings methodTimings;
+    private final AccessLogWriter accessLogWriter;
+    private final ObjectProvider<MemberCache> memberCache; // member.cache.enabled=false면 없음
+    private final ObjectProvider<MemberCoalescer> memberCoalescer; // member.coalescing.enabled=false면 없음
+    private final PoolMetrics poolMetrics;
+    private final Statistics hibernateStatistics; // hibernate.generate_statistics=true 일 때만 값이 쌓인다
+    private final StartupTimings startupTimings;
+    private final ResponseCache responseCache;
+    private final MemberImporter memberImporter;
+    private final MemberExporter memberExporter;
+    private final ObjectProvider<MemberSearch> memberSearch; // member.search.enabled=false면 없음
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaRouting; // datasource.replica.enabled=false면 없음
+    private final ObjectProvider<MemberWriteBehind> memberWriteBehind; // member.write-behind.enabled=false면 없음
+    private final ObjectProvider<SqlMetrics> sqlMetrics; // sql-metrics.enabled=false면 없음
+
+    public MetricsController(MethodTimings methodTimings, AccessLogWriter accessLogWriter,
+                             ObjectProvider<MemberCache> memberCache, PoolMetrics poolMetrics,
+                             EntityManagerFactory entityManagerFactory, StartupTimings startupTimings,
+                             ResponseCache responseCache, MemberImporter memberImporter,
+                             MemberExporter memberExporter, ObjectProvider<MemberSearch> memberSearch,
+                             ObjectProvider<ReplicaRoutingDataSource> replicaRouting,
+                             ObjectProvider<MemberWriteBehind> memberWriteBehind,
+                             ObjectProvider<MemberCoalescer> memberCoalescer,
+                             ObjectProvider<SqlMetrics> sqlMetrics) {
+        this.methodTimings = methodTimings;
+        this.accessLogWriter = accessLogWriter;
+        this.memberCache = memberCache;
+        this.poolMetrics = poolMetrics;
+        this.hibernateStatistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.startupTimings = startupTimings;
+        this.responseCache = responseCache;
+        this.memberImporter = memberImporter;
+        this.memberExporter = memberExporter;
+        this.memberSearch = memberSearch;
+        this.replicaRouting = replicaRouting;
+        this.memberWriteBehind = memberWriteBehind;
+        this.memberCoalescer = memberCoalescer;
+        this.sqlMetrics = sqlMetrics;
+    }
+
+    // 메소드별 실행 시간 (count, mean, p50/p99/p999, max; 단위 ns)
+    @GetMapping("/metrics/timings")
+    @ResponseBody
+    public Map<String, LatencyHistogram.Snapshot> timings() {
+        return methodTimings.snapshots();
+    }
+
+    @PostMapping("/metrics/timings/reset")
+    @ResponseBody
+    public void resetTimings() {
+        methodTimings.reset();
+    }
+
+    // 접근 로그 기록/유실/대기 건수
+    @GetMapping("/metrics/access-log")
+    @ResponseBody
+    public Map<String, Long> accessLog() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("written", accessLogWriter.getWritten());
+        result.put("dropped", accessLogWriter.getDropped());
+        result.put("pending", accessLogWriter.getPending());
+        return result;
+    }
+
+    // 회원 캐시 적중/실패/내보내기 건수 (id 캐시, 이름 캐시)
+    @GetMapping("/metrics/member-cache")
+    @ResponseBody
+    public Map<String, Object> memberCache() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        MemberCache cache = memberCache.getIfAvailable();
+        result.put("enabled", cache != null);
+        if (cache != null) {
+            result.put("byId", cacheStats(cache.getByIdStats(), cache.getByIdSize()));
+            result.put("byName", cacheStats(cache.getByNameStats(), cache.getByNameSize()));
+        }
+        return result;
+    }
+
+    // 단건 조회 묶기: 요청 수, 조회 중인 키를 같이 받은 요청 수, in 쿼리 수와 쿼리 한 번의 평균 키 수 (id, 이름)
+    @GetMapping("/metrics/coalescing")
+    @ResponseBody
+    public Map<String, Object> coalescing() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        MemberCoalescer coalescer = memberCoalescer.getIfAvailable();
+        result.put("enabled", coalescer != null);
+        if (coalescer != null) {
+            result.put("byId", coalescer.getByIdStats());
+            result.put("byName", coalescer.getByNameStats());
+        }
+        return result;
+    }
+
+    // 회원 가져오기 진행 상황: 진행 중인 것과 최근에 끝난 것 (읽은 행, 가입/건너뜀/잘못된 행 수, 초당 행 수)
+    @GetMapping("/metrics/import")
+    @ResponseBody
+    public List<MemberImporter.Progress> imports() {
+        return memberImporter.getImports();
+    }
+
+    // 최근 회원 내보내기 결과 (행 수, 압축 전 바이트, 초당 행 수)
+    @GetMapping("/metrics/export")
+    @ResponseBody
+    public List<MemberExporter.Result> exports() {
+        return memberExporter.getRecentExports();
+    }
+
+    // 회원 이름 검색 인덱스: 들어 있는 회원/trigram 수, 기동 시 채우기 진행 상황
+    @GetMapping("/metrics/search")
+    @ResponseBody
+    public Map<String, Object> search() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        MemberSearch search = memberSearch.getIfAvailable();
+        result.put("enabled", search != null);
+        if (search != null) {
+            result.put("members", search.getIndexedMembers());
+            result.put("trigrams", search.getTrigrams());
+            result.put("rebuild", search.getRebuild());
+        }
+        return result;
+    }
+
+    // 회원 가입 write-behind: 큐에 쌓인 회원 수, batch 크기(명), batch 저장·커밋 시간(ns), 저장/실패 회원 수
+    @GetMapping("/metrics/write-behind")
+    @ResponseBody
+    public Map<String, Object> writeBehind() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        MemberWriteBehind writeBehind = memberWriteBehind.getIfAvailable();
+        result.put("enabled", writeBehind != null);
+        if (writeBehind != null) {
+            result.put("queueDepth", writeBehind.getQueueDepth());
+            result.put("capacity", writeBehind.getCapacity());
+            result.put("batchSize", writeBehind.getBatchSizes());
+            result.put("commitLatency", writeBehind.getCommitLatency());
+            result.put("written", writeBehind.getWritten());
+            result.put("failed", writeBehind.getFailed());
+            result.put("retriedBatches", writeBehind.getRetriedBatches());
+        }
+        return result;
+    }
+
+    // GET 응답 캐시 적중/실패/304 응답/무효화 횟수
+    @GetMapping("/metrics/response-cache")
+    @ResponseBody
+    public Map<String, Object> responseCache() {
+        Map<String, Object> result = cacheStats(responseCache.getStats(), responseCache.getSize());
+        result.put("notModifiedCount", responseCache.getNotModified());
+        result.put("invalidationCount", responseCache.getInvalidations());
+        return result;
+    }
+
+    private Map<String, Object> cacheStats(CacheStats stats, long size) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", size);
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+
+    // 커넥션 풀별 active/idle/대기 스레드, 획득 대기시간·사용시간(ns), 타임아웃 횟수
+    @GetMapping("/metrics/pool")
+    @ResponseBody
+    public Map<String, PoolMetrics.Snapshot> pool() {
+        return poolMetrics.snapshots();
+    }
+
+    // 읽기/쓰기 분리: primary(쓰기, 쓰기 직후 읽기, replica 실패)/replica별로 얻은 커넥션 수
+    @GetMapping("/metrics/routing")
+    @ResponseBody
+    public Map<String, Object> routing() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        ReplicaRoutingDataSource routing = replicaRouting.getIfAvailable();
+        result.put("enabled", routing != null);
+        if (routing != null) {
+            result.put("selection", routing.getSelection());
+            result.put("readYourWritesWindowMs", routing.getReadYourWritesWindow().toMillis());
+            result.put("connections", routing.getRoutedConnections());
+        }
+        return result;
+    }
+
+    // 정규화한 SQL별 실행 횟수, 행 수, 시간(ms, 분포는 ns)을 sort(total/mean/max/count) 순으로 limit개, 커넥션 획득 대기(ns)
+    @GetMapping("/metrics/sql")
+    @ResponseBody
+    public Map<String, Object> sql(@RequestParam(defaultValue = "total") String sort,
+                                   @RequestParam(defaultValue = "20") int limit) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        SqlMetrics metrics = sqlMetrics.getIfAvailable();
+        result.put("enabled", metrics != null);
+        if (metrics != null) {
+            result.put("requests", metrics.getRequests());
+            result.put("statements", metrics.getStatements());
+            result.put("acquire", metrics.getAcquire());
+            result.put("queries", metrics.top(SqlMetrics.Sort.valueOf(sort.toUpperCase(Locale.ROOT)), limit));
+        }
+        return result;
+    }
+
+    // SQL 수·시간 예산을 넘었거나 N+1이 의심되는 최근 요청, 최신 순
+    @GetMapping("/metrics/sql/requests")
+    @ResponseBody
+    public Map<String, Object> sqlRequests() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        SqlMetrics metrics = sqlMetrics.getIfAvailable();
+        result.put("enabled", metrics != null);
+        if (metrics != null) {
+            result.put("statementBudget", metrics.getProperties().getStatementBudget());
+            result.put("latencyBudgetMs", metrics.getProperties().getLatencyBudget().toMillis());
+            result.put("repeatThreshold", metrics.getProperties().getRepeatThreshold());
+            result.put("flagged", metrics.getFlaggedRequests());
+        }
+        return result;
+    }
+
+    @PostMapping("/metrics/sql/reset")
+    @ResponseBody
+    public void resetSql() {
+        sqlMetrics.ifAvailable(SqlMetrics::reset);
+    }
+
+    // JPA 저장소의 SQL 통계와 2차 캐시/쿼리 캐시 적중률 (JDBC 저장소가 직접 실행한 SQL은 포함되지 않는다)
+    @GetMapping("/metrics/hibernate")
+    @ResponseBody
+    public Map<String, Object> hibernate() {
+        Statistics stats = hibernateStatistics;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", stats.isStatisticsEnabled());
+        result.put("prepareStatementCount", stats.getPrepareStatementCount());
+        result.put("queryExecutionCount", stats.getQueryExecutionCount());
+        result.put("queryExecutionMaxTimeMs", stats.getQueryExecutionMaxTime());
+        result.put("queryExecutionMaxTimeQuery", stats.getQueryExecutionMaxTimeQueryString());
+        result.put("entityLoadCount", stats.getEntityLoadCount());
+        result.put("entityInsertCount", stats.getEntityInsertCount());
+        result.put("transactionCount", stats.getTransactionCount());
+        result.put("secondLevelCacheHitCount", stats.getSecondLevelCacheHitCount());
+        result.put("secondLevelCacheMissCount", stats.getSecondLevelCacheMissCount());
+        result.put("secondLevelCachePutCount", stats.getSecondLevelCachePutCount());
+        result.put("queryCacheHitCount", stats.getQueryCacheHitCount());
+        result.put("queryCacheMissCount", stats.getQueryCacheMissCount());
+        result.put("queryCachePutCount", stats.getQueryCachePutCount());
+
+        Map<String, Object> regions = new TreeMap<>();
+        for (String regionName : stats.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = stats.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            Map<String, Object> regionStats = new LinkedHashMap<>();
+            regionStats.put("hitCount", region.getHitCount());
+            regionStats.put("missCount", region.getMissCount());
+            regionStats.put("putCount", region.getPutCount());
+            regions.put(regionName, regionStats);
+        }
+        result.put("secondLevelCacheRegions", regions);
+
+        // 쿼리별 실행 횟수, 평균/최대 시간(ms), 반환 행 수, 쿼리 캐시 적중
+        Map<String, Object> queries = new TreeMap<>();
+        for (String query : stats.getQueries()) {
+            QueryStatistics queryStats = stats.getQueryStatistics(query);
+            Map<String, Object> queryResult = new LinkedHashMap<>();
+            queryResult.put("executionCount", queryStats.getExecutionCount());
+            queryResult.put("executionAvgTimeMs", queryStats.getExecutionAvgTime());
+            queryResult.put("executionMaxTimeMs", queryStats.getExecutionMaxTime());
+            queryResult.put("executionRowCount", queryStats.getExecutionRowCount());
+            queryResult.put("cacheHitCount", queryStats.getCacheHitCount());
+            queryResult.put("cacheMissCount", queryStats.getCacheMissCount());
+            queries.put(query, queryResult);
+        }
+        result.put("queries", queries);
+        return result;
+    }
+
+    @PostMapping("/metrics/hibernate/reset")
+    @ResponseBody
+    public void resetHibernate() {
+        hibernateStatistics.clear();
+    }
+
+    // 기동 시간: JVM uptime, 단계 이름별·빈별 자기 시간(ms, 하위 단계 제외)
+    @GetMapping("/metrics/startup")
+    @ResponseBody
+    public StartupTimings.Report startup() {
+        return startupTimings.getReport();
+    }
+}
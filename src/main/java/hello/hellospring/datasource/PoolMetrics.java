@@ -0,0 +1,146 @@
+package hello.hellospring.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import hello.hellospring.aop.LatencyHistogram;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HikariCP 커넥션 풀 지표 수집
+ *
+ * 컨텍스트의 모든 HikariDataSource에 MetricsTrackerFactory로 등록되어,
+ * 풀마다 커넥션 획득 대기시간, 사용시간, 획득 타임아웃 횟수를 기록한다.
+ * PriorityOrdered라서 일반 BeanPostProcessor(AOP 프록시 생성기 등)보다 먼저 등록된다: 그래야 aspect 빈을 앞당겨 생성하지 않는다.
+ * 같은 PriorityOrdered 중에서는 getOrder가 LOWEST_PRECEDENCE라 맨 마지막에 실행된다:
+ * spring.datasource.hikari.* 바인딩(ConfigurationPropertiesBindingPostProcessor) 뒤에 설정된 수집기가 없을 때만 붙인다.
+ */
+@Component
+public class PoolMetrics implements MetricsTrackerFactory, BeanPostProcessor, PriorityOrdered {
+
+    private final Map<String, PoolTracker> trackers = new ConcurrentHashMap<>();
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        // 풀은 첫 커넥션 요청 때 시작되므로, 그 전에 지표 수집기를 붙인다
+        if (bean instanceof HikariDataSource && ((HikariDataSource) bean).getMetricsTrackerFactory() == null) {
+            ((HikariDataSource) bean).setMetricsTrackerFactory(this);
+        }
+        return bean;
+    }
+
+    // PriorityOrdered 안에서의 순서: 설정 바인딩 뒤
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        PoolTracker tracker = new PoolTracker(poolStats);
+        trackers.put(poolName, tracker);
+        return tracker;
+    }
+
+    /**
+     * 풀별 현재 상태와 누적 지표, 풀 이름 순
+     */
+    public Map<String, Snapshot> snapshots() {
+        Map<String, Snapshot> result = new TreeMap<>();
+        trackers.forEach((poolName, tracker) -> result.put(poolName, tracker.snapshot()));
+        return result;
+    }
+
+    static class PoolTracker implements IMetricsTracker {
+
+        private final PoolStats poolStats;
+        private final LatencyHistogram acquire = new LatencyHistogram(); // 커넥션을 얻기까지 기다린 시간 (ns)
+        private final LatencyHistogram usage = new LatencyHistogram(); // 커넥션을 빌려 쓴 시간 (ns)
+        private final LongAdder timeouts = new LongAdder();
+
+        PoolTracker(PoolStats poolStats) {
+            this.poolStats = poolStats;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquire.record(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usage.record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+
+        Snapshot snapshot() {
+            return new Snapshot(poolStats.getActiveConnections(), poolStats.getIdleConnections(),
+                    poolStats.getTotalConnections(), poolStats.getPendingThreads(),
+                    timeouts.sum(), acquire.snapshot(), usage.snapshot());
+        }
+    }
+
+    public static class Snapshot {
+
+        private final int active;
+        private final int idle;
+        private final int total;
+        private final int pending; // 커넥션을 기다리는 스레드 수
+        private final long timeouts;
+        private final LatencyHistogram.Snapshot acquire;
+        private final LatencyHistogram.Snapshot usage;
+
+        Snapshot(int active, int idle, int total, int pending, long timeouts,
+                 LatencyHistogram.Snapshot acquire, LatencyHistogram.Snapshot usage) {
+            this.active = active;
+            this.idle = idle;
+            this.total = total;
+            this.pending = pending;
+            this.timeouts = timeouts;
+            this.acquire = acquire;
+            this.usage = usage;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getPending() {
+            return pending;
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        public LatencyHistogram.Snapshot getAcquire() {
+            return acquire;
+        }
+
+        public LatencyHistogram.Snapshot getUsage() {
+            return usage;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package hello.hellospring.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * datasource.replica.enabled=true면 DataSource를 읽기/쓰기 분리 DataSource로 바꾼다
+ *
+ * primary 풀은 spring.datasource.* 설정 그대로 만들고, replica 풀은 그 설정을 복사해 url, 계정, 크기만 바꾼다.
+ * 저장소(JDBC, JdbcTemplate, JPA)와 트랜잭션 매니저는 모두 이 DataSource 하나를 쓰므로 바뀌는 코드가 없다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.replica", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             ReplicaProperties properties) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getUrls().size(); i++) {
+            // 지표 수집기(PoolMetrics)와 data-source-properties도 함께 복사된다
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setPoolName(primaryDataSource.getPoolName() + "-replica-" + (i + 1));
+            config.setJdbcUrl(properties.getUrls().get(i));
+            if (properties.getUsername() != null) {
+                config.setUsername(properties.getUsername());
+                config.setPassword(properties.getPassword());
+            }
+            if (properties.getMaximumPoolSize() != null) {
+                config.setMaximumPoolSize(properties.getMaximumPoolSize());
+                config.setMinimumIdle(Math.min(config.getMinimumIdle(), properties.getMaximumPoolSize()));
+            }
+            config.setReadOnly(true); // 실수로 replica에 쓰지 않도록
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas,
+                properties.getSelection(), properties.getReadYourWritesWindow());
+    }
+
+    // 저장소, JPA, 트랜잭션 매니저가 주입받는 DataSource
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource, HikariDataSource primaryDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+        dataSource.setDefaultAutoCommit(primaryDataSource.isAutoCommit());
+        return dataSource;
+    }
+}
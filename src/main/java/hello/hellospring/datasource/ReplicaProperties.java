@@ -0,0 +1,78 @@
+package hello.hellospring.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * application.properties의 datasource.replica.* 설정 (읽기 전용 replica)
+ */
+@ConfigurationProperties(prefix = "datasource.replica")
+public class ReplicaProperties {
+
+    private boolean enabled = false;
+    private List<String> urls = new ArrayList<>(); // replica마다 jdbc url
+    private String username; // 없으면 spring.datasource.username
+    private String password; // 없으면 spring.datasource.password
+    private Integer maximumPoolSize; // 없으면 spring.datasource.hikari.maximum-pool-size
+    private ReplicaRoutingDataSource.Selection selection = ReplicaRoutingDataSource.Selection.ROUND_ROBIN;
+    private Duration readYourWritesWindow = Duration.ofSeconds(1); // 쓴 클라이언트는 쓰기 후 이 시간 동안 primary에서 읽는다
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getUrls() {
+        return urls;
+    }
+
+    public void setUrls(List<String> urls) {
+        this.urls = urls;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public Integer getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public void setMaximumPoolSize(Integer maximumPoolSize) {
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
+    public ReplicaRoutingDataSource.Selection getSelection() {
+        return selection;
+    }
+
+    public void setSelection(ReplicaRoutingDataSource.Selection selection) {
+        this.selection = selection;
+    }
+
+    public Duration getReadYourWritesWindow() {
+        return readYourWritesWindow;
+    }
+
+    public void setReadYourWritesWindow(Duration readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+}
@@ -0,0 +1,227 @@
+package hello.hellospring.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * 읽기/쓰기 분리 DataSource
+ *
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))의 커넥션은 replica에서, 나머지는 primary에서 얻는다.
+ * 트랜잭션의 readOnly 여부는 커넥션을 얻은 뒤에 정해지므로 반드시 LazyConnectionDataSourceProxy로 감싸서 쓴다
+ * (첫 SQL을 실행할 때 커넥션을 얻는다).
+ *
+ * read-your-writes: replica는 primary보다 조금 늦게 반영되므로, 쓴 클라이언트(Writer)는 마지막 쓰기 뒤
+ * readYourWritesWindow 동안 읽기 전용 트랜잭션도 primary에서 읽는다 (가입 직후 목록에 본인이 보이도록).
+ * 창은 쓴 클라이언트에만 걸리고 다른 클라이언트의 읽기는 계속 replica로 간다.
+ * Writer는 요청마다 ReadYourWritesFilter가 쿠키의 마지막 쓰기 시각으로 스레드에 건다 (인스턴스가 여러 대여도 따라간다).
+ * replica에서 커넥션을 얻지 못하면 primary에서 읽는다.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Writer> currentWriter = new ThreadLocal<>();
+
+    public enum Selection {
+        ROUND_ROBIN, // 차례대로
+        LEAST_LOADED // 사용 중인 커넥션 + 대기 스레드가 가장 적은 replica (HikariDataSource만 잴 수 있다)
+    }
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final Selection selection;
+    private final long readYourWritesMillis;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final LongAdder writes = new LongAdder(); // primary에서 얻은 읽기 전용이 아닌 커넥션
+    private final LongAdder recentWriteReads = new LongAdder(); // 쓰기 직후라 primary에서 읽은 커넥션
+    private final LongAdder fallbacks = new LongAdder(); // replica가 실패해 primary에서 읽은 커넥션
+    private final LongAdder[] replicaReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas,
+                                    Selection selection, Duration readYourWritesWindow) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas);
+        this.selection = selection;
+        this.readYourWritesMillis = readYourWritesWindow.toMillis();
+        this.replicaReads = new LongAdder[replicas.size()];
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+            replicaReads[i] = new LongAdder();
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * 현재 스레드에 Writer를 건다 (lastWriteMillis: 이전 요청에서 마지막으로 쓴 시각, 없으면 0)
+     * onWrite는 이 Writer의 쓰기 트랜잭션이 커밋될 때마다 그 시각으로 불린다
+     */
+    public Writer begin(long lastWriteMillis, LongConsumer onWrite) {
+        Writer writer = new Writer(lastWriteMillis, onWrite);
+        currentWriter.set(writer);
+        return writer;
+    }
+
+    public void end() {
+        currentWriter.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Writer writer = currentWriter.get();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            writes.increment();
+            if (writer != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        writer.written();
+                    }
+                });
+            }
+            return PRIMARY;
+        }
+        if (replicas.isEmpty()) {
+            return PRIMARY;
+        }
+        if (writer != null && isWithinWindow(writer)) {
+            recentWriteReads.increment();
+            return PRIMARY;
+        }
+        int replica = selection == Selection.LEAST_LOADED ? leastLoaded() : Math.floorMod(next.getAndIncrement(), replicas.size());
+        replicaReads[replica].increment();
+        return replica;
+    }
+
+    private boolean isWithinWindow(Writer writer) {
+        return System.currentTimeMillis() - writer.getLastWriteMillis() <= readYourWritesMillis;
+    }
+
+    // 부하가 같으면 돌아가며 고르도록 시작 위치를 매번 옮긴다
+    private int leastLoaded() {
+        int start = next.getAndIncrement();
+        int best = -1;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int n = 0; n < replicas.size(); n++) {
+            int i = Math.floorMod(start + n, replicas.size());
+            int load = load(replicas.get(i));
+            if (load < bestLoad) {
+                best = i;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    private static int load(DataSource replica) {
+        if (!(replica instanceof HikariDataSource)) {
+            return 0;
+        }
+        HikariPoolMXBean pool = ((HikariDataSource) replica).getHikariPoolMXBean(); // 첫 커넥션 전에는 null
+        return pool == null ? 0 : pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            if (target == primary) {
+                throw e;
+            }
+            fallbacks.increment();
+            logger.warn("replica connection failed, reading from primary: {}", e.toString());
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * primary/replica별로 얻은 커넥션 수
+     */
+    public Map<String, Long> getRoutedConnections() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("primary", writes.sum());
+        result.put("primaryAfterWrite", recentWriteReads.sum());
+        result.put("primaryFallback", fallbacks.sum());
+        for (int i = 0; i < replicaReads.length; i++) {
+            result.put("replica-" + (i + 1), replicaReads[i].sum());
+        }
+        return result;
+    }
+
+    public Selection getSelection() {
+        return selection;
+    }
+
+    public Duration getReadYourWritesWindow() {
+        return Duration.ofMillis(readYourWritesMillis);
+    }
+
+    /**
+     * 쓰는 클라이언트 (요청 하나 동안 요청 스레드와 그 요청을 넘겨받은 스레드에 걸린다)
+     */
+    public static class Writer {
+
+        private volatile long lastWriteMillis; // 인스턴스 사이에 비교하므로 벽시계 (epoch ms)
+        private final LongConsumer onWrite;
+
+        Writer(long lastWriteMillis, LongConsumer onWrite) {
+            this.lastWriteMillis = lastWriteMillis;
+            this.onWrite = onWrite;
+        }
+
+        /**
+         * 지금 썼다고 표시한다 (쓰기 트랜잭션 커밋 뒤, 또는 다른 스레드가 대신 쓰는 요청을 받았을 때)
+         */
+        public void written() {
+            long now = System.currentTimeMillis();
+            lastWriteMillis = now;
+            onWrite.accept(now);
+        }
+
+        public long getLastWriteMillis() {
+            return lastWriteMillis;
+        }
+    }
+
+    // replica 풀은 빈이 아니므로 여기서 닫는다 (primary는 빈으로 등록되어 따로 닫힌다)
+    @Override
+    public void close() {
+        for (DataSource replica : replicas) {
+            if (replica instanceof Closeable) {
+                try {
+                    ((Closeable) replica).close();
+                } catch (Exception e) {
+                    logger.warn("failed to close replica pool", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package hello.hellospring.datasource;
+
+import hello.hellospring.aop.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * SQL 실행 지표 (JDBC 저장소, JdbcTemplate, JPA 공통)
+ *
+ * "dataSource" 빈을 SqlMetricsDataSource로 감싸 커넥션 획득 대기시간, SQL별 실행 시간과 읽은/바꾼 행 수를 모은다.
+ * SQL은 리터럴과 in 목록을 ?로 바꿔(정규화) 같은 모양끼리 묶는다.
+ * SqlMetricsFilter가 HTTP 요청마다 begin/end를 부르면 그 요청의 SQL을 요청 단위로도 합산해,
+ * SQL 수·시간 예산을 넘거나 같은 SQL을 여러 번 실행한(N+1) 요청을 기록한다.
+ * 요청 단위 합계는 스레드에 걸리므로 다른 스레드에서 실행한 SQL은 SQL별 통계에만 들어간다.
+ * (PriorityOrdered: AOP 프록시 생성기보다 먼저 만들어져야 한다. 그때는 @ConfigurationProperties 바인딩 전이므로 설정은 Binder로 직접 읽는다)
+ */
+@Component
+@ConditionalOnProperty(prefix = "sql-metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SqlMetrics implements BeanPostProcessor, PriorityOrdered, EnvironmentAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlMetrics.class);
+
+    // 저장소와 JPA가 주입받는 DataSource
+    // (replica 설정이면 LazyConnectionDataSourceProxy라서 실제 획득 대기는 잡히지 않는다, 풀별 대기는 /metrics/pool)
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+    private static final int MAX_QUERIES = 1000; // 모으는 SQL 종류의 상한, 넘으면 OTHER에 합친다
+    private static final int MAX_NORMALIZED = 4096; // 정규화 결과를 기억해 두는 원본 SQL 수
+    static final String OTHER = "(other)";
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+    private static final ThreadLocal<RequestStats> currentRequest = new ThreadLocal<>();
+
+    private SqlMetricsProperties properties = new SqlMetricsProperties();
+    private final Map<String, String> normalized = new ConcurrentHashMap<>();
+    private final Map<String, QueryStats> queries = new ConcurrentHashMap<>();
+    private final LatencyHistogram acquire = new LatencyHistogram(); // 커넥션 획득 대기 (ns)
+    private final LongAdder requests = new LongAdder();
+    private final Deque<FlaggedRequest> flagged = new ArrayDeque<>(); // 최근 기록된 요청, 최신이 앞
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        properties = Binder.get(environment).bind("sql-metrics", SqlMetricsProperties.class)
+                .orElseGet(SqlMetricsProperties::new);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (DATA_SOURCE_BEAN.equals(beanName) && bean instanceof DataSource && !(bean instanceof SqlMetricsDataSource)) {
+            return new SqlMetricsDataSource((DataSource) bean, this);
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    /* ---- SqlMetricsDataSource에서 호출 ---- */
+
+    // 원본 SQL의 정규화한 모양별 통계 (prepare할 때 한 번 찾아 statement가 들고 있는다)
+    QueryStats query(String sql) {
+        String key = normalized.get(sql);
+        if (key == null) {
+            key = normalize(sql);
+            if (normalized.size() < MAX_NORMALIZED) {
+                normalized.put(sql, key);
+            }
+        }
+        QueryStats stats = queries.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        if (queries.size() >= MAX_QUERIES) {
+            key = OTHER;
+        }
+        return queries.computeIfAbsent(key, QueryStats::new);
+    }
+
+    void recordAcquire(long nanos) {
+        acquire.record(nanos);
+        RequestStats request = currentRequest.get();
+        if (request != null) {
+            request.acquireNanos += nanos;
+        }
+    }
+
+    void recordStatement(QueryStats query, long nanos, long updatedRows) {
+        query.record(nanos, updatedRows);
+        RequestStats request = currentRequest.get();
+        if (request != null) {
+            request.record(query, nanos, updatedRows);
+        }
+    }
+
+    // ResultSet을 다 읽거나 닫을 때 읽은 행 수를 한 번에 더한다
+    void recordFetched(QueryStats query, RequestStats request, long rows) {
+        query.rows.add(rows);
+        if (request != null) {
+            request.rows += rows;
+        }
+    }
+
+    RequestStats currentRequest() {
+        return currentRequest.get();
+    }
+
+    /* ---- 요청 단위 (SqlMetricsFilter) ---- */
+
+    public RequestStats begin() {
+        RequestStats stats = new RequestStats();
+        currentRequest.set(stats);
+        return stats;
+    }
+
+    /**
+     * 비동기 요청의 async dispatch에서 begin으로 시작한 요청을 현재 스레드에 다시 건다
+     */
+    public void resume(RequestStats stats) {
+        currentRequest.set(stats);
+    }
+
+    /**
+     * 비동기 요청이 시작되어 요청 스레드를 놓을 때 (end는 async dispatch에서 부른다)
+     */
+    public void suspend() {
+        currentRequest.remove();
+    }
+
+    public void end(RequestStats stats, String method, String uri, long elapsedNanos) {
+        currentRequest.remove();
+        requests.increment();
+
+        List<String> reasons = new ArrayList<>(2);
+        if (stats.statements > properties.getStatementBudget()) {
+            reasons.add("statements " + stats.statements + " > " + properties.getStatementBudget());
+        }
+        if (stats.sqlNanos > properties.getLatencyBudget().toNanos()) {
+            reasons.add("sql " + TimeUnit.NANOSECONDS.toMillis(stats.sqlNanos) + "ms > "
+                    + properties.getLatencyBudget().toMillis() + "ms");
+        }
+        stats.counts.forEach((query, count) -> {
+            if (count[0] >= properties.getRepeatThreshold()) {
+                reasons.add("N+1 " + count[0] + "x " + query.getSql());
+            }
+        });
+        if (reasons.isEmpty()) {
+            return;
+        }
+
+        FlaggedRequest request = new FlaggedRequest(method, uri, stats, elapsedNanos, reasons);
+        logger.warn("sql budget exceeded: {} {} ({} statements, {} rows, sql {}ms, acquire {}ms, total {}ms) {}",
+                method, uri, request.statements, request.rows, request.sqlMs, request.acquireMs, request.elapsedMs, reasons);
+        synchronized (flagged) {
+            flagged.addFirst(request);
+            while (flagged.size() > properties.getFlaggedRequests()) {
+                flagged.removeLast();
+            }
+        }
+    }
+
+    /* ---- 조회 (/metrics/sql) ---- */
+
+    public enum Sort {
+        TOTAL, MEAN, MAX, COUNT
+    }
+
+    /**
+     * 정규화한 SQL별 통계, sort 기준 내림차순 limit개
+     */
+    public List<QueryStats> top(Sort sort, int limit) {
+        Comparator<QueryStats> order;
+        switch (sort) {
+            case MEAN:
+                order = Comparator.comparingDouble(QueryStats::getMeanMs);
+                break;
+            case MAX:
+                order = Comparator.comparingDouble(QueryStats::getMaxMs);
+                break;
+            case COUNT:
+                order = Comparator.comparingLong(QueryStats::getCount);
+                break;
+            default:
+                order = Comparator.comparingDouble(QueryStats::getTotalMs);
+        }
+        List<QueryStats> result = new ArrayList<>(queries.values());
+        result.sort(order.reversed());
+        return result.subList(0, Math.min(limit, result.size()));
+    }
+
+    public List<FlaggedRequest> getFlaggedRequests() {
+        synchronized (flagged) {
+            return new ArrayList<>(flagged);
+        }
+    }
+
+    public LatencyHistogram.Snapshot getAcquire() {
+        return acquire.snapshot();
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getStatements() {
+        long sum = 0;
+        for (QueryStats stats : queries.values()) {
+            sum += stats.getCount();
+        }
+        return sum;
+    }
+
+    public SqlMetricsProperties getProperties() {
+        return properties;
+    }
+
+    public void reset() {
+        queries.clear();
+        acquire.reset();
+        requests.reset();
+        synchronized (flagged) {
+            flagged.clear();
+        }
+    }
+
+    // 문자열·숫자 리터럴을 ?로, 공백을 한 칸으로, in 목록을 in (...)으로 바꾼다
+    static String normalize(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        boolean space = false;
+        int n = sql.length();
+        for (int i = 0; i < n; i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space && out.length() > 0) {
+                out.append(' ');
+            }
+            space = false;
+            if (c == '\'') {
+                int j = i + 1;
+                while (j < n && !(sql.charAt(j) == '\'' && (j + 1 == n || sql.charAt(j + 1) != '\''))) {
+                    j += sql.charAt(j) == '\'' ? 2 : 1; // ''는 따옴표 하나
+                }
+                out.append('?');
+                i = j;
+            } else if (Character.isDigit(c) && (out.length() == 0 || !isIdentifierPart(out.charAt(out.length() - 1)))) {
+                int j = i;
+                while (j + 1 < n && (Character.isDigit(sql.charAt(j + 1)) || sql.charAt(j + 1) == '.')) {
+                    j++;
+                }
+                out.append('?');
+                i = j;
+            } else {
+                out.append(c);
+            }
+        }
+        return IN_LIST.matcher(out).replaceAll("in (...)");
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * 정규화한 SQL 하나의 누적 통계
+     */
+    public static class QueryStats {
+
+        private final String sql;
+        private final LatencyHistogram latency = new LatencyHistogram(); // 실행 시간 (ns, ResultSet을 읽는 시간 제외)
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder(); // select는 읽은 행, 그 외는 바꾼 행
+
+        QueryStats(String sql) {
+            this.sql = sql;
+        }
+
+        void record(long nanos, long updatedRows) {
+            latency.record(nanos);
+            totalNanos.add(nanos);
+            if (updatedRows > 0) {
+                rows.add(updatedRows);
+            }
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getCount() {
+            return latency.snapshot().getCount();
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public double getTotalMs() {
+            return totalNanos.sum() / 1e6;
+        }
+
+        public double getMeanMs() {
+            long count = getCount();
+            return count == 0 ? 0 : totalNanos.sum() / 1e6 / count;
+        }
+
+        public double getMaxMs() {
+            return latency.snapshot().getMax() / 1e6;
+        }
+
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency.snapshot();
+        }
+    }
+
+    /**
+     * 요청 하나에서 실행한 SQL 합계 (한 번에 한 스레드만 쓴다: 요청 스레드, 그 요청의 async dispatch 스레드)
+     */
+    public static class RequestStats {
+
+        private int statements;
+        private long rows;
+        private long sqlNanos;
+        private long acquireNanos;
+        private final Map<QueryStats, int[]> counts = new IdentityHashMap<>(); // SQL별 실행 횟수 (N+1 확인용)
+
+        void record(QueryStats query, long nanos, long updatedRows) {
+            statements++;
+            sqlNanos += nanos;
+            if (updatedRows > 0) {
+                rows += updatedRows;
+            }
+            int[] count = counts.get(query);
+            if (count == null) {
+                counts.put(query, new int[]{1});
+            } else {
+                count[0]++;
+            }
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getSqlNanos() {
+            return sqlNanos;
+        }
+
+        public long getAcquireNanos() {
+            return acquireNanos;
+        }
+    }
+
+    /**
+     * 예산을 넘었거나 N+1이 의심되는 요청
+     */
+    public static class FlaggedRequest {
+
+        private final long timestamp = System.currentTimeMillis();
+        private final String method;
+        private final String uri;
+        private final int statements;
+        private final long rows;
+        private final double sqlMs;
+        private final double acquireMs;
+        private final double elapsedMs;
+        private final List<String> reasons;
+
+        FlaggedRequest(String method, String uri, RequestStats stats, long elapsedNanos, List<String> reasons) {
+            this.method = method;
+            this.uri = uri;
+            this.statements = stats.statements;
+            this.rows = stats.rows;
+            this.sqlMs = stats.sqlNanos / 1e6;
+            this.acquireMs = stats.acquireNanos / 1e6;
+            this.elapsedMs = elapsedNanos / 1e6;
+            this.reasons = reasons;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getUri() {
+            return uri;
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public double getSqlMs() {
+            return sqlMs;
+        }
+
+        public double getAcquireMs() {
+            return acquireMs;
+        }
+
+        public double getElapsedMs() {
+            return elapsedMs;
+        }
+
+        public List<String> getReasons() {
+            return reasons;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package hello.hellospring.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 커넥션 획득 대기, statement 실행 시간과 행 수를 SqlMetrics에 기록하는 DataSource
+ *
+ * Connection / Statement / ResultSet을 동적 proxy로 감싼다.
+ * 정규화한 SQL 통계는 prepare할 때 한 번 찾아 두므로, 실행마다 드는 비용은 nanoTime 두 번과 카운터 몇 개다.
+ * 읽은 행 수는 ResultSet의 next()를 세어, 끝까지 읽거나 닫을 때 더한다.
+ */
+public class SqlMetricsDataSource extends DelegatingDataSource implements Closeable {
+
+    private final SqlMetrics metrics;
+
+    public SqlMetricsDataSource(DataSource target, SqlMetrics metrics) {
+        super(target);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection();
+        metrics.recordAcquire(System.nanoTime() - start);
+        return proxy(Connection.class, new ConnectionHandler(connection));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        metrics.recordAcquire(System.nanoTime() - start);
+        return proxy(Connection.class, new ConnectionHandler(connection));
+    }
+
+    // 감싼 풀(HikariDataSource)은 이 빈의 destroy 메소드로 닫힌다
+    @Override
+    public void close() throws IOException {
+        DataSource target = obtainTargetDataSource();
+        if (target instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) target).close();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SqlMetricsDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private abstract static class Handler implements InvocationHandler {
+
+        final Object target;
+
+        Handler(Object target) {
+            this.target = target;
+        }
+
+        abstract Object handle(Object proxy, Method method, Object[] args) throws Throwable;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "SqlMetrics proxy for " + target;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                default:
+                    return handle(proxy, method, args);
+            }
+            return call(method, args);
+        }
+
+        Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+
+    private class ConnectionHandler extends Handler {
+
+        ConnectionHandler(Connection target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement":
+                case "prepareCall":
+                    return statement(proxy, method, call(method, args), metrics.query((String) args[0]));
+                case "createStatement":
+                    return statement(proxy, method, call(method, args), null);
+                default:
+                    return call(method, args);
+            }
+        }
+
+        // prepareStatement는 PreparedStatement, prepareCall은 CallableStatement 등 반환 타입 그대로 감싼다
+        private Object statement(Object connection, Method method, Object statement, SqlMetrics.QueryStats query) {
+            return proxy(method.getReturnType(), new StatementHandler(statement, (Connection) connection, query));
+        }
+    }
+
+    private class StatementHandler extends Handler {
+
+        private final Connection connection;
+        private final SqlMetrics.QueryStats prepared; // Statement(createStatement)면 null, 실행할 때 SQL을 받는다
+        private SqlMetrics.QueryStats batch; // Statement.addBatch(sql)로 넣은 마지막 SQL
+        private SqlMetrics.QueryStats last; // 마지막으로 실행한 SQL (getResultSet)
+
+        StatementHandler(Object target, Connection connection, SqlMetrics.QueryStats prepared) {
+            super(target);
+            this.connection = connection;
+            this.prepared = prepared;
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(proxy, method, args);
+            }
+            switch (name) {
+                case "getResultSet":
+                    return resultSet(proxy, call(method, args), last);
+                case "addBatch":
+                    if (args != null && args.length == 1) {
+                        batch = metrics.query((String) args[0]);
+                    }
+                    return call(method, args);
+                case "getConnection":
+                    return connection;
+                default:
+                    return call(method, args);
+            }
+        }
+
+        private Object execute(Object proxy, Method method, Object[] args) throws Throwable {
+            SqlMetrics.QueryStats query = prepared;
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                query = metrics.query((String) args[0]);
+            } else if (query == null) {
+                query = batch != null ? batch : metrics.query(SqlMetrics.OTHER);
+            }
+            last = query;
+
+            long start = System.nanoTime();
+            Object result = null;
+            try {
+                result = call(method, args);
+            } finally {
+                metrics.recordStatement(query, System.nanoTime() - start, updatedRows(result));
+            }
+            return result instanceof ResultSet ? resultSet(proxy, result, query) : result;
+        }
+
+        // executeUpdate / executeBatch의 반환값 (execute / executeQuery는 0)
+        private long updatedRows(Object result) {
+            if (result instanceof Integer || result instanceof Long) {
+                return Math.max(0, ((Number) result).longValue());
+            }
+            long rows = 0;
+            if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    rows += Math.max(0, count);
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    rows += Math.max(0, count);
+                }
+            }
+            return rows;
+        }
+
+        private Object resultSet(Object statement, Object resultSet, SqlMetrics.QueryStats query) {
+            if (resultSet == null) {
+                return null;
+            }
+            if (query == null) {
+                query = metrics.query(SqlMetrics.OTHER);
+            }
+            return proxy(ResultSet.class, new ResultSetHandler(resultSet, (Statement) statement, query, metrics.currentRequest()));
+        }
+    }
+
+    private class ResultSetHandler extends Handler {
+
+        private final Statement statement;
+        private final SqlMetrics.QueryStats query;
+        private final SqlMetrics.RequestStats request;
+        private long rows;
+        private boolean recorded;
+
+        ResultSetHandler(Object target, Statement statement, SqlMetrics.QueryStats query, SqlMetrics.RequestStats request) {
+            super(target);
+            this.statement = statement;
+            this.query = query;
+            this.request = request;
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next": {
+                    Object result = call(method, args);
+                    if ((Boolean) result) {
+                        rows++;
+                    } else {
+                        record();
+                    }
+                    return result;
+                }
+                case "close":
+                    record();
+                    return call(method, args);
+                case "getStatement":
+                    return statement;
+                default:
+                    return call(method, args);
+            }
+        }
+
+        private void record() {
+            if (!recorded) {
+                recorded = true;
+                metrics.recordFetched(query, request, rows);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package hello.hellospring.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * application.properties의 sql-metrics.* 설정
+ */
+@ConfigurationProperties(prefix = "sql-metrics")
+public class SqlMetricsProperties {
+
+    private boolean enabled = true;
+    private int statementBudget = 20; // 요청 하나가 실행한 SQL 수가 이보다 많으면 기록
+    private Duration latencyBudget = Duration.ofMillis(100); // 요청 하나의 SQL 실행 시간 합이 이보다 길면 기록
+    private int repeatThreshold = 10; // 같은 (정규화한) SQL을 요청 하나에서 이만큼 이상 실행하면 N+1로 기록
+    private int flaggedRequests = 100; // 보관할 최근 기록 요청 수
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getStatementBudget() {
+        return statementBudget;
+    }
+
+    public void setStatementBudget(int statementBudget) {
+        this.statementBudget = statementBudget;
+    }
+
+    public Duration getLatencyBudget() {
+        return latencyBudget;
+    }
+
+    public void setLatencyBudget(Duration latencyBudget) {
+        this.latencyBudget = latencyBudget;
+    }
+
+    public int getRepeatThreshold() {
+        return repeatThreshold;
+    }
+
+    public void setRepeatThreshold(int repeatThreshold) {
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    public int getFlaggedRequests() {
+        return flaggedRequests;
+    }
+
+    public void setFlaggedRequests(int flaggedRequests) {
+        this.flaggedRequests = flaggedRequests;
+    }
+}
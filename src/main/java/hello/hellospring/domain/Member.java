@@ -1,13 +1,22 @@
 package hello.hellospring.domain;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+
 import javax.persistence.*;
 
 @Entity
+@Cacheable // 2차 캐시 대상 (l2cache 프로파일에서만 사용)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_member_name", columnNames = "name")) // sql/ddl.sql과 같은 unique index
 public class Member {
 
     // 회원 요구사항: id, 이름
+    // member_seq 테이블에서 id 블록을 받아 쓴다: insert 전에 id를 알 수 있어 batch insert가 된다
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "member_id")
+    @GenericGenerator(name = "member_id", strategy = "hello.hellospring.repository.MemberIdGenerator")
     private Long id;
     private String name;
 
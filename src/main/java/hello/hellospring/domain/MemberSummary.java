@@ -0,0 +1,28 @@
+package hello.hellospring.domain;
+
+/**
+ * 목록 화면용 회원 요약 (id, 이름)
+ * 엔티티가 아니므로 영속성 컨텍스트에 올라가지 않고, dirty checking 대상도 아니다
+ */
+public class MemberSummary {
+
+    private final Long id;
+    private final String name;
+
+    public MemberSummary(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public static MemberSummary of(Member member) {
+        return new MemberSummary(member.getId(), member.getName());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,202 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.Member;
+import hello.hellospring.domain.MemberSummary;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * 다른 MemberRepository 앞에 두는 read-through 캐시
+ *
+ * findById / findByName은 캐시를 먼저 보고, 없으면 대상 저장소에서 읽어 캐시에 넣는다.
+ * save는 대상 저장소에 쓴 뒤 캐시에도 넣는다 (write-through). 트랜잭션 안이면 커밋된 뒤에 넣어,
+ * 롤백된 회원이 캐시에서 조회되지 않게 한다 (그 이름의 negative 항목은 저장할 때 바로 지운다).
+ * 캐시에는 복사본을 넣고 꺼낼 때도 복사본을 돌려줘서, 호출한 쪽의 변경이 캐시에 섞이지 않게 한다.
+ * 목록 조회(findAll, 페이지, 요약, 스트림)는 캐시를 거치지 않는다.
+ */
+public class CachingMemberRepository implements MemberRepository {
+
+    private final MemberRepository target;
+    private final MemberCache cache;
+
+    public CachingMemberRepository(MemberRepository target, MemberCache cache) {
+        this.target = target;
+        this.cache = cache;
+    }
+
+    @Override
+    public <S extends Member> S save(S member) {
+        S saved = target.save(member);
+        putAfterCommit(List.of(saved));
+        return saved;
+    }
+
+    @Override
+    public List<Member> saveAll(Collection<Member> members) {
+        List<Member> saved = target.saveAll(members);
+        putAfterCommit(saved);
+        return saved;
+    }
+
+    @Override
+    public Optional<Member> findById(Long id) {
+        Member cached = cache.byId().getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        Optional<Member> found = target.findById(id);
+        found.ifPresent(this::put);
+        return found;
+    }
+
+    @Override
+    public Optional<Member> findByName(String name) {
+        if (name == null) {
+            return target.findByName(null);
+        }
+        Optional<Member> cached = cache.byName().getIfPresent(name);
+        if (cached != null) {
+            return cached.map(CachingMemberRepository::copy);
+        }
+        Optional<Member> found = target.findByName(name);
+        if (found.isPresent()) {
+            put(found.get());
+        } else {
+            cache.byName().put(name, Optional.empty());
+        }
+        return found;
+    }
+
+    @Override
+    public List<Member> findAllById(Collection<Long> ids) {
+        List<Member> result = new ArrayList<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        Map<Long, Member> cached = cache.byId().getAllPresent(ids);
+        for (Long id : ids) {
+            Member member = cached.get(id);
+            if (member == null) {
+                missing.add(id);
+            } else {
+                result.add(copy(member));
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        // 캐시에 없는 id만 대상 저장소에서 한 번에 조회
+        List<Member> found = target.findAllById(missing);
+        found.forEach(this::put);
+        result.addAll(found);
+        return result;
+    }
+
+    @Override
+    public List<Member> findAllByNameIn(Collection<String> names) {
+        List<Member> result = new ArrayList<>();
+        Set<String> missing = new LinkedHashSet<>();
+        Map<String, Optional<Member>> cached = cache.byName().getAllPresent(names);
+        for (String name : names) {
+            Optional<Member> member = cached.get(name);
+            if (member == null) {
+                missing.add(name);
+            } else {
+                member.map(CachingMemberRepository::copy).ifPresent(result::add);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        // 캐시에 없는 이름만 대상 저장소에서 한 번에 조회하고, 못 찾은 이름은 negative cache에 넣는다
+        List<Member> found = target.findAllByNameIn(missing);
+        for (Member member : found) {
+            put(member);
+            missing.remove(member.getName());
+        }
+        for (String name : missing) {
+            cache.byName().put(name, Optional.empty());
+        }
+        result.addAll(found);
+        return result;
+    }
+
+    @Override
+    public List<Member> findAll() {
+        return target.findAll();
+    }
+
+    @Override
+    public List<Member> findAllAfter(Long afterId, int limit) {
+        return target.findAllAfter(afterId, limit);
+    }
+
+    @Override
+    public List<Member> findAllBefore(Long beforeId, int limit) {
+        return target.findAllBefore(beforeId, limit);
+    }
+
+    @Override
+    public List<MemberSummary> findSummariesAfter(Long afterId, int limit) {
+        return target.findSummariesAfter(afterId, limit);
+    }
+
+    @Override
+    public List<MemberSummary> findSummariesBefore(Long beforeId, int limit) {
+        return target.findSummariesBefore(beforeId, limit);
+    }
+
+    @Override
+    public Stream<Member> streamAll() {
+        return target.streamAll();
+    }
+
+    @Override
+    public Stream<MemberSummary> streamSummaries() {
+        return target.streamSummaries();
+    }
+
+    private void putAfterCommit(List<Member> saved) {
+        List<Member> copies = new ArrayList<>(saved.size());
+        for (Member member : saved) {
+            copies.add(copy(member));
+            if (member.getName() != null) {
+                cache.byName().invalidate(member.getName()); // 커밋 전에 캐시된 "없음"이 새 회원을 가리지 않도록
+            }
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            copies.forEach(this::put);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                copies.forEach(CachingMemberRepository.this::put);
+            }
+        });
+    }
+
+    private void put(Member member) {
+        Member copy = copy(member);
+        cache.byId().put(copy.getId(), copy);
+        if (copy.getName() != null) {
+            cache.byName().put(copy.getName(), Optional.of(copy));
+        }
+    }
+
+    private static Member copy(Member member) {
+        Member copy = new Member();
+        copy.setId(member.getId());
+        copy.setName(member.getName());
+        return copy;
+    }
+}
@@ -0,0 +1,104 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.Member;
+import hello.hellospring.domain.MemberSummary;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * 다른 MemberRepository 앞에 두고 동시에 들어온 findById / findByName을 MemberCoalescer로 묶어 조회한다
+ *
+ * 묶음 조회는 먼저 온 요청의 스레드(와 트랜잭션)에서 실행되므로, 쓰기 트랜잭션 안의 조회
+ * (커밋 전 자기 쓰기를 봐야 한다)는 묶지 않고 바로 대상 저장소로 보낸다.
+ * 나머지 메소드는 그대로 대상 저장소로 넘긴다.
+ */
+public class CoalescingMemberRepository implements MemberRepository {
+
+    private final MemberRepository target;
+    private final MemberCoalescer coalescer;
+
+    public CoalescingMemberRepository(MemberRepository target, MemberCoalescer coalescer) {
+        this.target = target;
+        this.coalescer = coalescer;
+    }
+
+    @Override
+    public Optional<Member> findById(Long id) {
+        if (id == null || inWriteTransaction()) {
+            return target.findById(id);
+        }
+        return coalescer.findById(id, target::findAllById);
+    }
+
+    @Override
+    public Optional<Member> findByName(String name) {
+        if (name == null || inWriteTransaction()) {
+            return target.findByName(name);
+        }
+        return coalescer.findByName(name, target::findAllByNameIn);
+    }
+
+    private static boolean inWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    @Override
+    public <S extends Member> S save(S member) {
+        return target.save(member);
+    }
+
+    @Override
+    public List<Member> saveAll(Collection<Member> members) {
+        return target.saveAll(members);
+    }
+
+    @Override
+    public List<Member> findAllById(Collection<Long> ids) {
+        return target.findAllById(ids);
+    }
+
+    @Override
+    public List<Member> findAllByNameIn(Collection<String> names) {
+        return target.findAllByNameIn(names);
+    }
+
+    @Override
+    public List<Member> findAll() {
+        return target.findAll();
+    }
+
+    @Override
+    public List<Member> findAllAfter(Long afterId, int limit) {
+        return target.findAllAfter(afterId, limit);
+    }
+
+    @Override
+    public List<Member> findAllBefore(Long beforeId, int limit) {
+        return target.findAllBefore(beforeId, limit);
+    }
+
+    @Override
+    public List<MemberSummary> findSummariesAfter(Long afterId, int limit) {
+        return target.findSummariesAfter(afterId, limit);
+    }
+
+    @Override
+    public List<MemberSummary> findSummariesBefore(Long beforeId, int limit) {
+        return target.findSummariesBefore(beforeId, limit);
+    }
+
+    @Override
+    public Stream<Member> streamAll() {
+        return target.streamAll();
+    }
+
+    @Override
+    public Stream<MemberSummary> streamSummaries() {
+        return target.streamSummaries();
+    }
+}
@@ -0,0 +1,112 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.Member;
+import hello.hellospring.domain.MemberSummary;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 저장한 회원을 이름 검색 인덱스(MemberNameIndex)에도 넣는 MemberRepository
+ *
+ * 트랜잭션 안에서 저장하면 커밋된 뒤에 넣는다 (롤백된 회원이 검색되지 않도록).
+ * 조회는 모두 대상 저장소로 넘긴다.
+ */
+public class IndexedMemberRepository implements MemberRepository {
+
+    private final MemberRepository target;
+    private final MemberNameIndex index;
+
+    public IndexedMemberRepository(MemberRepository target, MemberNameIndex index) {
+        this.target = target;
+        this.index = index;
+    }
+
+    @Override
+    public <S extends Member> S save(S member) {
+        S saved = target.save(member);
+        index(Collections.singletonList(MemberSummary.of(saved)));
+        return saved;
+    }
+
+    @Override
+    public List<Member> saveAll(Collection<Member> members) {
+        List<Member> saved = target.saveAll(members);
+        index(saved.stream().map(MemberSummary::of).collect(Collectors.toList()));
+        return saved;
+    }
+
+    private void index(List<MemberSummary> members) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            members.forEach(index::add);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                members.forEach(index::add);
+            }
+        });
+    }
+
+    @Override
+    public Optional<Member> findById(Long id) {
+        return target.findById(id);
+    }
+
+    @Override
+    public Optional<Member> findByName(String name) {
+        return target.findByName(name);
+    }
+
+    @Override
+    public List<Member> findAllById(Collection<Long> ids) {
+        return target.findAllById(ids);
+    }
+
+    @Override
+    public List<Member> findAllByNameIn(Collection<String> names) {
+        return target.findAllByNameIn(names);
+    }
+
+    @Override
+    public List<Member> findAll() {
+        return target.findAll();
+    }
+
+    @Override
+    public List<Member> findAllAfter(Long afterId, int limit) {
+        return target.findAllAfter(afterId, limit);
+    }
+
+    @Override
+    public List<Member> findAllBefore(Long beforeId, int limit) {
+        return target.findAllBefore(beforeId, limit);
+    }
+
+    @Override
+    public List<MemberSummary> findSummariesAfter(Long afterId, int limit) {
+        return target.findSummariesAfter(afterId, limit);
+    }
+
+    @Override
+    public List<MemberSummary> findSummariesBefore(Long beforeId, int limit) {
+        return target.findSummariesBefore(beforeId, limit);
+    }
+
+    @Override
+    public Stream<Member> streamAll() {
+        return target.streamAll();
+    }
+
+    @Override
+    public Stream<MemberSummary> streamSummaries() {
+        return target.streamSummaries();
+    }
+}
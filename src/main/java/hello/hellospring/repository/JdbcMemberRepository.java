@@ -1,48 +1,109 @@
 package hello.hellospring.repository;
 
 import hello.hellospring.domain.Member;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.datasource.DataSourceUtils;
 import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class JdbcMemberRepository implements MemberRepository {
 
+    private static final int STREAM_FETCH_SIZE = 1000; // MySQL은 useCursorFetch=true 일 때 서버 커서로 이만큼씩 읽는다
+    private static final int MYSQL_DUPLICATE_ENTRY = 1062;
+
     private final DataSource dataSource;
+    private final MemberIdAllocator idAllocator; // id는 insert 전에 미리 받는다 (생성 키 조회 없이 batch insert)
 
-    public JdbcMemberRepository(DataSource dataSource) {
+    public JdbcMemberRepository(DataSource dataSource, MemberIdAllocator idAllocator) {
         this.dataSource = dataSource;
+        this.idAllocator = idAllocator;
     }
 
     @Override
-    public Member save(Member member) {
-        String sql = "insert into member(name) values(?)";
+    public <S extends Member> S save(S member) {
+        String sql = "insert into member(id, name) values(?, ?)";
 
         Connection conn = null;
         PreparedStatement pstmt = null;
-        ResultSet rs = null; // 현재 데이터 row cursor 가리키는 result set
 
         try {
+            long id = idAllocator.nextId();
             conn = getConnection();
-            pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS); // auto increment id 반환
+            pstmt = conn.prepareStatement(sql);
 
-            pstmt.setString(1, member.getName());
+            pstmt.setLong(1, id);
+            pstmt.setString(2, member.getName());
 
             pstmt.executeUpdate();
-            rs = pstmt.getGeneratedKeys();
+            member.setId(id);
+            return member;
+        } catch (Exception e) {
+            if (isDuplicateKey(e)) {
+                throw new DuplicateKeyException("이미 존재하는 이름입니다: " + member.getName(), e);
+            }
+            throw new IllegalStateException(e);
+        } finally {
+            close(conn, pstmt, null);
+        }
+    }
 
-            if (rs.next()) {
-                member.setId(rs.getLong(1));
-            } else {
-                throw new SQLException("id 조회 실패");
+    @Override
+    public List<Member> saveAll(Collection<Member> members) {
+        String sql = "insert into member(id, name) values(?, ?)";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        boolean autoCommit = false;
+
+        try {
+            long[] ids = idAllocator.nextIds(members.size());
+            conn = getConnection();
+            // 트랜잭션 밖에서 호출되면 batch 전체를 한 번에 커밋
+            autoCommit = conn.getAutoCommit();
+            if (autoCommit) {
+                conn.setAutoCommit(false);
             }
-            return member;
+            pstmt = conn.prepareStatement(sql);
+
+            int index = 0;
+            for (Member member : members) {
+                pstmt.setLong(1, ids[index++]);
+                pstmt.setString(2, member.getName());
+                pstmt.addBatch();
+            }
+            // MySQL은 rewriteBatchedStatements=true 일 때 multi-row insert 한 번으로 전송
+            pstmt.executeBatch();
+
+            // 실패하면 id를 채우지 않는다 (받은 id는 버린다)
+            List<Member> result = new ArrayList<>(members.size());
+            index = 0;
+            for (Member member : members) {
+                member.setId(ids[index++]);
+                result.add(member);
+            }
+            if (autoCommit) {
+                conn.commit();
+            }
+            return result;
         } catch (Exception e) {
+            rollback(conn, autoCommit);
+            if (isDuplicateKey(e)) {
+                throw new DuplicateKeyException("이미 존재하는 이름이 포함되어 있습니다.", e);
+            }
             throw new IllegalStateException(e);
         } finally {
-            close(conn, pstmt, rs);
+            restoreAutoCommit(conn, autoCommit);
+            close(conn, pstmt, null);
         }
     }
 
@@ -105,6 +166,58 @@ public class JdbcMemberRepository implements MemberRepository {
         }
     }
 
+    @Override
+    public List<Member> findAllById(Collection<Long> ids) {
+        return findAllIn("id", ids);
+    }
+
+    @Override
+    public List<Member> findAllByNameIn(Collection<String> names) {
+        return findAllIn("name", names);
+    }
+
+    private List<Member> findAllIn(String column, Collection<?> values) {
+        if (values.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // 자리표시자 수를 2의 거듭제곱으로 맞춰 IN 절 SQL 종류를 몇 개로 묶는다 (남는 자리는 마지막 값을 반복)
+        int placeholders = Math.max(8, Integer.highestOneBit(values.size() - 1) << 1);
+        String sql = "select * from member where " + column + " in (" + String.join(",", Collections.nCopies(placeholders, "?")) + ")";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = getConnection();
+            pstmt = conn.prepareStatement(sql);
+            int index = 1;
+            Object last = null;
+            for (Object value : values) {
+                pstmt.setObject(index++, value);
+                last = value;
+            }
+            while (index <= placeholders) {
+                pstmt.setObject(index++, last);
+            }
+
+            rs = pstmt.executeQuery();
+
+            List<Member> members = new ArrayList<>();
+            while (rs.next()) {
+                Member member = new Member();
+                member.setId(rs.getLong("id"));
+                member.setName(rs.getString("name"));
+                members.add(member);
+            }
+            return members;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            close(conn, pstmt, rs);
+        }
+    }
+
     @Override
     public List<Member> findAll() {
         String sql = "select * from member";
@@ -135,11 +248,133 @@ public class JdbcMemberRepository implements MemberRepository {
 
     }
 
+    @Override
+    public List<Member> findAllAfter(Long afterId, int limit) {
+        return findPage("select * from member where id > ? order by id limit ?", afterId == null ? 0L : afterId, limit);
+    }
+
+    @Override
+    public List<Member> findAllBefore(Long beforeId, int limit) {
+        List<Member> members = findPage("select * from member where id < ? order by id desc limit ?", beforeId, limit);
+        Collections.reverse(members);
+        return members;
+    }
+
+    private List<Member> findPage(String sql, Long id, int limit) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = getConnection();
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setLong(1, id);
+            pstmt.setInt(2, limit);
+
+            rs = pstmt.executeQuery();
+
+            List<Member> members = new ArrayList<>(limit);
+            while (rs.next()) {
+                Member member = new Member();
+                member.setId(rs.getLong("id"));
+                member.setName(rs.getString("name"));
+                members.add(member);
+            }
+            return members;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            close(conn, pstmt, rs);
+        }
+    }
+
+    @Override
+    public Stream<Member> streamAll() {
+        String sql = "select * from member order by id";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = getConnection();
+            // 전체를 메모리에 올리지 않도록 forward-only 커서로 fetch size만큼씩 읽는다
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
+            rs = pstmt.executeQuery();
+        } catch (Exception e) {
+            close(conn, pstmt, rs);
+            throw new IllegalStateException(e);
+        }
+
+        // connection, statement, result set은 stream을 close 할 때 정리
+        Connection streamConn = conn;
+        PreparedStatement streamPstmt = pstmt;
+        ResultSet streamRs = rs;
+        Spliterator<Member> spliterator = new Spliterators.AbstractSpliterator<Member>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Member> action) {
+                try {
+                    if (!streamRs.next()) {
+                        return false;
+                    }
+                    Member member = new Member();
+                    member.setId(streamRs.getLong("id"));
+                    member.setName(streamRs.getString("name"));
+                    action.accept(member);
+                    return true;
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false)
+                .onClose(() -> close(streamConn, streamPstmt, streamRs));
+    }
+
+    // member.name unique index 위반만 (batch는 원인 예외를 따라간다)
+    // MySQL은 SQLState 23000 + 오류 코드 1062(ER_DUP_ENTRY), H2 등 표준 SQLState를 쓰는 DB는 23505
+    // (23000의 다른 오류 코드는 NOT NULL, 외래 키 위반이라 중복으로 보지 않는다)
+    private boolean isDuplicateKey(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException) {
+                SQLException sqlException = (SQLException) t;
+                String sqlState = sqlException.getSQLState();
+                if ("23505".equals(sqlState)
+                        || ("23000".equals(sqlState) && sqlException.getErrorCode() == MYSQL_DUPLICATE_ENTRY)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     private Connection getConnection() {
         // Spring 프레임워크에서의 connection get
         return DataSourceUtils.getConnection(dataSource);
     }
 
+    private void rollback(Connection conn, boolean autoCommit) {
+        try {
+            if (conn != null && autoCommit) {
+                conn.rollback();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void restoreAutoCommit(Connection conn, boolean autoCommit) {
+        try {
+            if (conn != null && autoCommit) {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
     private void close(Connection conn, PreparedStatement pstmt, ResultSet rs) {
         try {
             if (rs != null) {
@@ -5,36 +5,71 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class JdbcTemplateMemberRepository implements MemberRepository {
 
+    private static final int STREAM_FETCH_SIZE = 1000; // MySQL은 useCursorFetch=true 일 때 서버 커서로 이만큼씩 읽는다
+
     private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate; // fetch size는 스트리밍 조회에만 적용
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final SimpleJdbcInsert jdbcInsert; // 테이블 메타데이터는 처음 한 번만 조회하고 재사용
+    private final MemberIdAllocator idAllocator; // id는 insert 전에 미리 받는다 (생성 키 조회 없이 batch insert)
 
     @Autowired
-    public JdbcTemplateMemberRepository(DataSource dataSource) {
+    public JdbcTemplateMemberRepository(DataSource dataSource, MemberIdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
         jdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate.setFetchSize(STREAM_FETCH_SIZE);
+        namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        jdbcInsert = new SimpleJdbcInsert(jdbcTemplate).withTableName("member").usingColumns("id", "name");
     }
 
     @Override
-    public Member save(Member member) {
-        SimpleJdbcInsert jdbcInsert = new SimpleJdbcInsert(jdbcTemplate);
-        jdbcInsert.withTableName("member").usingGeneratedKeyColumns("id");
-
+    public <S extends Member> S save(S member) {
+        long id = idAllocator.nextId();
         Map<String, Object> parameters = new HashMap<>();
+        parameters.put("id", id);
         parameters.put("name", member.getName());
 
-        Number key = jdbcInsert.executeAndReturnKey(new MapSqlParameterSource(parameters));
-        member.setId(key.longValue());
+        jdbcInsert.execute(new MapSqlParameterSource(parameters));
+        member.setId(id);
         return member;
     }
 
+    @Override
+    public List<Member> saveAll(Collection<Member> members) {
+        // id를 미리 받아 두므로 생성 키 조회 없이 batchUpdate 한 번
+        long[] ids = idAllocator.nextIds(members.size());
+        List<Object[]> args = new ArrayList<>(members.size());
+        int index = 0;
+        for (Member member : members) {
+            args.add(new Object[]{ids[index++], member.getName()});
+        }
+        jdbcTemplate.batchUpdate("insert into member(id, name) values(?, ?)", args);
+
+        List<Member> result = new ArrayList<>(members.size());
+        index = 0;
+        for (Member member : members) {
+            member.setId(ids[index++]);
+            result.add(member);
+        }
+        return result;
+    }
+
     @Override
     public Optional<Member> findById(Long id) {
         List<Member> result = jdbcTemplate.query("select * from member where id = ?", memberRowMapper(), id);
@@ -47,11 +82,48 @@ public class JdbcTemplateMemberRepository implements MemberRepository {
         return result.stream().findAny();
     }
 
+    @Override
+    public List<Member> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return namedParameterJdbcTemplate.query("select * from member where id in (:ids)",
+                new MapSqlParameterSource("ids", ids), memberRowMapper());
+    }
+
+    @Override
+    public List<Member> findAllByNameIn(Collection<String> names) {
+        if (names.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return namedParameterJdbcTemplate.query("select * from member where name in (:names)",
+                new MapSqlParameterSource("names", names), memberRowMapper());
+    }
+
     @Override
     public List<Member> findAll() {
         return jdbcTemplate.query("select * from member", memberRowMapper());
     }
 
+    @Override
+    public List<Member> findAllAfter(Long afterId, int limit) {
+        return jdbcTemplate.query("select * from member where id > ? order by id limit ?", memberRowMapper(),
+                afterId == null ? 0L : afterId, limit);
+    }
+
+    @Override
+    public List<Member> findAllBefore(Long beforeId, int limit) {
+        List<Member> result = jdbcTemplate.query("select * from member where id < ? order by id desc limit ?",
+                memberRowMapper(), beforeId, limit);
+        Collections.reverse(result);
+        return result;
+    }
+
+    @Override
+    public Stream<Member> streamAll() {
+        return streamingJdbcTemplate.queryForStream("select * from member order by id", memberRowMapper());
+    }
+
     private RowMapper<Member> memberRowMapper() {
         return (rs, rowNum) -> {
             Member member = new Member();
@@ -1,13 +1,25 @@
 package hello.hellospring.repository;
 
 import hello.hellospring.domain.Member;
+import hello.hellospring.domain.MemberSummary;
+import org.springframework.dao.DataAccessException;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
 
 import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class JpaMemberRepository implements MemberRepository {
 
+    private static final int STREAM_FETCH_SIZE = 1000;
+    // Hibernate 예외를 Spring 예외로 변환 (unique index 위반 → DataIntegrityViolationException)
+    private static final HibernateJpaDialect JPA_DIALECT = new HibernateJpaDialect();
+
     private final EntityManager em;
 
     public JpaMemberRepository(EntityManager em) {
@@ -15,11 +27,38 @@ public class JpaMemberRepository implements MemberRepository {
     }
 
     @Override
-    public Member save(Member member) {
-        em.persist(member);
+    public <S extends Member> S save(S member) {
+        try {
+            em.persist(member); // id는 member_seq 블록에서 받으므로 insert는 flush 때 실행된다
+            em.flush(); // 이름 중복을 여기서 알리도록 바로 insert
+        } catch (PersistenceException e) {
+            throw translate(e);
+        }
         return member;
     }
 
+    @Override
+    public List<Member> saveAll(Collection<Member> members) {
+        List<Member> result = new ArrayList<>(members.size());
+        try {
+            for (Member member : members) {
+                em.persist(member);
+                result.add(member);
+            }
+            // hibernate.jdbc.batch_size 단위로 insert를 모아 보내고, 영속성 컨텍스트가 계속 커지지 않도록 비운다
+            em.flush();
+        } catch (PersistenceException e) {
+            throw translate(e);
+        }
+        em.clear();
+        return result;
+    }
+
+    private RuntimeException translate(PersistenceException e) {
+        DataAccessException translated = JPA_DIALECT.translateExceptionIfPossible(e);
+        return translated != null ? translated : e;
+    }
+
     @Override
     public Optional<Member> findById(Long id) {
         Member member = em.find(Member.class, id); // PK
@@ -30,15 +69,94 @@ public class JpaMemberRepository implements MemberRepository {
     public Optional<Member> findByName(String name) {
         List<Member> result = em.createQuery("select m from Member m where m.name = :name", Member.class)
                 .setParameter("name", name)
+                .setHint("org.hibernate.cacheable", true) // 쿼리 캐시 (l2cache 프로파일)
                 .getResultList();
 
         return result.stream().findAny();
     }
 
+    @Override
+    public List<Member> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    @Override
+    public List<Member> findAllByNameIn(Collection<String> names) {
+        if (names.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return em.createQuery("select m from Member m where m.name in :names", Member.class)
+                .setParameter("names", names)
+                .getResultList();
+    }
+
     @Override
     public List<Member> findAll() {
         List<Member> result = em.createQuery("select m from Member m", Member.class)
                 .getResultList();
         return result;
     }
+
+    @Override
+    public List<Member> findAllAfter(Long afterId, int limit) {
+        return em.createQuery("select m from Member m where m.id > :id order by m.id", Member.class)
+                .setParameter("id", afterId == null ? 0L : afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<Member> findAllBefore(Long beforeId, int limit) {
+        List<Member> result = em.createQuery("select m from Member m where m.id < :id order by m.id desc", Member.class)
+                .setParameter("id", beforeId)
+                .setMaxResults(limit)
+                .getResultList();
+        Collections.reverse(result);
+        return result;
+    }
+
+    // 생성자 표현식으로 DTO를 바로 만든다: 엔티티를 만들지 않으므로 영속성 컨텍스트와 flush 때 dirty checking을 거치지 않는다
+    @Override
+    public List<MemberSummary> findSummariesAfter(Long afterId, int limit) {
+        return em.createQuery("select new hello.hellospring.domain.MemberSummary(m.id, m.name) from Member m"
+                        + " where m.id > :id order by m.id", MemberSummary.class)
+                .setParameter("id", afterId == null ? 0L : afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<MemberSummary> findSummariesBefore(Long beforeId, int limit) {
+        List<MemberSummary> result = em.createQuery("select new hello.hellospring.domain.MemberSummary(m.id, m.name) from Member m"
+                        + " where m.id < :id order by m.id desc", MemberSummary.class)
+                .setParameter("id", beforeId)
+                .setMaxResults(limit)
+                .getResultList();
+        Collections.reverse(result);
+        return result;
+    }
+
+    @Override
+    public Stream<Member> streamAll() {
+        // 트랜잭션 안에서 호출해야 한다. 읽은 엔티티는 바로 detach 해서 영속성 컨텍스트가 커지지 않게 한다
+        return em.createQuery("select m from Member m order by m.id", Member.class)
+                .setHint("org.hibernate.fetchSize", STREAM_FETCH_SIZE)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream()
+                .peek(em::detach);
+    }
+
+    @Override
+    public Stream<MemberSummary> streamSummaries() {
+        // 트랜잭션 안에서 호출해야 한다. DTO라 영속성 컨텍스트에 쌓이지 않는다
+        return em.createQuery("select new hello.hellospring.domain.MemberSummary(m.id, m.name) from Member m order by m.id",
+                        MemberSummary.class)
+                .setHint("org.hibernate.fetchSize", STREAM_FETCH_SIZE)
+                .getResultStream();
+    }
 }
@@ -0,0 +1,63 @@
+package hello.hellospring.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import hello.hellospring.domain.Member;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 회원 캐시 (id별, 이름별)
+ *
+ * Caffeine(W-TinyLFU)으로 크기와 TTL 기준으로 내보낸다.
+ * 이름 캐시는 없는 이름도 Optional.empty()로 저장한다 (negative cache).
+ */
+public class MemberCache {
+
+    private final Cache<Long, Member> byId;
+    private final Cache<String, Optional<Member>> byName;
+
+    public MemberCache(long maximumSize, Duration ttl) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.byName = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    Cache<Long, Member> byId() {
+        return byId;
+    }
+
+    Cache<String, Optional<Member>> byName() {
+        return byName;
+    }
+
+    public CacheStats getByIdStats() {
+        return byId.stats();
+    }
+
+    public CacheStats getByNameStats() {
+        return byName.stats();
+    }
+
+    public long getByIdSize() {
+        return byId.estimatedSize();
+    }
+
+    public long getByNameSize() {
+        return byName.estimatedSize();
+    }
+
+    public void invalidateAll() {
+        byId.invalidateAll();
+        byName.invalidateAll();
+    }
+}
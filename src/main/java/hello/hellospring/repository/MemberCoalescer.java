@@ -0,0 +1,217 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.Member;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 동시에 들어온 단건 조회(id별, 이름별)를 묶음 조회 한 번으로 합친다 (DataLoader 방식)
+ *
+ * 묶음이 없을 때 온 요청(leader)이 window 동안 (또는 maxBatch개가 모일 때까지) 다른 요청의 키를 모은 뒤,
+ * 넘겨받은 묶음 조회(findAllById, findAllByNameIn)를 자기 스레드에서 한 번 실행해 결과를 나눠 준다.
+ * 모으는 중이거나 조회 중인 키를 또 찾으면 새로 넣지 않고 그 결과를 같이 받는다 (single-flight).
+ * 한 결과를 여러 요청이 받으므로 요청마다 복사본을 돌려준다.
+ * 묶음 조회가 돌려준 이름은 대상 저장소의 비교 기준(NameCollation)으로 찾은 이름에 맞춘다.
+ */
+public class MemberCoalescer {
+
+    private final Coalescer<Long> byId;
+    private final Coalescer<String> byName;
+    private final NameCollation nameCollation;
+
+    public MemberCoalescer(Duration window, int maxBatch, NameCollation nameCollation) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch는 1 이상이어야 합니다.");
+        }
+        this.byId = new Coalescer<>(window.toNanos(), maxBatch);
+        this.byName = new Coalescer<>(window.toNanos(), maxBatch);
+        this.nameCollation = nameCollation;
+    }
+
+    Optional<Member> findById(Long id, Function<Collection<Long>, List<Member>> findAllById) {
+        return byId.get(id, ids -> {
+            Map<Long, Member> found = new HashMap<>();
+            for (Member member : findAllById.apply(ids)) {
+                found.put(member.getId(), member);
+            }
+            return found;
+        });
+    }
+
+    Optional<Member> findByName(String name, Function<Collection<String>, List<Member>> findAllByNameIn) {
+        return byName.get(name, names -> {
+            // 저장소가 같다고 보는 이름이면 글자가 달라도 (예: MySQL에서 대소문자만 다른 이름) 그 회원이다
+            Map<String, Member> byKey = new HashMap<>();
+            for (Member member : findAllByNameIn.apply(names)) {
+                byKey.put(nameCollation.key(member.getName()), member);
+            }
+            Map<String, Member> found = new HashMap<>();
+            for (String key : names) {
+                found.put(key, byKey.get(nameCollation.key(key)));
+            }
+            return found;
+        });
+    }
+
+    public Stats getByIdStats() {
+        return byId.stats();
+    }
+
+    public Stats getByNameStats() {
+        return byName.stats();
+    }
+
+    private static Member copy(Member member) {
+        Member copy = new Member();
+        copy.setId(member.getId());
+        copy.setName(member.getName());
+        return copy;
+    }
+
+    // 키 종류마다 하나: 키를 모으는 중인 묶음 하나와, 모으는 중이거나 조회 중인 키별 결과
+    private static final class Coalescer<K> {
+
+        private final long windowNanos;
+        private final int maxBatch;
+        private final ReentrantLock lock = new ReentrantLock(); // 가상 스레드가 carrier 스레드를 붙잡지 않도록 synchronized 대신 사용
+        private final Condition full = lock.newCondition();
+        private final Map<K, CompletableFuture<Member>> inFlight = new ConcurrentHashMap<>();
+        private List<K> open; // 키를 모으는 중인 묶음 (lock 안에서만 읽고 쓴다)
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder shared = new LongAdder();
+        private final LongAdder queries = new LongAdder();
+        private final LongAdder keys = new LongAdder();
+
+        Coalescer(long windowNanos, int maxBatch) {
+            this.windowNanos = windowNanos;
+            this.maxBatch = maxBatch;
+        }
+
+        Optional<Member> get(K key, Function<Collection<K>, Map<K, Member>> loader) {
+            requests.increment();
+            CompletableFuture<Member> future;
+            List<K> lead = null;
+            lock.lock();
+            try {
+                future = inFlight.get(key);
+                if (future != null) {
+                    shared.increment();
+                } else {
+                    future = new CompletableFuture<>();
+                    inFlight.put(key, future);
+                    if (open == null) {
+                        open = new ArrayList<>();
+                        lead = open;
+                    }
+                    open.add(key);
+                    if (open.size() >= maxBatch) {
+                        open = null; // 다음 요청은 새 묶음을 연다
+                        full.signalAll();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (lead != null) {
+                load(lead, loader);
+            }
+
+            try {
+                Member member = future.join();
+                return member == null ? Optional.empty() : Optional.of(copy(member));
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        // window가 지나거나 묶음이 차면 닫고 한 번에 조회
+        private void load(List<K> batch, Function<Collection<K>, Map<K, Member>> loader) {
+            lock.lock();
+            try {
+                long remaining = windowNanos;
+                while (open == batch && remaining > 0) {
+                    remaining = full.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (open == batch) {
+                    open = null;
+                }
+                lock.unlock();
+            }
+
+            queries.increment();
+            keys.add(batch.size());
+            try {
+                Map<K, Member> found = loader.apply(batch);
+                for (K key : batch) {
+                    inFlight.remove(key).complete(found.get(key));
+                }
+            } catch (Throwable e) {
+                // Error(OutOfMemoryError 등)도 묶음의 모든 요청에 돌려준다: 남겨 두면 같은 키의 다음 요청이 영원히 기다린다
+                for (K key : batch) {
+                    inFlight.remove(key).completeExceptionally(e);
+                }
+            }
+        }
+
+        Stats stats() {
+            return new Stats(requests.sum(), shared.sum(), queries.sum(), keys.sum());
+        }
+    }
+
+    /**
+     * 요청 수, 조회 중인 키라 결과를 같이 받은 요청 수, 실제 묶음 조회 수와 조회 한 번의 평균 키 수
+     */
+    public static class Stats {
+
+        private final long requests;
+        private final long shared;
+        private final long queries;
+        private final long keys;
+
+        Stats(long requests, long shared, long queries, long keys) {
+            this.requests = requests;
+            this.shared = shared;
+            this.queries = queries;
+            this.keys = keys;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getShared() {
+            return shared;
+        }
+
+        public long getQueries() {
+            return queries;
+        }
+
+        public double getKeysPerQuery() {
+            return queries == 0 ? 0 : (double) keys / queries;
+        }
+    }
+}
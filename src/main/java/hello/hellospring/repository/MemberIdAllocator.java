@@ -0,0 +1,124 @@
+package hello.hellospring.repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 회원 id 블록 할당 (member_seq 테이블, hi/lo)
+ *
+ * member_seq의 last_val(마지막으로 예약된 id)을 블록 크기만큼 올리고, (올리기 전 값, 올린 값] 구간을 메모리에서 하나씩 나눠 준다.
+ * insert 전에 id를 알 수 있으므로 JDBC 저장소도 생성 키 조회 없이 batch insert 한다.
+ * 블록 예약은 호출한 쪽과 다른 커넥션에서 select ... for update 후 바로 커밋한다:
+ * 여러 인스턴스가 동시에 예약해도 구간이 겹치지 않고, 호출한 쪽이 롤백돼도 블록은 돌려주지 않는다 (id에 빈 곳이 생길 수 있다).
+ * JPA(MemberIdGenerator, Hibernate pooled-lo)도 같은 테이블을 같은 규칙으로 쓰므로 섞어 써도 겹치지 않는다
+ * (Hibernate는 hibernate.id.generator.stored_last_used=true(기본값)일 때 마지막으로 예약된 값을 저장한다).
+ */
+public class MemberIdAllocator {
+
+    public static final String TABLE = "member_seq";
+    public static final String SEGMENT_COLUMN = "name";
+    public static final String SEGMENT = "member";
+    public static final String VALUE_COLUMN = "last_val";
+    public static final int DEFAULT_BLOCK_SIZE = 1000;
+
+    private static final String SELECT_SQL = "select last_val from member_seq where name = ? for update";
+    private static final String UPDATE_SQL = "update member_seq set last_val = ? where name = ?";
+    // 행이 없으면 기존 회원 id 다음부터 시작 (다른 인스턴스가 먼저 넣었으면 실패하고 그 행을 쓴다)
+    private static final String INIT_SQL = "insert into member_seq(name, last_val) select ?, coalesce(max(id), 0) from member";
+
+    private final DataSource dataSource;
+    private final int blockSize;
+    private final ReentrantLock lock = new ReentrantLock(); // 가상 스레드가 블록 예약(DB I/O) 중에 carrier 스레드를 붙잡지 않도록 synchronized 대신 사용
+    private long next; // 다음에 줄 id
+    private long limit; // 현재 블록의 끝 (미포함)
+
+    public MemberIdAllocator(DataSource dataSource, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize는 1 이상이어야 합니다.");
+        }
+        this.dataSource = dataSource;
+        this.blockSize = blockSize;
+    }
+
+    public long nextId() {
+        lock.lock();
+        try {
+            if (next == limit) {
+                reserve(blockSize);
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * batch insert용: count개를 한 번에 (남은 블록이 모자라면 count만큼은 한 번의 예약으로 받는다)
+     */
+    public long[] nextIds(int count) {
+        long[] ids = new long[count];
+        lock.lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                if (next == limit) {
+                    reserve(Math.max(blockSize, count - i));
+                }
+                ids[i] = next++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return ids;
+    }
+
+    private void reserve(int size) {
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                long value = select(conn);
+                try (PreparedStatement pstmt = conn.prepareStatement(UPDATE_SQL)) {
+                    pstmt.setLong(1, value + size);
+                    pstmt.setString(2, SEGMENT);
+                    pstmt.executeUpdate();
+                }
+                conn.commit();
+                next = value + 1;
+                limit = value + size + 1;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("회원 id 블록 예약 실패", e);
+        }
+    }
+
+    private long select(Connection conn) throws SQLException {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try (PreparedStatement pstmt = conn.prepareStatement(SELECT_SQL)) {
+                pstmt.setString(1, SEGMENT);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getLong(1);
+                    }
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(INIT_SQL)) {
+                pstmt.setString(1, SEGMENT);
+                pstmt.executeUpdate();
+            } catch (SQLException e) {
+                if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) {
+                    throw e;
+                }
+            }
+        }
+        throw new SQLException(TABLE + "에 " + SEGMENT + " 행이 없습니다.");
+    }
+}
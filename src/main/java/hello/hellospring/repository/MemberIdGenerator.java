@@ -0,0 +1,34 @@
+package hello.hellospring.repository;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Member 엔티티의 id 생성기: MemberIdAllocator와 같은 member_seq 테이블에서 pooled-lo로 블록을 받는다
+ *
+ * IDENTITY와 달리 persist 시점에 insert하지 않아도 id를 알 수 있으므로 hibernate.jdbc.batch_size로 insert를 묶는다.
+ * 블록 크기는 hibernate 설정 member.id-block-size (application.properties의 member.id-block-size)
+ */
+public class MemberIdGenerator extends TableGenerator {
+
+    public static final String BLOCK_SIZE_SETTING = "member.id-block-size";
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        params.setProperty(TABLE_PARAM, MemberIdAllocator.TABLE);
+        params.setProperty(SEGMENT_COLUMN_PARAM, MemberIdAllocator.SEGMENT_COLUMN);
+        params.setProperty(SEGMENT_VALUE_PARAM, MemberIdAllocator.SEGMENT);
+        params.setProperty(VALUE_COLUMN_PARAM, MemberIdAllocator.VALUE_COLUMN);
+        params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        Object blockSize = serviceRegistry.getService(ConfigurationService.class).getSettings().get(BLOCK_SIZE_SETTING);
+        params.setProperty(INCREMENT_PARAM,
+                blockSize != null ? blockSize.toString() : String.valueOf(MemberIdAllocator.DEFAULT_BLOCK_SIZE));
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -0,0 +1,360 @@
+package hello.hellospring.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * MemoryMemberRepository용 append-only 회원 로그
+ *
+ * 저장한 회원을 memory-mapped segment 파일에 순서대로 덧붙이고, 재시작하면 다시 읽어 저장소를 복구한다.
+ * - 레코드: [payload 길이(4)][CRC32(4)][id(8)][이름 길이(4, null이면 -1)][이름 UTF-8]
+ *   길이가 0이거나 CRC가 맞지 않는 곳을 segment의 끝으로 본다 (쓰다 만 마지막 레코드는 버린다)
+ * - group commit: append는 mmap에 쓰기만 하고, flusher 스레드가 fsyncInterval마다 한 번 force 한다
+ *   (프로세스가 죽어도 OS 페이지 캐시에 남지만, 전원이 나가면 마지막 fsyncInterval 동안의 저장은 잃을 수 있다)
+ * - replay: segment 파일마다 병렬로 읽는다. 레코드는 id 기준이라 순서와 중복에 영향받지 않는다
+ * - compaction: 다 쓴 segment들을 빈 공간 없이 segmentSize 크기 파일로 다시 써서 파일 수와 크기를 줄인다
+ *
+ * 열 때마다 새 segment에 쓰기 시작하므로, 이전 segment의 남은 공간은 compaction 때 정리된다.
+ */
+public class MemberLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemberLog.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String COMPACTED_PREFIX = "compacted-";
+    private static final String SUFFIX = ".log";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int RECORD_HEADER = Integer.BYTES + Integer.BYTES; // 길이 + CRC
+    private static final int PAYLOAD_HEADER = Long.BYTES + Integer.BYTES; // id + 이름 길이
+
+    @FunctionalInterface
+    public interface RecordHandler {
+        void accept(long id, String name);
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ScheduledExecutorService scheduler;
+    private final Object compactionLock = new Object();
+    private final AtomicLong appended = new AtomicLong();
+
+    // 아래 필드는 this(append)로 보호
+    private long segmentNumber;
+    private Path activePath;
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private boolean dirty;
+    private final CRC32 crc = new CRC32();
+    private boolean closed;
+
+    public MemberLog(Path directory, int segmentSize, Duration fsyncInterval, Duration compactInterval) {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("segmentSize는 1KB 이상이어야 합니다.");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            for (Path path : list(TEMP_SUFFIX)) { // compaction 중에 멈춘 임시 파일
+                Files.delete(path);
+            }
+            for (Path path : list(SUFFIX)) {
+                String fileName = path.getFileName().toString();
+                if (fileName.startsWith(SEGMENT_PREFIX)) {
+                    segmentNumber = Math.max(segmentNumber, parseNumber(fileName));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "member-log-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long fsyncNanos = Math.max(fsyncInterval.toNanos(), TimeUnit.MILLISECONDS.toNanos(1));
+        scheduler.scheduleWithFixedDelay(this::flush, fsyncNanos, fsyncNanos, TimeUnit.NANOSECONDS);
+        if (!compactInterval.isZero() && !compactInterval.isNegative()) {
+            long compactNanos = compactInterval.toNanos();
+            scheduler.scheduleWithFixedDelay(this::compactQuietly, compactNanos, compactNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 로그에 남은 회원을 모두 handler로 전달 (segment 파일별로 병렬, handler는 여러 스레드에서 호출된다)
+     */
+    public void replay(RecordHandler handler) {
+        List<Path> files;
+        synchronized (compactionLock) {
+            try {
+                files = list(SUFFIX);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            files.parallelStream().forEach(path -> read(path, handler));
+        }
+    }
+
+    /**
+     * 회원 한 명을 로그에 추가. mmap에 쓰고 바로 반환하며, 디스크 반영은 flusher 스레드가 모아서 한다
+     */
+    public synchronized void append(long id, String name) {
+        if (closed) {
+            throw new IllegalStateException("닫힌 회원 로그입니다.");
+        }
+        byte[] bytes = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+        int payloadLength = PAYLOAD_HEADER + (bytes == null ? 0 : bytes.length);
+        int recordLength = RECORD_HEADER + payloadLength;
+        if (recordLength + Integer.BYTES > segmentSize) {
+            throw new IllegalArgumentException("레코드가 segment보다 큽니다: " + recordLength + " bytes");
+        }
+        // 다음 레코드 길이 자리(0)가 남도록 4바이트 여유를 둔다
+        if (active == null || active.remaining() < recordLength + Integer.BYTES) {
+            roll();
+        }
+
+        int start = active.position();
+        active.position(start + RECORD_HEADER);
+        active.putLong(id);
+        active.putInt(bytes == null ? -1 : bytes.length);
+        if (bytes != null) {
+            active.put(bytes);
+        }
+        crc.reset();
+        ByteBuffer payload = active.duplicate();
+        payload.position(start + RECORD_HEADER).limit(start + recordLength);
+        crc.update(payload);
+        active.putInt(start + Integer.BYTES, (int) crc.getValue());
+        active.putInt(start, payloadLength); // 길이를 마지막에 써서, 중간에 멈춘 레코드는 replay에서 끝으로 보인다
+        dirty = true;
+        appended.incrementAndGet();
+    }
+
+    /**
+     * 지금까지 append한 내용을 디스크에 반영 (flusher 스레드가 주기적으로 호출)
+     */
+    public void flush() {
+        MappedByteBuffer toForce;
+        synchronized (this) {
+            if (!dirty || active == null) {
+                return;
+            }
+            toForce = active;
+            dirty = false;
+        }
+        toForce.force(); // force 중에도 다른 스레드는 계속 append 한다
+    }
+
+    /**
+     * 다 쓴 segment를 빈 공간 없이 다시 써서 합친다. 쓰는 중인 segment는 건드리지 않는다
+     *
+     * 새 파일을 모두 만들고 fsync 한 뒤에 원본을 지우므로, 중간에 멈추면 같은 레코드가 두 번 남을 뿐 잃지 않는다.
+     */
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            // 목록을 먼저 읽어야, 그 뒤에 새로 만들어진 segment를 다 쓴 것으로 착각하지 않는다
+            List<Path> files = list(SUFFIX);
+            Path activeNow;
+            synchronized (this) {
+                activeNow = activePath;
+            }
+            List<Path> sealed = new ArrayList<>();
+            for (Path path : files) {
+                if (path.getFileName().toString().startsWith(SEGMENT_PREFIX) && !path.equals(activeNow)) {
+                    sealed.add(path);
+                }
+            }
+            if (sealed.isEmpty()) {
+                return;
+            }
+
+            String generation = COMPACTED_PREFIX + String.format("%019d", System.currentTimeMillis()) + "-";
+            List<Path> temps = new ArrayList<>();
+            ByteBuffer out = ByteBuffer.allocate(segmentSize);
+            for (Path path : sealed) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    int end = validLength(in);
+                    int position = 0;
+                    while (position < end) {
+                        int recordLength = RECORD_HEADER + in.getInt(position);
+                        if (out.remaining() < recordLength + Integer.BYTES) {
+                            temps.add(writeCompacted(generation, temps.size(), out));
+                        }
+                        ByteBuffer record = in.duplicate();
+                        record.position(position).limit(position + recordLength);
+                        out.put(record);
+                        position += recordLength;
+                    }
+                }
+            }
+            if (out.position() > 0) {
+                temps.add(writeCompacted(generation, temps.size(), out));
+            }
+
+            for (Path temp : temps) {
+                String fileName = temp.getFileName().toString();
+                Files.move(temp, temp.resolveSibling(fileName.substring(0, fileName.length() - TEMP_SUFFIX.length())),
+                        StandardCopyOption.ATOMIC_MOVE);
+            }
+            for (Path path : sealed) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    public long getAppended() {
+        return appended.get();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        synchronized (compactionLock) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                closeActive();
+            }
+        }
+    }
+
+    private void roll() {
+        closeActive();
+        try {
+            segmentNumber++;
+            activePath = directory.resolve(SEGMENT_PREFIX + String.format("%019d", segmentNumber) + SUFFIX);
+            activeChannel = FileChannel.open(activePath,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeActive() {
+        if (active == null) {
+            return;
+        }
+        active.force(); // 다 쓴 segment는 닫기 전에 바로 반영
+        dirty = false;
+        try {
+            activeChannel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        active = null;
+        activeChannel = null;
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (Exception e) {
+            logger.warn("회원 로그 compaction 실패", e);
+        }
+    }
+
+    private Path writeCompacted(String generation, int index, ByteBuffer out) throws IOException {
+        Path temp = directory.resolve(generation + String.format("%06d", index) + SUFFIX + TEMP_SUFFIX);
+        out.putInt(0); // segment 끝 표시
+        out.flip();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        out.clear();
+        return temp;
+    }
+
+    private void read(Path path, RecordHandler handler) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int end = validLength(in);
+            int position = 0;
+            while (position < end) {
+                int payloadLength = in.getInt(position);
+                int payload = position + RECORD_HEADER;
+                long id = in.getLong(payload);
+                int nameLength = in.getInt(payload + Long.BYTES);
+                String name = null;
+                if (nameLength >= 0) {
+                    byte[] bytes = new byte[nameLength];
+                    ByteBuffer source = in.duplicate();
+                    source.position(payload + PAYLOAD_HEADER);
+                    source.get(bytes);
+                    name = new String(bytes, StandardCharsets.UTF_8);
+                }
+                handler.accept(id, name);
+                position = payload + payloadLength;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 처음부터 온전한 레코드가 이어지는 길이 (길이 0, 범위 초과, CRC 불일치에서 멈춘다)
+    private static int validLength(ByteBuffer in) {
+        CRC32 checksum = new CRC32();
+        int position = 0;
+        int limit = in.limit();
+        while (position + RECORD_HEADER <= limit) {
+            int payloadLength = in.getInt(position);
+            if (payloadLength < PAYLOAD_HEADER || position + RECORD_HEADER + payloadLength > limit) {
+                break;
+            }
+            int nameLength = in.getInt(position + RECORD_HEADER + Long.BYTES);
+            if (nameLength != -1 && nameLength != payloadLength - PAYLOAD_HEADER) {
+                break;
+            }
+            ByteBuffer payload = in.duplicate();
+            payload.position(position + RECORD_HEADER).limit(position + RECORD_HEADER + payloadLength);
+            checksum.reset();
+            checksum.update(payload);
+            if ((int) checksum.getValue() != in.getInt(position + Integer.BYTES)) {
+                break;
+            }
+            position += RECORD_HEADER + payloadLength;
+        }
+        return position;
+    }
+
+    private List<Path> list(String suffix) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + suffix)) {
+            stream.forEach(paths::add);
+        }
+        paths.sort(null);
+        return paths;
+    }
+
+    private static long parseNumber(String fileName) {
+        return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,288 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.MemberSummary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 회원 이름 검색 인덱스 (메모리)
+ *
+ * prefix: 소문자 이름 순으로 정렬한 skip list에서 범위 조회 (대소문자 무시)
+ * fuzzy: 이름 앞뒤에 공백을 붙여 자른 3글자 조각(trigram)의 역색인. 검색어 trigram의 절반 이상을 가진 이름을
+ * 겹치는 비율(Jaccard) 순으로 돌려준다 (오타 한두 글자, 이름 중간 부분으로도 찾는다).
+ * 회원 이름은 바뀌거나 지워지지 않으므로 추가만 한다. 같은 회원을 다시 넣어도 한 번만 들어간다.
+ * 이름 문자열과 skip list 노드, trigram마다 id와 회원 참조를 들고 있으므로 100만 명에 힙을 0.5 ~ 0.8GB 쓴다
+ * (1천만 명이면 -Xmx8g 이상).
+ */
+public class MemberNameIndex {
+
+    private static final double MIN_MATCH = 0.5; // fuzzy: 검색어 trigram 중 이 비율 이상이 겹쳐야 후보
+    private static final Comparator<MemberSummary> BY_ID = Comparator.comparing(MemberSummary::getId);
+    // 점수가 높은 순, 같으면 짧은 이름, id 순
+    private static final Comparator<Match> RANK = Comparator.comparingDouble(Match::getScore).reversed()
+            .thenComparingInt((Match match) -> match.getName().length())
+            .thenComparing(Match::getId);
+
+    private final ConcurrentSkipListMap<String, MemberSummary> byName = new ConcurrentSkipListMap<>(); // 소문자 이름 + '\0' + id
+    private final ConcurrentHashMap<Long, Postings> postings = new ConcurrentHashMap<>(); // trigram → 그 trigram을 가진 회원
+    private final LongAdder size = new LongAdder(); // ConcurrentSkipListMap.size()는 전체를 센다
+
+    /**
+     * @return 새로 넣었으면 true (이름이 없거나 이미 있으면 false)
+     */
+    public boolean add(MemberSummary member) {
+        if (member.getId() == null || member.getName() == null) {
+            return false;
+        }
+        String normalized = normalize(member.getName());
+        if (byName.putIfAbsent(normalized + '\0' + member.getId(), member) != null) {
+            return false;
+        }
+        for (long gram : trigrams(normalized)) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(member);
+        }
+        size.increment();
+        return true;
+    }
+
+    /**
+     * prefix로 시작하는 이름을 소문자 이름 순으로 limit개
+     */
+    public List<MemberSummary> prefix(String prefix, int limit) {
+        String from = normalize(prefix);
+        List<MemberSummary> result = new ArrayList<>(Math.min(limit, 64));
+        for (MemberSummary member : byName.subMap(from, true, from + Character.MAX_VALUE, false).values()) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(member);
+        }
+        return result;
+    }
+
+    /**
+     * query와 trigram이 많이 겹치는 이름을 점수 순으로 limit개
+     */
+    public List<Match> fuzzy(String query, int limit) {
+        long[] grams = trigrams(normalize(query));
+        if (grams.length == 0 || limit < 1) {
+            return Collections.emptyList();
+        }
+        int required = Math.max(1, (int) Math.ceil(grams.length * MIN_MATCH));
+
+        View[] lists = new View[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            Postings list = postings.get(grams[i]);
+            lists[i] = list == null ? View.EMPTY : list.view();
+        }
+        Arrays.sort(lists, Comparator.comparingInt((View view) -> view.size));
+
+        // 짧은(드문) 목록부터 읽으며 처음 나온 회원만 나머지 목록에서 찾아 세어 본다
+        // (한 목록 안의 회원은 id 순이므로 다른 목록도 앞에서 찾은 위치부터 건너뛰며 찾는다).
+        // required개 이상 겹치는 이름은 가장 짧은 (trigram 수 - required + 1)개 목록 중 하나에는 반드시 있고,
+        // 앞의 j개 목록에 없던 이름은 점수가 (trigram 수 - j) / trigram 수를 넘을 수 없으므로
+        // limit개를 이미 그 이상의 점수로 찾았으면 남은 긴(흔한) 목록은 읽지 않는다
+        int probe = grams.length - required + 1;
+        PriorityQueue<Match> top = new PriorityQueue<>(limit + 1, RANK.reversed()); // 가장 낮은 순위가 맨 앞
+        int[] cursor = new int[lists.length];
+        for (int j = 0; j < probe; j++) {
+            if (top.size() == limit && top.peek().getScore() >= (double) (grams.length - j) / grams.length) {
+                break;
+            }
+            Arrays.fill(cursor, 0);
+            View list = lists[j];
+            for (int n = 0; n < list.size; n++) {
+                long id = list.ids[n];
+                if (containsAny(lists, j, cursor, id)) {
+                    continue; // 앞의 목록에서 이미 센 회원
+                }
+                // 남은 목록에 모두 있어도 required에 못 미치거나 지금의 limit번째 점수를 넘지 못하면 더 찾지 않는다
+                // (흔한 trigram의 긴 목록이 뒤에 있으므로 대부분의 후보는 거기까지 가지 않는다)
+                // 이름의 trigram 수는 (길이 + 1)로 본다 (같은 조각이 되풀이되는 이름만 실제보다 조금 많다)
+                int count = 1;
+                int candidateGrams = 0;
+                for (int i = j + 1; i < lists.length; i++) {
+                    int best = count + (lists.length - i);
+                    if (best < required) {
+                        count = 0;
+                        break;
+                    }
+                    if (top.size() == limit) {
+                        if (candidateGrams == 0) {
+                            candidateGrams = list.members[n].getName().length() + 1;
+                        }
+                        if (similarity(best, grams.length, candidateGrams) < top.peek().getScore()) {
+                            count = 0;
+                            break;
+                        }
+                    }
+                    if (lists[i].contains(cursor, i, id)) {
+                        count++;
+                    }
+                }
+                if (count < required) {
+                    continue;
+                }
+                MemberSummary candidate = list.members[n];
+                top.offer(new Match(candidate, similarity(count, grams.length, candidate.getName().length() + 1)));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        }
+
+        List<Match> result = new ArrayList<>(top);
+        result.sort(RANK);
+        return result;
+    }
+
+    // Jaccard: 겹치는 trigram 수 / 두 이름의 trigram 합집합 크기
+    private static double similarity(int common, int queryGrams, int nameGrams) {
+        return (double) common / (queryGrams + nameGrams - common);
+    }
+
+    // lists[0, to) 중 하나에 id가 있는지
+    private static boolean containsAny(View[] lists, int to, int[] cursor, long id) {
+        for (int i = 0; i < to; i++) {
+            if (lists[i].contains(cursor, i, id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long size() {
+        return size.sum();
+    }
+
+    public int trigramCount() {
+        return postings.size();
+    }
+
+    static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    // 앞에 공백 두 개, 뒤에 하나를 붙여 3글자씩 자르고 (짧은 이름과 이름 앞부분도 조각이 생기도록), 중복을 뺀다
+    static long[] trigrams(String normalized) {
+        if (normalized.isEmpty()) {
+            return new long[0];
+        }
+        String padded = "  " + normalized + " ";
+        long[] grams = new long[padded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (long gram : grams) {
+            if (distinct == 0 || grams[distinct - 1] != gram) {
+                grams[distinct++] = gram;
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * fuzzy 검색 결과: 회원과 trigram이 겹치는 비율 (0 ~ 1)
+     */
+    public static class Match {
+
+        private final MemberSummary member;
+        private final double score;
+
+        public Match(MemberSummary member, double score) {
+            this.member = member;
+            this.score = score;
+        }
+
+        public Long getId() {
+            return member.getId();
+        }
+
+        public String getName() {
+            return member.getName();
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    // trigram 하나의 회원 목록: 덧붙이기만 하고, 읽을 때 id 순이 아니면 정렬한다
+    // 이진 탐색이 회원 객체를 따라가지 않도록 id는 long 배열에 따로 둔다
+    private static final class Postings {
+
+        private long[] ids = new long[2];
+        private MemberSummary[] members = new MemberSummary[2];
+        private int size;
+        private boolean sorted = true;
+
+        synchronized void add(MemberSummary member) {
+            if (size == members.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                members = Arrays.copyOf(members, size * 2);
+            }
+            long id = member.getId();
+            if (size > 0 && ids[size - 1] > id) {
+                sorted = false;
+            }
+            ids[size] = id;
+            members[size++] = member;
+        }
+
+        // 읽는 쪽에 넘긴 배열의 [0, size) 구간은 다시 바꾸지 않는다 (정렬은 복사본에서 한다)
+        synchronized View view() {
+            if (!sorted) {
+                members = Arrays.copyOf(members, members.length);
+                Arrays.sort(members, 0, size, BY_ID);
+                ids = new long[members.length];
+                for (int i = 0; i < size; i++) {
+                    ids[i] = members[i].getId();
+                }
+                sorted = true;
+            }
+            return new View(ids, members, size);
+        }
+    }
+
+    private static final class View {
+
+        static final View EMPTY = new View(new long[0], new MemberSummary[0], 0);
+
+        final long[] ids;
+        final MemberSummary[] members;
+        final int size;
+
+        View(long[] ids, MemberSummary[] members, int size) {
+            this.ids = ids;
+            this.members = members;
+            this.size = size;
+        }
+
+        // cursor[slot]부터 찾고 (id는 호출할 때마다 커져야 한다), 찾은 위치를 cursor[slot]에 남긴다:
+        // 1, 2, 4, ... 칸씩 건너뛰어 범위를 좁힌 뒤 그 안에서 이진 탐색
+        boolean contains(int[] cursor, int slot, long id) {
+            int low = cursor[slot];
+            int step = 1;
+            int high = low;
+            while (high < size && ids[high] < id) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            int found = Arrays.binarySearch(ids, low, Math.min(high + 1, size), id);
+            cursor[slot] = found >= 0 ? found : -found - 1;
+            return found >= 0;
+        }
+    }
+}
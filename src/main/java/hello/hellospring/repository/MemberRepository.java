@@ -1,13 +1,37 @@
 package hello.hellospring.repository;
 
 import hello.hellospring.domain.Member;
+import hello.hellospring.domain.MemberSummary;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public interface MemberRepository {
-    Member save(Member member); // 회원 저장
+    <S extends Member> S save(S member); // 회원 저장 (넘겨받은 회원에 id를 채워 그대로 돌려준다)
+    List<Member> saveAll(Collection<Member> members); // 회원 일괄 저장 (batch insert)
     Optional<Member> findById(Long id); // id로 회원 조회
     Optional<Member> findByName(String name); // 이름으로 회원 조회
+    List<Member> findAllById(Collection<Long> ids); // id 목록으로 회원 조회 (in 쿼리 한 번), 없는 id는 빠지고 순서는 정하지 않는다
+    List<Member> findAllByNameIn(Collection<String> names); // 이름 목록으로 회원 조회 (in 쿼리 한 번)
     List<Member> findAll(); // 모든 회원 조회
+    List<Member> findAllAfter(Long afterId, int limit); // id가 afterId보다 큰 회원 limit명, id 오름차순 (afterId가 null이면 처음부터)
+    List<Member> findAllBefore(Long beforeId, int limit); // id가 beforeId보다 작은 회원 중 마지막 limit명, id 오름차순
+    Stream<Member> streamAll(); // 모든 회원을 id 순으로 스트리밍 조회, 사용 후 반드시 close (try-with-resources)
+
+    // 목록 화면용 요약 조회 (findAllAfter/findAllBefore와 같은 범위), JPA 구현체는 엔티티 없이 id, 이름만 조회한다
+    default List<MemberSummary> findSummariesAfter(Long afterId, int limit) {
+        return findAllAfter(afterId, limit).stream().map(MemberSummary::of).collect(Collectors.toList());
+    }
+
+    default List<MemberSummary> findSummariesBefore(Long beforeId, int limit) {
+        return findAllBefore(beforeId, limit).stream().map(MemberSummary::of).collect(Collectors.toList());
+    }
+
+    // 내보내기용 요약 스트리밍 (streamAll과 같이 id 순, 사용 후 close), JPA 구현체는 엔티티 없이 id, 이름만 조회한다
+    default Stream<MemberSummary> streamSummaries() {
+        return streamAll().map(MemberSummary::of);
+    }
 }
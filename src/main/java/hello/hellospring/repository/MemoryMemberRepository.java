@@ -1,19 +1,113 @@
 package hello.hellospring.repository;
 
 import hello.hellospring.domain.Member;
+import org.springframework.dao.DuplicateKeyException;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 //@Repository
 public class MemoryMemberRepository implements MemberRepository {
 
-    private static Map<Long, Member> store = new HashMap<>(); // 저장소
-    private static long sequence = 0L; // 식별자
+    private final ConcurrentNavigableMap<Long, Member> store = new ConcurrentSkipListMap<>(); // 저장소 (id 순 정렬, keyset 조회용)
+    private final Map<String, Long> nameIndex = new ConcurrentHashMap<>(); // 이름 → id 보조 인덱스 (이름 중복 검사 겸용)
+    private final AtomicLong sequence = new AtomicLong(); // 식별자
+    private final MemberLog log; // 없으면 재시작 시 모두 사라진다
+
+    public MemoryMemberRepository() {
+        this.log = null;
+    }
+
+    /**
+     * 저장할 때마다 회원 로그에 남기고, 생성 시 로그를 읽어 저장소를 복구한다
+     */
+    public MemoryMemberRepository(MemberLog log) {
+        this.log = log;
+        // segment별로 병렬 replay: 같은 레코드가 두 번 나와도(compaction 도중 중단) putIfAbsent라 한 번만 들어간다
+        log.replay((id, name) -> {
+            Member member = new Member();
+            member.setId(id);
+            member.setName(name);
+            store.putIfAbsent(id, member);
+            if (name != null) {
+                nameIndex.putIfAbsent(name, id);
+            }
+        });
+        sequence.set(store.isEmpty() ? 0 : store.lastKey());
+    }
+
+    @Override
+    public <S extends Member> S save(S member) {
+        Long id = reserve(member);
+        store(member, id);
+        return member;
+    }
 
     @Override
-    public Member save(Member member) {
-        member.setId(++sequence);
-        store.put(member.getId(), member);
+    public List<Member> saveAll(Collection<Member> members) {
+        // 이름을 모두 선점한 뒤에 저장한다: 중간에 중복이 나오면 선점만 되돌리고 아무것도 저장하지 않는다 (DB batch의 롤백과 같게)
+        List<Long> ids = new ArrayList<>(members.size());
+        try {
+            for (Member member : members) {
+                ids.add(reserve(member));
+            }
+        } catch (DuplicateKeyException e) {
+            Iterator<Member> reserved = members.iterator();
+            for (Long id : ids) {
+                release(reserved.next(), id);
+            }
+            throw e;
+        }
+
+        List<Member> result = new ArrayList<>(members.size());
+        Iterator<Member> member = members.iterator();
+        Iterator<Long> id = ids.iterator();
+        try {
+            while (member.hasNext()) {
+                result.add(store(member.next(), id.next()));
+            }
+        } catch (RuntimeException e) {
+            // 로그 기록이 실패하면 (실패한 회원은 store가 되돌리고) 아직 저장하지 않은 회원의 선점도 되돌린다
+            while (member.hasNext()) {
+                release(member.next(), id.next());
+            }
+            throw e;
+        }
+        return result;
+    }
+
+    // 이름을 먼저 선점한다: 같은 이름이 동시에 저장돼도 putIfAbsent는 하나만 성공한다
+    // (선점 후 저장소에 넣기 전까지는 findByName이 비어 있을 수 있다)
+    private Long reserve(Member member) {
+        Long id = sequence.incrementAndGet();
+        if (member.getName() != null && nameIndex.putIfAbsent(member.getName(), id) != null) {
+            throw new DuplicateKeyException("이미 존재하는 이름입니다: " + member.getName());
+        }
+        return id;
+    }
+
+    private void release(Member member, Long id) {
+        if (member.getName() != null) {
+            nameIndex.remove(member.getName(), id);
+        }
+    }
+
+    private Member store(Member member, Long id) {
+        if (log != null) {
+            try {
+                log.append(id, member.getName());
+            } catch (RuntimeException e) {
+                release(member, id);
+                throw e;
+            }
+        }
+        member.setId(id);
+        store.put(id, member);
         return member;
     }
 
@@ -24,9 +118,29 @@ public class MemoryMemberRepository implements MemberRepository {
 
     @Override
     public Optional<Member> findByName(String name) {
-        return store.values().stream()
-                .filter(member -> member.getName().equals(name))
-                .findAny();
+        if (name == null) {
+            return Optional.empty();
+        }
+        Long id = nameIndex.get(name);
+        return id == null ? Optional.empty() : findById(id);
+    }
+
+    @Override
+    public List<Member> findAllById(Collection<Long> ids) {
+        List<Member> result = new ArrayList<>();
+        for (Long id : ids) {
+            findById(id).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Member> findAllByNameIn(Collection<String> names) {
+        List<Member> result = new ArrayList<>();
+        for (String name : names) {
+            findByName(name).ifPresent(result::add);
+        }
+        return result;
     }
 
     @Override
@@ -34,8 +148,30 @@ public class MemoryMemberRepository implements MemberRepository {
         return new ArrayList<>(store.values());
     }
 
-    // 테스트 시 데이터 비우도록
+    @Override
+    public List<Member> findAllAfter(Long afterId, int limit) {
+        return store.tailMap(afterId == null ? 0L : afterId, false).values().stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Member> findAllBefore(Long beforeId, int limit) {
+        List<Member> result = store.headMap(beforeId, false).descendingMap().values().stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+        Collections.reverse(result);
+        return result;
+    }
+
+    @Override
+    public Stream<Member> streamAll() {
+        return store.values().stream();
+    }
+
+    // 테스트 시 데이터 비우도록 (회원 로그는 지우지 않는다)
     public void clearStore() {
+        nameIndex.clear();
         store.clear();
     }
 }
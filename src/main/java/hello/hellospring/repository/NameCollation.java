@@ -0,0 +1,57 @@
+package hello.hellospring.repository;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 저장소가 두 이름을 같다고 보는 기준 (이름 unique 검사와 findByName 비교)
+ *
+ * key가 같은 두 이름을 저장소는 같은 이름으로 본다.
+ */
+public enum NameCollation {
+
+    /**
+     * 글자 그대로 비교 (메모리 저장소)
+     */
+    EXACT {
+        @Override
+        public String key(String name) {
+            return name;
+        }
+    },
+
+    /**
+     * MySQL utf8mb4_bin: 끝 공백만 떼고(PAD SPACE) 글자 그대로 비교한다 (shard DB의 member.name)
+     */
+    BINARY {
+        @Override
+        public String key(String name) {
+            return stripTrailingSpaces(name);
+        }
+    },
+
+    /**
+     * MySQL utf8mb4_unicode_ci: 끝 공백을 떼고(PAD SPACE), 악센트(결합 문자)를 떼고, 대소문자를 무시한다
+     * (ß = ss, Æ = AE 처럼 글자 수가 달라지는 비교까지 따라 하지는 않으므로 이 key로 데이터를 나누면 안 된다)
+     */
+    UNICODE_CI {
+        @Override
+        public String key(String name) {
+            String decomposed = Normalizer.normalize(stripTrailingSpaces(name), Normalizer.Form.NFD);
+            return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+        }
+    };
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    public abstract String key(String name);
+
+    private static String stripTrailingSpaces(String name) {
+        int end = name.length();
+        while (end > 0 && name.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return name.substring(0, end);
+    }
+}
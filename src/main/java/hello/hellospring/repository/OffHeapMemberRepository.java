@@ -0,0 +1,503 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.Member;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 회원 수천만 명을 메모리에 두기 위한 저장소
+ *
+ * 회원마다 Member, Long, String 객체를 두지 않고, 회원 한 명을 direct ByteBuffer slab에
+ * [id(8)][이름 길이(2)][이름 UTF-8] 레코드로 기록한다. 힙에는 레코드 주소를 담은 long/int 배열만 남아서
+ * GC가 따라갈 참조가 거의 없다. Member 객체는 조회할 때 레코드에서 만든다.
+ *
+ * - id 인덱스: 레코드 주소를 담는 open addressing 테이블 (linear probing, id는 레코드에서 읽어 비교)
+ * - 이름 인덱스: 이름 해시와 레코드 주소를 담는 open addressing 테이블
+ * - id 순서: 저장 순서대로 레코드 주소를 담는 배열 (id는 증가하며 발급되므로 id 오름차순)
+ *
+ * 쓰기는 write lock, 조회는 read lock으로 보호한다. 삭제는 지원하지 않는다.
+ * slab은 direct 메모리이므로 -XX:MaxDirectMemorySize가 저장할 이름 크기보다 커야 한다.
+ */
+public class OffHeapMemberRepository implements MemberRepository {
+
+    private static final int SLAB_SHIFT = 26; // slab 하나 64MB
+    private static final int SLAB_SIZE = 1 << SLAB_SHIFT;
+    private static final int RECORD_HEADER = Long.BYTES + Short.BYTES;
+    private static final int MAX_NAME_BYTES = 0xFFFE; // 0xFFFF는 이름 없음(null) 표시
+    private static final int NULL_NAME = 0xFFFF;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final long EMPTY = 0L; // 인덱스 빈 칸 (주소는 +1 해서 넣는다)
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private int slabPosition = SLAB_SIZE; // 첫 저장 때 slab을 만든다
+
+    private long[] idTable = new long[INITIAL_CAPACITY]; // 레코드 주소 + 1
+    private long[] nameTable = new long[INITIAL_CAPACITY]; // 레코드 주소 + 1
+    private int[] nameHashes = new int[INITIAL_CAPACITY];
+    private int nameCount;
+
+    private long[] order = new long[INITIAL_CAPACITY]; // 저장 순서(= id 순서)대로 레코드 주소
+    private int size;
+    private long sequence;
+
+    @Override
+    public <S extends Member> S save(S member) {
+        byte[] name = encode(member.getName());
+        lock.writeLock().lock();
+        try {
+            if (name != null && findNameAddress(name, hash(member.getName())) >= 0) {
+                throw new DuplicateKeyException("이미 존재하는 이름입니다: " + member.getName());
+            }
+            insert(member, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return member;
+    }
+
+    @Override
+    public List<Member> saveAll(Collection<Member> members) {
+        List<byte[]> names = new ArrayList<>(members.size());
+        for (Member member : members) {
+            names.add(encode(member.getName()));
+        }
+        lock.writeLock().lock();
+        try {
+            // 전부 검사한 뒤에 저장해서, 중복이 있으면 아무것도 저장하지 않는다
+            Set<String> seen = new HashSet<>();
+            int index = 0;
+            for (Member member : members) {
+                byte[] name = names.get(index++);
+                if (name != null && (!seen.add(member.getName()) || findNameAddress(name, hash(member.getName())) >= 0)) {
+                    throw new DuplicateKeyException("이미 존재하는 이름입니다: " + member.getName());
+                }
+            }
+            index = 0;
+            for (Member member : members) {
+                insert(member, names.get(index++));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return new ArrayList<>(members);
+    }
+
+    @Override
+    public Optional<Member> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            long address = findIdAddress(id);
+            return address < 0 ? Optional.empty() : Optional.of(read(address));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Member> findByName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        byte[] bytes = encode(name);
+        lock.readLock().lock();
+        try {
+            long address = findNameAddress(bytes, hash(name));
+            return address < 0 ? Optional.empty() : Optional.of(read(address));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Member> findAllById(Collection<Long> ids) {
+        List<Member> result = new ArrayList<>();
+        for (Long id : ids) {
+            findById(id).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Member> findAllByNameIn(Collection<String> names) {
+        List<Member> result = new ArrayList<>();
+        for (String name : names) {
+            findByName(name).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Member> findAll() {
+        lock.readLock().lock();
+        try {
+            List<Member> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(read(order[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Member> findAllAfter(Long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            int from = afterId == null ? 0 : upperBound(afterId);
+            int to = (int) Math.min((long) from + limit, size);
+            List<Member> result = new ArrayList<>(Math.max(to - from, 0));
+            for (int i = from; i < to; i++) {
+                result.add(read(order[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Member> findAllBefore(Long beforeId, int limit) {
+        lock.readLock().lock();
+        try {
+            int to = lowerBound(beforeId);
+            int from = Math.max(to - limit, 0);
+            List<Member> result = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                result.add(read(order[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Stream<Member> streamAll() {
+        // 시작 시점의 회원까지만, 한 명씩 꺼낼 때마다 read lock을 잡는다 (스트림을 오래 열어 둬도 쓰기를 막지 않는다)
+        int end;
+        lock.readLock().lock();
+        try {
+            end = size;
+        } finally {
+            lock.readLock().unlock();
+        }
+        Spliterator<Member> spliterator = new Spliterators.AbstractSpliterator<Member>(end,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED) {
+            private int next;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Member> action) {
+                if (next >= end) {
+                    return false;
+                }
+                Member member;
+                lock.readLock().lock();
+                try {
+                    member = read(order[next++]);
+                } finally {
+                    lock.readLock().unlock();
+                }
+                action.accept(member);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * 현재 메모리 사용량: 힙의 인덱스 배열, slab에 기록된 레코드, 회원 한 명당 평균
+     */
+    public Footprint footprint() {
+        lock.readLock().lock();
+        try {
+            long indexBytes = (long) idTable.length * Long.BYTES
+                    + (long) nameTable.length * (Long.BYTES + Integer.BYTES)
+                    + (long) order.length * Long.BYTES;
+            long recordBytes = slabs.isEmpty() ? 0 : (long) (slabs.size() - 1) * SLAB_SIZE + slabPosition;
+            long reservedBytes = (long) slabs.size() * SLAB_SIZE;
+            return new Footprint(size, indexBytes, recordBytes, reservedBytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 테스트 시 데이터 비우도록
+    public void clearStore() {
+        lock.writeLock().lock();
+        try {
+            slabs.clear(); // direct 메모리는 ByteBuffer가 GC될 때 반환된다
+            slabPosition = SLAB_SIZE;
+            idTable = new long[INITIAL_CAPACITY];
+            nameTable = new long[INITIAL_CAPACITY];
+            nameHashes = new int[INITIAL_CAPACITY];
+            nameCount = 0;
+            order = new long[INITIAL_CAPACITY];
+            size = 0;
+            sequence = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* ---- 쓰기 (write lock 안에서만 호출) ---- */
+
+    private void insert(Member member, byte[] name) {
+        long id = ++sequence;
+        long address = writeRecord(id, name);
+
+        if ((size + 1) * 4L > idTable.length * 3L) { // load factor 0.75
+            idTable = rehashIds(idTable.length * 2);
+        }
+        putId(idTable, id, address);
+
+        if (name != null) {
+            if ((nameCount + 1) * 4L > nameTable.length * 3L) {
+                rehashNames(nameTable.length * 2);
+            }
+            putName(nameTable, nameHashes, hash(member.getName()), address);
+            nameCount++;
+        }
+
+        if (size == order.length) {
+            order = Arrays.copyOf(order, order.length * 2);
+        }
+        order[size++] = address;
+        member.setId(id);
+    }
+
+    private long writeRecord(long id, byte[] name) {
+        int length = RECORD_HEADER + (name == null ? 0 : name.length);
+        if (slabPosition + length > SLAB_SIZE) {
+            slabs.add(ByteBuffer.allocateDirect(SLAB_SIZE));
+            slabPosition = 0;
+        }
+        ByteBuffer slab = slabs.get(slabs.size() - 1);
+        long address = ((long) (slabs.size() - 1) << SLAB_SHIFT) | slabPosition;
+        slab.putLong(slabPosition, id);
+        slab.putShort(slabPosition + Long.BYTES, (short) (name == null ? NULL_NAME : name.length));
+        if (name != null) {
+            ByteBuffer target = slab.duplicate();
+            target.position(slabPosition + RECORD_HEADER);
+            target.put(name);
+        }
+        slabPosition += length;
+        return address;
+    }
+
+    private void putId(long[] table, long id, long address) {
+        int mask = table.length - 1;
+        int slot = mix(Long.hashCode(id)) & mask;
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = address + 1;
+    }
+
+    private long[] rehashIds(int capacity) {
+        long[] table = new long[capacity];
+        for (long entry : idTable) {
+            if (entry != EMPTY) {
+                putId(table, recordId(entry - 1), entry - 1);
+            }
+        }
+        return table;
+    }
+
+    private void putName(long[] table, int[] hashes, int hash, long address) {
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = address + 1;
+        hashes[slot] = hash;
+    }
+
+    private void rehashNames(int capacity) {
+        long[] table = new long[capacity];
+        int[] hashes = new int[capacity];
+        for (int i = 0; i < nameTable.length; i++) {
+            if (nameTable[i] != EMPTY) {
+                putName(table, hashes, nameHashes[i], nameTable[i] - 1);
+            }
+        }
+        nameTable = table;
+        nameHashes = hashes;
+    }
+
+    /* ---- 읽기 (read lock 또는 write lock 안에서 호출) ---- */
+
+    private long findIdAddress(long id) {
+        long[] table = idTable;
+        int mask = table.length - 1;
+        for (int slot = mix(Long.hashCode(id)) & mask; table[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (recordId(table[slot] - 1) == id) {
+                return table[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private long findNameAddress(byte[] name, int hash) {
+        long[] table = nameTable;
+        int mask = table.length - 1;
+        for (int slot = mix(hash) & mask; table[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (nameHashes[slot] == hash && nameEquals(table[slot] - 1, name)) {
+                return table[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    // id가 afterId보다 큰 첫 위치
+    private int upperBound(long afterId) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (recordId(order[mid]) <= afterId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // id가 beforeId 이상인 첫 위치
+    private int lowerBound(long beforeId) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (recordId(order[mid]) < beforeId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long recordId(long address) {
+        return slab(address).getLong(position(address));
+    }
+
+    private boolean nameEquals(long address, byte[] name) {
+        ByteBuffer slab = slab(address);
+        int position = position(address);
+        if ((slab.getShort(position + Long.BYTES) & 0xFFFF) != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (slab.get(position + RECORD_HEADER + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Member read(long address) {
+        ByteBuffer slab = slab(address);
+        int position = position(address);
+        Member member = new Member();
+        member.setId(slab.getLong(position));
+        int length = slab.getShort(position + Long.BYTES) & 0xFFFF;
+        if (length != NULL_NAME) {
+            byte[] name = new byte[length];
+            ByteBuffer source = slab.duplicate();
+            source.position(position + RECORD_HEADER);
+            source.get(name);
+            member.setName(new String(name, StandardCharsets.UTF_8));
+        }
+        return member;
+    }
+
+    private ByteBuffer slab(long address) {
+        return slabs.get((int) (address >>> SLAB_SHIFT));
+    }
+
+    private static int position(long address) {
+        return (int) (address & (SLAB_SIZE - 1));
+    }
+
+    private static byte[] encode(String name) {
+        if (name == null) {
+            return null;
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("이름이 너무 깁니다: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static int hash(String name) {
+        return name.hashCode();
+    }
+
+    // 연속된 id가 이웃한 칸에 몰리지 않도록 섞는다 (murmur3 finalizer)
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    public static class Footprint {
+
+        private final int entries;
+        private final long indexBytes; // 힙: id/이름 인덱스, id 순서 배열
+        private final long recordBytes; // direct: 기록된 레코드
+        private final long reservedBytes; // direct: 할당된 slab 전체
+
+        Footprint(int entries, long indexBytes, long recordBytes, long reservedBytes) {
+            this.entries = entries;
+            this.indexBytes = indexBytes;
+            this.recordBytes = recordBytes;
+            this.reservedBytes = reservedBytes;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        public long getIndexBytes() {
+            return indexBytes;
+        }
+
+        public long getRecordBytes() {
+            return recordBytes;
+        }
+
+        public long getReservedBytes() {
+            return reservedBytes;
+        }
+
+        public double getBytesPerEntry() {
+            return entries == 0 ? 0 : (double) (indexBytes + recordBytes) / entries;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("entries=%d, index=%,d bytes, records=%,d bytes (slab %,d bytes), %.1f bytes/entry",
+                    entries, indexBytes, recordBytes, reservedBytes, getBytesPerEntry());
+        }
+    }
+}
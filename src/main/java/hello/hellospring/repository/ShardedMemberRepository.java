@@ -0,0 +1,346 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.Member;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 회원을 여러 DB(shard)에 나누어 저장하는 MemberRepository
+ *
+ * 회원은 이름의 hash로 정한 shard에 저장하고, id의 아래 SHARD_BITS 비트에 그 shard 번호를 넣는다.
+ * 그래서 findById는 id에서, findByName은 이름의 hash에서 shard를 바로 찾아 shard 하나만 조회한다 (별도 directory 테이블이 없다).
+ * shard DB의 member.name은 utf8mb4_bin이라 끝 공백만 다른 이름만 같은 이름이고, 그런 이름은 항상 같은 shard로 가므로
+ * 이름 중복은 shard마다의 unique index가 막는다 (대소문자, 악센트가 다르면 다른 이름이다).
+ * 전체·목록 조회는 모든 shard에 동시에 보내고, shard마다 id 순인 결과를 id 순으로 병합(k-way merge)한다.
+ *
+ * shard마다 JdbcTemplateMemberRepository와 그 DB의 member_seq(id 블록)를 쓴다.
+ * shard의 쓰기는 서비스의 트랜잭션에 참여하지 않는다: saveAll은 shard마다 로컬 트랜잭션이고, 여러 shard 사이는 원자적이지 않다.
+ * shard 수를 바꾸면 이름이 가리키는 shard가 달라지므로 회원을 다시 나누어 넣어야 한다 (id로는 계속 찾을 수 있다).
+ */
+public class ShardedMemberRepository implements MemberRepository, Closeable {
+
+    public static final int SHARD_BITS = 8; // id의 아래 8비트가 shard 번호 (최대 256개)
+    public static final int MAX_SHARDS = 1 << SHARD_BITS;
+
+    private final List<DataSource> dataSources;
+    private final List<MemberRepository> shards = new ArrayList<>();
+    private final List<TransactionTemplate> transactions = new ArrayList<>();
+    private final List<Integer> allShards;
+    private final ExecutorService executor; // 여러 shard에 보내는 조회·저장을 동시에 실행 (마지막 shard는 호출한 스레드가 직접)
+
+    public ShardedMemberRepository(List<? extends DataSource> dataSources, int idBlockSize, int threads) {
+        if (dataSources.isEmpty() || dataSources.size() > MAX_SHARDS) {
+            throw new IllegalArgumentException("shard는 1개 이상 " + MAX_SHARDS + "개 이하여야 합니다.");
+        }
+        this.dataSources = new ArrayList<>(dataSources);
+        for (int shard = 0; shard < dataSources.size(); shard++) {
+            DataSource dataSource = dataSources.get(shard);
+            shards.add(new JdbcTemplateMemberRepository(dataSource, new ShardIdAllocator(dataSource, idBlockSize, shard)));
+            transactions.add(new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        }
+        allShards = IntStream.range(0, shards.size()).boxed().collect(Collectors.toList());
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "member-shard-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    // shard 번호와 shard의 member_seq 번호로 만든 id
+    static long shardedId(long sequence, int shard) {
+        return sequence << SHARD_BITS | shard;
+    }
+
+    static int shardOf(long id) {
+        return (int) (id & (MAX_SHARDS - 1));
+    }
+
+    // shard DB(utf8mb4_bin)가 같다고 보는 이름은 같은 shard로
+    int shardOf(String name) {
+        int hash = name == null ? 0 : NameCollation.BINARY.key(name).hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shards.size());
+    }
+
+    @Override
+    public <S extends Member> S save(S member) {
+        return shards.get(shardOf(member.getName())).save(member);
+    }
+
+    @Override
+    public List<Member> saveAll(Collection<Member> members) {
+        List<List<Member>> groups = partition(members, member -> shardOf(member.getName()));
+        // shard 저장소가 넘겨받은 회원에 id를 채우므로 입력 순서 그대로 돌려준다
+        fanOut(nonEmpty(groups), shard ->
+                transactions.get(shard).execute(status -> shards.get(shard).saveAll(groups.get(shard))));
+        return new ArrayList<>(members);
+    }
+
+    @Override
+    public Optional<Member> findById(Long id) {
+        if (id == null || shardOf(id) >= shards.size()) {
+            return Optional.empty();
+        }
+        return shards.get(shardOf(id)).findById(id);
+    }
+
+    @Override
+    public Optional<Member> findByName(String name) {
+        return shards.get(shardOf(name)).findByName(name);
+    }
+
+    @Override
+    public List<Member> findAllById(Collection<Long> ids) {
+        List<List<Long>> groups = partition(ids, id -> shardOf(id));
+        return concat(fanOut(nonEmpty(groups), shard -> shards.get(shard).findAllById(groups.get(shard))));
+    }
+
+    @Override
+    public List<Member> findAllByNameIn(Collection<String> names) {
+        List<List<String>> groups = partition(names, this::shardOf);
+        return concat(fanOut(nonEmpty(groups), shard -> shards.get(shard).findAllByNameIn(groups.get(shard))));
+    }
+
+    @Override
+    public List<Member> findAll() {
+        // shard마다 id 순으로 받아 병합
+        return merge(fanOut(allShards, shard -> shards.get(shard).findAllAfter(null, Integer.MAX_VALUE)), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Member> findAllAfter(Long afterId, int limit) {
+        // 전체에서 afterId 다음 limit명은 모두 각 shard의 afterId 다음 limit명 안에 있다
+        return merge(fanOut(allShards, shard -> shards.get(shard).findAllAfter(afterId, limit)), limit);
+    }
+
+    @Override
+    public List<Member> findAllBefore(Long beforeId, int limit) {
+        List<Member> merged = merge(fanOut(allShards, shard -> shards.get(shard).findAllBefore(beforeId, limit)),
+                Integer.MAX_VALUE);
+        return new ArrayList<>(merged.subList(Math.max(0, merged.size() - limit), merged.size()));
+    }
+
+    @Override
+    public Stream<Member> streamAll() {
+        // shard마다 스트리밍 조회를 열어 두고 id 순으로 하나씩 병합한다 (shard마다 커넥션을 하나씩 쓴다)
+        List<Stream<Member>> streams = new ArrayList<>(shards.size());
+        List<Iterator<Member>> sources = new ArrayList<>(shards.size());
+        try {
+            for (MemberRepository shard : shards) {
+                Stream<Member> stream = shard.streamAll();
+                streams.add(stream);
+                sources.add(stream.iterator());
+            }
+        } catch (RuntimeException e) {
+            closeAll(streams);
+            throw e;
+        }
+        Spliterator<Member> merged = Spliterators.spliteratorUnknownSize(new MergingIterator(sources),
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(merged, false).onClose(() -> closeAll(streams));
+    }
+
+    // 조회 스레드를 멈추고 shard 커넥션 풀을 닫는다
+    @Override
+    public void close() {
+        executor.shutdown();
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) dataSource).close();
+                } catch (Exception e) {
+                    throw new IllegalStateException("shard 커넥션 풀을 닫지 못했습니다.", e);
+                }
+            }
+        }
+    }
+
+    private <K> List<List<K>> partition(Collection<K> keys, ToIntFunction<K> shardOf) {
+        List<List<K>> groups = new ArrayList<>(shards.size());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            groups.add(new ArrayList<>());
+        }
+        for (K key : keys) {
+            int shard = shardOf.applyAsInt(key);
+            if (shard < shards.size()) { // 다른 shard 수로 만든 id는 없는 회원
+                groups.get(shard).add(key);
+            }
+        }
+        return groups;
+    }
+
+    private static List<Integer> nonEmpty(List<? extends List<?>> groups) {
+        List<Integer> result = new ArrayList<>();
+        for (int shard = 0; shard < groups.size(); shard++) {
+            if (!groups.get(shard).isEmpty()) {
+                result.add(shard);
+            }
+        }
+        return result;
+    }
+
+    // targets의 shard마다 task를 동시에 실행하고 결과를 targets 순서로 모은다
+    private <T> List<T> fanOut(List<Integer> targets, IntFunction<T> task) {
+        if (targets.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(targets.size() - 1);
+        for (int i = 0; i < targets.size() - 1; i++) {
+            int shard = targets.get(i);
+            futures.add(CompletableFuture.supplyAsync(() -> task.apply(shard), executor));
+        }
+        T last = task.apply(targets.get(targets.size() - 1));
+
+        List<T> results = new ArrayList<>(targets.size());
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        results.add(last);
+        return results;
+    }
+
+    private static List<Member> concat(List<List<Member>> lists) {
+        List<Member> result = new ArrayList<>();
+        for (List<Member> list : lists) {
+            result.addAll(list);
+        }
+        return result;
+    }
+
+    // id 순인 목록들을 id 순으로 합쳐 앞에서 limit명
+    static List<Member> merge(List<List<Member>> sorted, int limit) {
+        List<Iterator<Member>> sources = new ArrayList<>(sorted.size());
+        int total = 0;
+        for (List<Member> list : sorted) {
+            sources.add(list.iterator());
+            total += list.size();
+        }
+        MergingIterator merged = new MergingIterator(sources);
+        List<Member> result = new ArrayList<>(Math.min(limit, total));
+        while (result.size() < limit && merged.hasNext()) {
+            result.add(merged.next());
+        }
+        return result;
+    }
+
+    private static void closeAll(List<Stream<Member>> streams) {
+        RuntimeException failure = null;
+        for (Stream<Member> stream : streams) {
+            try {
+                stream.close();
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // k-way merge: 각 목록의 맨 앞 회원을 id 순 heap에 두고 가장 작은 것부터 꺼낸다 (k개 목록, n명에 O(n log k))
+    private static final class MergingIterator implements Iterator<Member> {
+
+        private final PriorityQueue<Cursor> heap;
+
+        MergingIterator(List<Iterator<Member>> sources) {
+            heap = new PriorityQueue<>(Math.max(1, sources.size()), Comparator.comparingLong(cursor -> cursor.head.getId()));
+            for (Iterator<Member> source : sources) {
+                if (source.hasNext()) {
+                    heap.add(new Cursor(source));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heap.isEmpty();
+        }
+
+        @Override
+        public Member next() {
+            Cursor cursor = heap.poll();
+            if (cursor == null) {
+                throw new NoSuchElementException();
+            }
+            Member member = cursor.head;
+            if (cursor.source.hasNext()) {
+                cursor.head = cursor.source.next();
+                heap.add(cursor);
+            }
+            return member;
+        }
+    }
+
+    private static final class Cursor {
+
+        private final Iterator<Member> source;
+        private Member head;
+
+        Cursor(Iterator<Member> source) {
+            this.source = source;
+            this.head = source.next();
+        }
+    }
+
+    // shard의 member_seq에서 받은 번호에 shard 번호를 붙인다
+    // (member_seq 행이 없어 기존 회원의 max(id)부터 시작하면 번호가 건너뛸 뿐 겹치지 않는다)
+    private static final class ShardIdAllocator extends MemberIdAllocator {
+
+        private final int shard;
+
+        ShardIdAllocator(DataSource dataSource, int blockSize, int shard) {
+            super(dataSource, blockSize);
+            this.shard = shard;
+        }
+
+        @Override
+        public long nextId() {
+            return shardedId(super.nextId(), shard);
+        }
+
+        @Override
+        public long[] nextIds(int count) {
+            long[] ids = super.nextIds(count);
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = shardedId(ids[i], shard);
+            }
+            return ids;
+        }
+    }
+}
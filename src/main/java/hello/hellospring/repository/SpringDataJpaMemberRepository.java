@@ -1,12 +1,102 @@
 package hello.hellospring.repository;
 
 import hello.hellospring.domain.Member;
+import hello.hellospring.domain.MemberSummary;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface SpringDataJpaMemberRepository extends JpaRepository<Member, Long>, MemberRepository {
     // 스프링 데이터 jpa가 jpa repository를 받아 구현체 자동 생성
+    // 쿼리 캐시 사용 (hibernate.cache.use_query_cache가 꺼져 있으면 무시된다)
     @Override
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<Member> findByName(String name);
+
+    @Override
+    List<Member> findAllByNameIn(Collection<String> names);
+
+    // JpaRepository.findAllById(Iterable)로 위임: where id in (...) 한 번
+    @Override
+    default List<Member> findAllById(Collection<Long> ids) {
+        return findAllById((Iterable<Long>) ids);
+    }
+
+    // id를 member_seq에서 미리 받으므로 persist 시점에 insert되지 않는다: 바로 flush해서 이름 중복을 save에서 알린다
+    @Override
+    default <S extends Member> S save(S member) {
+        return saveAndFlush(member);
+    }
+
+    // JpaRepository.saveAllAndFlush(Iterable)로 위임: hibernate.jdbc.batch_size 단위로 insert
+    @Override
+    default List<Member> saveAll(Collection<Member> members) {
+        return saveAllAndFlush(members);
+    }
+
+    List<Member> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<Member> findByIdLessThanOrderByIdDesc(Long id, Pageable pageable);
+
+    // 목록 화면용: 엔티티 대신 DTO로 조회
+    @Query("select new hello.hellospring.domain.MemberSummary(m.id, m.name) from Member m where m.id > :id order by m.id asc")
+    List<MemberSummary> findSummariesByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    @Query("select new hello.hellospring.domain.MemberSummary(m.id, m.name) from Member m where m.id < :id order by m.id desc")
+    List<MemberSummary> findSummariesByIdLessThan(@Param("id") Long id, Pageable pageable);
+
+    // 트랜잭션 안에서 호출해야 한다
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    Stream<Member> streamAllByOrderByIdAsc();
+
+    // 트랜잭션 안에서 호출해야 한다. 엔티티 대신 DTO라 영속성 컨텍스트에 쌓이지 않는다
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("select new hello.hellospring.domain.MemberSummary(m.id, m.name) from Member m order by m.id asc")
+    Stream<MemberSummary> streamSummariesByOrderByIdAsc();
+
+    @Override
+    default List<Member> findAllAfter(Long afterId, int limit) {
+        return findByIdGreaterThanOrderByIdAsc(afterId == null ? 0L : afterId, PageRequest.of(0, limit));
+    }
+
+    @Override
+    default List<Member> findAllBefore(Long beforeId, int limit) {
+        List<Member> result = findByIdLessThanOrderByIdDesc(beforeId, PageRequest.of(0, limit));
+        Collections.reverse(result);
+        return result;
+    }
+
+    @Override
+    default List<MemberSummary> findSummariesAfter(Long afterId, int limit) {
+        return findSummariesByIdGreaterThan(afterId == null ? 0L : afterId, PageRequest.of(0, limit));
+    }
+
+    @Override
+    default List<MemberSummary> findSummariesBefore(Long beforeId, int limit) {
+        List<MemberSummary> result = new ArrayList<>(findSummariesByIdLessThan(beforeId, PageRequest.of(0, limit)));
+        Collections.reverse(result);
+        return result;
+    }
+
+    @Override
+    default Stream<Member> streamAll() {
+        return streamAllByOrderByIdAsc();
+    }
+
+    @Override
+    default Stream<MemberSummary> streamSummaries() {
+        return streamSummariesByOrderByIdAsc();
+    }
 }
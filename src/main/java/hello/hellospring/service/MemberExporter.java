@@ -0,0 +1,280 @@
+package hello.hellospring.service;
+
+import hello.hellospring.domain.MemberSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 회원 내보내기 (CSV, NDJSON)
+ *
+ * DB 커서(MemberService.forEachMemberSummary)에서 읽는 대로 한 행씩 응답 스트림에 쓴다.
+ * 행마다 String이나 byte[]를 만들지 않고 재사용하는 버퍼 하나에 UTF-8로 바로 인코딩하고,
+ * 버퍼가 차면 (gzip이면 압축해서) 내보낸다. 파일이나 목록을 거치지 않으므로 회원 수와 관계없이 메모리가 일정하다.
+ */
+public class MemberExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemberExporter.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int RECENT_EXPORTS = 10; // 보관할 최근 내보내기 결과 수
+    private static final byte[] CSV_HEADER = "id,name\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final MemberService memberService;
+    private final Deque<Result> recent = new ConcurrentLinkedDeque<>();
+
+    public MemberExporter(MemberService memberService) {
+        this.memberService = memberService;
+    }
+
+    /**
+     * 전체 회원을 out에 쓴다. out은 닫지 않는다 (gzip이면 압축 스트림만 끝맺는다)
+     */
+    public Result export(MemberFormat format, boolean gzip, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        RowBuffer buffer = new RowBuffer(gzip ? gzipOut : out);
+        long[] rows = new long[1];
+        if (format == MemberFormat.CSV) {
+            buffer.write(CSV_HEADER);
+        }
+        try {
+            memberService.forEachMemberSummary(member -> {
+                try {
+                    if (format == MemberFormat.CSV) {
+                        writeCsv(buffer, member);
+                    } else {
+                        writeNdjson(buffer, member);
+                    }
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // 클라이언트가 끊으면 여기서 멈춘다 (커서도 닫힌다)
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        buffer.flush();
+        if (gzipOut != null) {
+            gzipOut.finish();
+        }
+        out.flush();
+
+        Result result = new Result(format, gzip, rows[0], buffer.written, System.currentTimeMillis() - start);
+        recent.addFirst(result);
+        while (recent.size() > RECENT_EXPORTS) {
+            recent.pollLast();
+        }
+        logger.info("member export finished: {}", result);
+        return result;
+    }
+
+    // id,name (name은 쉼표·따옴표·줄바꿈이 있을 때만 큰따옴표로 감싼다)
+    private static void writeCsv(RowBuffer buffer, MemberSummary member) throws IOException {
+        buffer.writeLong(member.getId());
+        buffer.writeByte(',');
+        String name = member.getName();
+        if (name != null) {
+            boolean quote = needsQuote(name);
+            if (quote) {
+                buffer.writeByte('"');
+            }
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (c == '"') {
+                    buffer.writeByte('"');
+                }
+                i = buffer.writeChar(name, i);
+            }
+            if (quote) {
+                buffer.writeByte('"');
+            }
+        }
+        buffer.writeByte('\n');
+    }
+
+    private static boolean needsQuote(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // {"id":1,"name":"..."}
+    private static void writeNdjson(RowBuffer buffer, MemberSummary member) throws IOException {
+        buffer.writeAscii("{\"id\":");
+        buffer.writeLong(member.getId());
+        String name = member.getName();
+        if (name == null) {
+            buffer.writeAscii(",\"name\":null}\n");
+            return;
+        }
+        buffer.writeAscii(",\"name\":\"");
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer.writeByte('\\');
+                buffer.writeByte(c);
+            } else if (c < 0x20) {
+                buffer.writeAscii("\\u00");
+                buffer.writeByte(HEX[c >> 4]);
+                buffer.writeByte(HEX[c & 0xF]);
+            } else {
+                i = buffer.writeChar(name, i);
+            }
+        }
+        buffer.writeAscii("\"}\n");
+    }
+
+    public List<Result> getRecentExports() {
+        return new ArrayList<>(recent);
+    }
+
+    // 재사용하는 출력 버퍼: 숫자와 문자열을 바로 UTF-8 바이트로 쓴다
+    private static final class RowBuffer {
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private long written; // 압축 전 바이트 수
+
+        RowBuffer(OutputStream out) {
+            this.out = out;
+        }
+
+        private void ensure(int length) throws IOException {
+            if (position + length > buffer.length) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            out.write(buffer, 0, position);
+            written += position;
+            position = 0;
+        }
+
+        void write(byte[] bytes) throws IOException {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeByte(int b) throws IOException {
+            ensure(1);
+            buffer[position++] = (byte) b;
+        }
+
+        void writeAscii(String s) throws IOException {
+            ensure(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                buffer[position++] = (byte) s.charAt(i);
+            }
+        }
+
+        void writeLong(long value) throws IOException {
+            if (value < 0) {
+                writeByte('-');
+                value = -value;
+            }
+            ensure(19);
+            int digits = 1;
+            for (long v = value / 10; v != 0; v /= 10) {
+                digits++;
+            }
+            for (int i = position + digits - 1; i >= position; i--) {
+                buffer[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            position += digits;
+        }
+
+        // s의 index 위치 문자를 UTF-8로 쓰고, 서로게이트 쌍이면 두 칸을 읽으므로 마지막으로 읽은 위치를 돌려준다
+        int writeChar(String s, int index) throws IOException {
+            char c = s.charAt(index);
+            ensure(4);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && index + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(index + 1))) {
+                int codePoint = Character.toCodePoint(c, s.charAt(++index));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?'; // 짝이 없는 서로게이트 (String.getBytes와 같게)
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+            return index;
+        }
+    }
+
+    /**
+     * 내보내기 한 건의 결과
+     */
+    public static class Result {
+
+        private final MemberFormat format;
+        private final boolean gzip;
+        private final long rows;
+        private final long bytes; // 압축 전
+        private final long elapsedMs;
+
+        Result(MemberFormat format, boolean gzip, long rows, long bytes, long elapsedMs) {
+            this.format = format;
+            this.gzip = gzip;
+            this.rows = rows;
+            this.bytes = bytes;
+            this.elapsedMs = elapsedMs;
+        }
+
+        public MemberFormat getFormat() {
+            return format;
+        }
+
+        public boolean isGzip() {
+            return gzip;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+
+        public long getRowsPerSecond() {
+            return rows * 1000 / Math.max(1, elapsedMs);
+        }
+
+        @Override
+        public String toString() {
+            return format + (gzip ? "+gzip" : "") + ", rows=" + rows + ", bytes=" + bytes + ", " + getRowsPerSecond() + " rows/s";
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package hello.hellospring.service;
+
+/**
+ * 회원 가져오기/내보내기 파일 형식 (한 행에 한 명, UTF-8)
+ */
+public enum MemberFormat {
+    CSV("text/csv"), // 헤더의 name 열이 이름, 헤더가 없으면 첫 열 (내보내기는 id,name)
+    NDJSON("application/x-ndjson"); // 한 줄에 JSON 객체 하나
+
+    private final String mediaType;
+
+    MemberFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+}
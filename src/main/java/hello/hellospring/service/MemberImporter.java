@@ -0,0 +1,313 @@
+package hello.hellospring.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import hello.hellospring.domain.Member;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 회원 일괄 가져오기 (CSV, NDJSON)
+ *
+ * 업로드 본문을 한 줄씩 읽으며 batchSize개씩 모아 MemberService.joinAllAbsent로 저장한다.
+ * 본문 전체나 저장한 회원을 들고 있지 않으므로, 행 수와 관계없이 힙은 batch 하나 크기만 쓴다.
+ * 이미 있는 이름과 파일 안에서 중복된 이름은 건너뛴다.
+ * batch가 동시 가입과 겹쳐 롤백되면 그 batch만 한 명씩 다시 가입한다.
+ * 이름 중복이 아닌 저장 실패(커넥션 끊김, timeout 등)는 가져오기를 멈추고 error에 남긴 뒤 예외를 다시 던진다.
+ */
+public class MemberImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemberImporter.class);
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final int MAX_NAME_LENGTH = 255; // member.name varchar(255)
+    private static final long LOG_INTERVAL_ROWS = 100_000; // 이만큼 읽을 때마다 진행 상황을 로그로 남긴다
+    private static final int RECENT_IMPORTS = 10; // 끝난 가져오기 중 보관할 개수
+
+    private final MemberService memberService;
+    private final int batchSize;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Long, Progress> running = new ConcurrentHashMap<>();
+    private final Deque<Progress> recent = new ConcurrentLinkedDeque<>();
+
+    public MemberImporter(MemberService memberService, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize는 1 이상이어야 합니다.");
+        }
+        this.memberService = memberService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * in을 끝까지 읽어 가져온다. 읽기·파싱에 실패하면 그 전까지 읽은 행은 저장하고 error에 이유를 남긴다
+     * 저장에 실패하면(이름 중복 제외) 그 자리에서 멈추고 error에 남긴 뒤 예외를 던진다
+     */
+    public Progress importMembers(InputStream in, MemberFormat format) {
+        Progress progress = new Progress(sequence.incrementAndGet(), format);
+        running.put(progress.id, progress);
+        List<String> batch = new ArrayList<>(batchSize);
+        try {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                NameReader names = format == MemberFormat.CSV ? new CsvNameReader(reader) : new NdjsonNameReader(reader);
+                String name;
+                while ((name = names.next()) != null) {
+                    progress.rows++;
+                    if (name.isEmpty() || name.length() > MAX_NAME_LENGTH) {
+                        progress.invalid++;
+                    } else {
+                        batch.add(name);
+                        if (batch.size() == batchSize) {
+                            importBatch(batch, progress);
+                            batch.clear();
+                        }
+                    }
+                    if (progress.rows % LOG_INTERVAL_ROWS == 0) {
+                        logger.info("member import #{}: {}", progress.id, progress);
+                    }
+                }
+            } catch (IOException e) {
+                progress.error = "line " + (progress.rows + 1) + ": " + e.getMessage();
+            }
+            // 마지막 batch (읽다가 실패했어도 그 전까지 읽은 행은 저장한다)
+            if (!batch.isEmpty()) {
+                importBatch(batch, progress);
+            }
+        } catch (RuntimeException e) {
+            progress.error = "line " + progress.rows + ": 저장 실패: " + e.getMessage();
+            throw e;
+        } finally {
+            progress.finishedAt = System.currentTimeMillis();
+            running.remove(progress.id);
+            recent.addFirst(progress);
+            while (recent.size() > RECENT_IMPORTS) {
+                recent.pollLast();
+            }
+            logger.info("member import #{} finished: {}", progress.id, progress);
+        }
+        return progress;
+    }
+
+    private void importBatch(List<String> batch, Progress progress) {
+        int imported;
+        try {
+            imported = memberService.joinAllAbsent(batch);
+        } catch (IllegalStateException e) {
+            if (!isDuplicate(e)) {
+                throw e;
+            }
+            // 걸러낸 뒤 다른 요청이 같은 이름을 저장해 batch 전체가 롤백됐다: 한 명씩 다시 (각자 트랜잭션)
+            imported = 0;
+            for (String name : new LinkedHashSet<>(batch)) {
+                Member member = new Member();
+                member.setName(name);
+                try {
+                    memberService.join(member);
+                    imported++;
+                } catch (IllegalStateException duplicate) {
+                    if (!isDuplicate(duplicate)) {
+                        throw duplicate;
+                    }
+                    // 이미 있는 이름은 건너뛴다
+                }
+            }
+        }
+        progress.imported += imported;
+        progress.skipped += batch.size() - imported;
+    }
+
+    // MemberService는 이름 unique index 위반(DataIntegrityViolationException)을 IllegalStateException으로 감싼다
+    // (JdbcMemberRepository는 다른 SQL 오류도 IllegalStateException으로 던지므로 원인으로 구분한다)
+    private static boolean isDuplicate(IllegalStateException e) {
+        return e.getCause() instanceof DataIntegrityViolationException;
+    }
+
+    /**
+     * 진행 중인 가져오기와 최근에 끝난 가져오기
+     */
+    public List<Progress> getImports() {
+        List<Progress> result = new ArrayList<>(running.values());
+        result.addAll(recent);
+        return result;
+    }
+
+    // 한 행에서 이름을 읽는다: 끝이면 null, 이름이 없는 행이면 ""
+    private interface NameReader {
+        String next() throws IOException;
+    }
+
+    // name 열을 읽는다: 첫 행에 name 열이 있으면 헤더로 보고 그 열을 (내보내기의 id,name 등), 없으면 첫 번째 열을 읽는다
+    // 큰따옴표로 감싼 값("a,b", ""는 ")을 지원한다 (따옴표 안의 줄바꿈은 지원하지 않는다)
+    private static class CsvNameReader implements NameReader {
+
+        private final BufferedReader reader;
+        private boolean first = true;
+        private int column = 0;
+
+        CsvNameReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public String next() throws IOException {
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            if (first) {
+                first = false;
+                if (line.startsWith("\uFEFF")) {
+                    line = line.substring(1); // BOM
+                }
+                List<String> header = fields(line);
+                for (int i = 0; i < header.size(); i++) {
+                    if (header.get(i).equalsIgnoreCase("name")) {
+                        column = i;
+                        return next();
+                    }
+                }
+            }
+            List<String> fields = fields(line);
+            return column < fields.size() ? fields.get(column) : "";
+        }
+
+        static List<String> fields(String line) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString().trim());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString().trim());
+            return fields;
+        }
+    }
+
+    // 한 줄에 {"name": "..."} 하나. 다른 필드는 무시한다 (Jackson streaming parser, 객체를 만들지 않는다)
+    private static class NdjsonNameReader implements NameReader {
+
+        private final JsonParser parser;
+
+        NdjsonNameReader(BufferedReader reader) throws IOException {
+            this.parser = JSON.createParser(reader);
+        }
+
+        @Override
+        public String next() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "한 줄에 JSON 객체 하나여야 합니다.");
+            }
+            String name = "";
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("name".equals(field) && value == JsonToken.VALUE_STRING) {
+                    name = parser.getText().trim();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return name;
+        }
+    }
+
+    /**
+     * 가져오기 한 건의 진행 상황 (가져오는 스레드만 쓰고, 다른 스레드는 읽기만 한다)
+     */
+    public static class Progress {
+
+        private final long id;
+        private final MemberFormat format;
+        private final long startedAt = System.currentTimeMillis();
+        private volatile long finishedAt;
+        private volatile long rows; // 읽은 행 수 (헤더 제외)
+        private volatile long imported; // 새로 가입한 회원 수
+        private volatile long skipped; // 이미 있거나 파일 안에서 중복된 이름
+        private volatile long invalid; // 이름이 비었거나 너무 긴 행
+        private volatile String error;
+
+        Progress(long id, MemberFormat format) {
+            this.id = id;
+            this.format = format;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public MemberFormat getFormat() {
+            return format;
+        }
+
+        public boolean isFinished() {
+            return finishedAt != 0;
+        }
+
+        public long getElapsedMs() {
+            return (isFinished() ? finishedAt : System.currentTimeMillis()) - startedAt;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getImported() {
+            return imported;
+        }
+
+        public long getSkipped() {
+            return skipped;
+        }
+
+        public long getInvalid() {
+            return invalid;
+        }
+
+        public long getRowsPerSecond() {
+            return rows * 1000 / Math.max(1, getElapsedMs());
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return "rows=" + rows + ", imported=" + imported + ", skipped=" + skipped + ", invalid=" + invalid
+                    + ", " + getRowsPerSecond() + " rows/s" + (error == null ? "" : ", error=" + error);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package hello.hellospring.service;
+
+import hello.hellospring.domain.MemberSummary;
+
+import java.util.List;
+
+/**
+ * keyset 방식으로 조회한 회원 목록 한 페이지 (엔티티 대신 요약)
+ * 이전/다음 페이지는 id 커서(before/after)로 조회한다
+ */
+public class MemberPage {
+
+    private final List<MemberSummary> members;
+    private final Long prevCursor; // 이전 페이지 조회용 before 값, 없으면 null
+    private final Long nextCursor; // 다음 페이지 조회용 after 값, 없으면 null
+
+    public MemberPage(List<MemberSummary> members, Long prevCursor, Long nextCursor) {
+        this.members = members;
+        this.prevCursor = prevCursor;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<MemberSummary> getMembers() {
+        return members;
+    }
+
+    public Long getPrevCursor() {
+        return prevCursor;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasPrev() {
+        return prevCursor != null;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
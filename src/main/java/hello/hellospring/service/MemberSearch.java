@@ -0,0 +1,198 @@
+package hello.hellospring.service;
+
+import hello.hellospring.domain.MemberSummary;
+import hello.hellospring.repository.MemberNameIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 회원 이름 검색 (prefix, fuzzy)
+ *
+ * 애플리케이션이 뜨면 저장된 회원 전체를 읽어 MemberNameIndex를 채운다: DB 커서 하나로 읽고,
+ * 인덱스에 넣는 일은 chunk 단위로 여러 스레드가 나눠 한다. 그 사이 가입한 회원도 인덱스에 들어가며 (같은 회원은 한 번만),
+ * 다 채우기 전의 검색은 그때까지 넣은 회원 안에서만 찾는다. 이후에는 IndexedMemberRepository가 저장할 때마다 넣는다.
+ */
+public class MemberSearch implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemberSearch.class);
+
+    private static final int CHUNK_SIZE = 10_000; // 작업 스레드 하나에 한 번에 넘기는 회원 수
+    private static final int MAX_LIMIT = 100;
+
+    public enum Mode {
+        PREFIX, // 이름 앞부분 일치 (대소문자 무시)
+        FUZZY // trigram 유사도 (오타, 이름 중간 부분)
+    }
+
+    private final MemberService memberService;
+    private final MemberNameIndex index;
+    private final int parallelism;
+    private volatile Rebuild rebuild;
+
+    public MemberSearch(MemberService memberService, MemberNameIndex index, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism은 1 이상이어야 합니다.");
+        }
+        this.memberService = memberService;
+        this.index = index;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param limit 1 ~ 100
+     */
+    public List<MemberNameIndex.Match> search(String query, Mode mode, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        if (mode == Mode.FUZZY) {
+            return index.fuzzy(query, size);
+        }
+        return index.prefix(query, size).stream()
+                .map(member -> new MemberNameIndex.Match(member, 1.0))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        // 회원이 많으면 몇십 초 걸리므로 기동을 막지 않도록 따로 돌린다
+        Thread thread = new Thread(this::rebuild, "member-search-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 저장된 회원을 모두 읽어 인덱스에 넣는다 (이미 있는 회원은 건너뛴다)
+     */
+    public Rebuild rebuild() {
+        Rebuild current = new Rebuild();
+        rebuild = current;
+        AtomicInteger threads = new AtomicInteger();
+        // 큐가 차면 읽는 스레드가 직접 넣는다: DB 읽기가 인덱싱보다 빨라도 chunk가 힙에 쌓이지 않는다
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism * 2),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "member-search-rebuild-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            Loader loader = new Loader(workers, current);
+            memberService.forEachMemberSummary(loader);
+            loader.flush();
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            current.error = "interrupted";
+        } catch (RuntimeException e) {
+            current.error = e.toString();
+            logger.warn("member search rebuild failed", e);
+        } finally {
+            workers.shutdownNow();
+            current.finishedAt = System.currentTimeMillis();
+            logger.info("member search rebuild finished: {}", current);
+        }
+        return current;
+    }
+
+    public Rebuild getRebuild() {
+        return rebuild;
+    }
+
+    public long getIndexedMembers() {
+        return index.size();
+    }
+
+    public int getTrigrams() {
+        return index.trigramCount();
+    }
+
+    // DB 커서에서 읽은 회원을 CHUNK_SIZE개씩 작업 스레드에 넘긴다
+    private class Loader implements Consumer<MemberSummary> {
+
+        private final ThreadPoolExecutor workers;
+        private final Rebuild progress;
+        private List<MemberSummary> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        Loader(ThreadPoolExecutor workers, Rebuild progress) {
+            this.workers = workers;
+            this.progress = progress;
+        }
+
+        @Override
+        public void accept(MemberSummary member) {
+            chunk.add(member);
+            if (chunk.size() == CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<MemberSummary> members = chunk;
+            chunk = new ArrayList<>(CHUNK_SIZE);
+            progress.read.addAndGet(members.size());
+            workers.execute(() -> {
+                int added = 0;
+                for (MemberSummary member : members) {
+                    if (index.add(member)) {
+                        added++;
+                    }
+                }
+                progress.added.addAndGet(added);
+            });
+        }
+    }
+
+    /**
+     * 인덱스 다시 채우기 한 번의 진행 상황
+     */
+    public static class Rebuild {
+
+        private final long startedAt = System.currentTimeMillis();
+        private volatile long finishedAt;
+        private final AtomicLong read = new AtomicLong(); // DB에서 읽은 회원 수
+        private final AtomicLong added = new AtomicLong(); // 인덱스에 새로 넣은 회원 수 (이미 있던 회원 제외)
+        private volatile String error;
+
+        public boolean isFinished() {
+            return finishedAt != 0;
+        }
+
+        public long getElapsedMs() {
+            return (isFinished() ? finishedAt : System.currentTimeMillis()) - startedAt;
+        }
+
+        public long getRead() {
+            return read.get();
+        }
+
+        public long getAdded() {
+            return added.get();
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return "read=" + read + ", added=" + added + ", " + getElapsedMs() + "ms"
+                    + (error == null ? "" : ", error=" + error);
+        }
+    }
+}
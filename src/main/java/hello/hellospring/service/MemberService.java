@@ -1,24 +1,49 @@
 package hello.hellospring.service;
 
 import hello.hellospring.domain.Member;
+import hello.hellospring.domain.MemberSummary;
 import hello.hellospring.repository.MemberRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 // SpringConfig를 통해 의존성을 주입하므로, 여기서는 어노테이션 주석 처리
 // @Service
 public class MemberService {
 
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final MemberRepository memberRepository;
+    private final int batchSize; // 일괄 가입 시 한 번에 검증/저장할 회원 수
 
     public MemberService(MemberRepository memberRepository) {
+        this(memberRepository, DEFAULT_BATCH_SIZE);
+    }
+
+    public MemberService(MemberRepository memberRepository, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize는 1 이상이어야 합니다.");
+        }
         this.memberRepository = memberRepository;
+        this.batchSize = batchSize;
     }
 
     /**
      * 회원가입
      */
+    @Transactional
     public Long join(Member member) {
 
         /*
@@ -30,31 +55,164 @@ public class MemberService {
          * timeMs = finish - start; System.out.println("join = " + timeMs + "ms"); }
          */
 
-        // 중복 회원 검증
-        validateDuplicateMember(member);
-
-        // 중복 회원이 아니라면 회원 저장
-        memberRepository.save(member);
+        // 중복 검사와 저장을 한 번에: 이름 unique index(메모리는 이름 인덱스의 putIfAbsent)가 중복을 막는다
+        // 먼저 조회한 뒤 저장하면 왕복이 두 번이고, 동시에 같은 이름으로 가입하면 둘 다 검증을 통과한다
+        try {
+            memberRepository.save(member);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+        }
         return member.getId(); // 임의로 id 반환
 
     }
 
-    private void validateDuplicateMember(Member member) {
-        memberRepository.findByName(member.getName()).ifPresent(m -> {
+    /**
+     * 회원 일괄 가입
+     * batchSize 단위로 나누어 batch마다 in 쿼리 한 번으로 중복을 검증하고, batch insert로 저장한다
+     */
+    @Transactional
+    public List<Long> joinAll(List<Member> members) {
+        // 저장 전에 전체를 먼저 검증해서, 중복이 있으면 아무것도 저장하지 않는다
+        Set<String> names = new HashSet<>();
+        for (Member member : members) {
+            if (!names.add(member.getName())) {
+                throw new IllegalStateException("이미 존재하는 회원입니다.");
+            }
+        }
+        for (List<Member> batch : partition(members)) {
+            validateDuplicateMembers(batch);
+        }
+
+        // 검증 뒤에 다른 요청이 같은 이름을 먼저 저장했다면 unique index에서 걸린다
+        List<Long> ids = new ArrayList<>(members.size());
+        try {
+            for (List<Member> batch : partition(members)) {
+                for (Member saved : memberRepository.saveAll(batch)) {
+                    ids.add(saved.getId());
+                }
+            }
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+        }
+        return ids;
+    }
+
+    /**
+     * 이름 목록 중 아직 없는 이름만 가입 (가져오기용, 한 번에 batchSize 이하로 호출)
+     * 목록 안의 중복과 이미 있는 이름은 in 쿼리 한 번으로 걸러 건너뛰고, 나머지는 batch insert로 저장한다
+     * 걸러낸 뒤에 다른 요청이 같은 이름을 먼저 저장했다면 전체가 롤백되고 IllegalStateException
+     *
+     * @return 새로 가입한 회원 수
+     */
+    @Transactional
+    public int joinAllAbsent(Collection<String> names) {
+        Set<String> absent = new LinkedHashSet<>(names);
+        for (Member existing : memberRepository.findAllByNameIn(absent)) {
+            absent.remove(existing.getName());
+        }
+        if (absent.isEmpty()) {
+            return 0;
+        }
+
+        List<Member> members = new ArrayList<>(absent.size());
+        for (String name : absent) {
+            Member member = new Member();
+            member.setName(name);
+            members.add(member);
+        }
+        try {
+            memberRepository.saveAll(members);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+        }
+        return members.size();
+    }
+
+    private void validateDuplicateMembers(List<Member> batch) {
+        List<String> names = batch.stream().map(Member::getName).collect(Collectors.toList());
+        if (!memberRepository.findAllByNameIn(names).isEmpty()) {
             throw new IllegalStateException("이미 존재하는 회원입니다.");
-        });
+        }
+    }
+
+    private List<List<Member>> partition(List<Member> members) {
+        List<List<Member>> batches = new ArrayList<>();
+        for (int from = 0; from < members.size(); from += batchSize) {
+            batches.add(members.subList(from, Math.min(from + batchSize, members.size())));
+        }
+        return batches;
     }
 
     /**
      * 전체 회원 조회
      */
+    @Transactional(readOnly = true)
     public List<Member> findMembers() {
         return memberRepository.findAll();
     }
 
+    /**
+     * 회원 목록 페이지 조회 (keyset)
+     * before가 있으면 before 이전 페이지를, 없으면 after 다음 페이지를 조회한다
+     * 화면에 필요한 id, 이름만 요약으로 조회한다 (readOnly: JPA는 flush 모드 MANUAL, 커넥션도 읽기 전용)
+     */
+    @Transactional(readOnly = true)
+    public MemberPage findMemberPage(Long after, Long before, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        // 한 건 더 조회해서 그 방향으로 페이지가 더 있는지 판단한다
+        if (before != null) {
+            List<MemberSummary> members = memberRepository.findSummariesBefore(before, limit + 1);
+            boolean hasPrev = members.size() > limit;
+            if (hasPrev) {
+                members = members.subList(1, members.size());
+            }
+            return page(members, hasPrev, true);
+        }
+
+        List<MemberSummary> members = memberRepository.findSummariesAfter(after, limit + 1);
+        boolean hasNext = members.size() > limit;
+        if (hasNext) {
+            members = members.subList(0, limit);
+        }
+        return page(members, after != null, hasNext);
+    }
+
+    private MemberPage page(List<MemberSummary> members, boolean hasPrev, boolean hasNext) {
+        if (members.isEmpty()) {
+            return new MemberPage(members, null, null);
+        }
+        Long first = members.get(0).getId();
+        Long last = members.get(members.size() - 1).getId();
+        return new MemberPage(members, hasPrev ? first : null, hasNext ? last : null);
+    }
+
+    /**
+     * 전체 회원을 id 순으로 하나씩 처리 (전체를 메모리에 올리지 않는다)
+     */
+    @Transactional(readOnly = true)
+    public void forEachMember(Consumer<Member> action) {
+        try (Stream<Member> members = memberRepository.streamAll()) {
+            members.forEach(action);
+        }
+    }
+
+    /**
+     * 전체 회원 요약(id, 이름)을 id 순으로 하나씩 처리 (내보내기용, 엔티티를 만들지 않는다)
+     */
+    @Transactional(readOnly = true)
+    public void forEachMemberSummary(Consumer<MemberSummary> action) {
+        try (Stream<MemberSummary> members = memberRepository.streamSummaries()) {
+            members.forEach(action);
+        }
+    }
+
     /**
      * 1명의 회원 조회
+     * select 한 번이라 트랜잭션을 열지 않는다 (SUPPORTS): member.coalescing으로 묶인 요청이 커넥션을 잡고 기다리지 않도록
+     * (readOnly 표시는 남아 replica에서 읽는다)
      */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Optional<Member> findOne(Long memberId) {
         return memberRepository.findById(memberId);
     }
@@ -0,0 +1,246 @@
+package hello.hellospring.service;
+
+import hello.hellospring.aop.LatencyHistogram;
+import hello.hellospring.domain.Member;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 회원 가입 write-behind (모아서 저장)
+ *
+ * join은 회원을 큐에 넣고 바로 돌아오며, 쓰기 스레드 하나가 큐에서 최대 maxBatch명 또는 첫 회원을 꺼낸 뒤
+ * flushInterval까지 모인 회원을 MemberService.joinAll로 한 트랜잭션에 저장한다 (batch insert, 커밋 한 번).
+ * join이 돌려준 future는 커밋된 뒤에 회원 id로 완료되므로, 응답을 future에 걸면 응답한 가입은 저장된 것이다.
+ * 큐가 가득 차면 join이 자리가 날 때까지 기다린다. 종료할 때는 새 가입을 받지 않고 큐에 남은 회원을 모두 저장한다.
+ *
+ * 한 batch에 이미 있는 이름이 섞이면 batch가 롤백되므로, 그때만 한 명씩 다시 저장해 그 회원의 future만 실패시킨다.
+ */
+public class MemberWriteBehind implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemberWriteBehind.class);
+
+    private static final long CLOSE_CHECK_MS = 100; // 큐가 비어 있을 때 종료 여부를 확인하는 주기
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30); // 종료 시 남은 회원을 저장하며 기다리는 최대 시간
+
+    private final MemberService memberService;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatch;
+    private final long flushIntervalNanos;
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile boolean stopped; // 쓰기 스레드가 마지막으로 큐를 비우기 직전에 켠다
+
+    private final LatencyHistogram batchSizes = new LatencyHistogram(); // batch 하나의 회원 수 (ns가 아닌 명)
+    private final LatencyHistogram commitLatency = new LatencyHistogram(); // batch 하나를 저장하고 커밋하기까지 (ns)
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retriedBatches = new LongAdder(); // 한 명씩 다시 저장한 batch
+
+    public MemberWriteBehind(MemberService memberService, int capacity, int maxBatch, Duration flushInterval) {
+        if (capacity < 1 || maxBatch < 1) {
+            throw new IllegalArgumentException("capacity, maxBatch는 1 이상이어야 합니다.");
+        }
+        this.memberService = memberService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.writer = new Thread(this::run, "member-write-behind");
+        writer.start();
+    }
+
+    /**
+     * 회원을 큐에 넣는다, 저장(커밋)되면 id로 완료되고 이미 있는 이름이면 IllegalStateException으로 실패한다
+     */
+    public CompletableFuture<Long> join(Member member) {
+        Pending pending = new Pending(member);
+        if (closed) {
+            pending.future.completeExceptionally(new IllegalStateException("회원 저장을 종료하는 중입니다."));
+            return pending.future;
+        }
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.future.completeExceptionally(e);
+            return pending.future;
+        }
+        // 쓰기 스레드가 마지막으로 큐를 비운 뒤에 넣었다면 저장될 수 없으므로 꺼내서 실패시킨다
+        // (그 전에 넣었다면 쓰기 스레드가 꺼내서 실패시키므로 remove가 false)
+        if (stopped && queue.remove(pending)) {
+            pending.future.completeExceptionally(new IllegalStateException("회원 저장을 종료하는 중입니다."));
+        }
+        return pending.future;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        try {
+            while (true) {
+                Pending first = queue.poll(CLOSE_CHECK_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed && queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("member write-behind interrupted, {} pending members not written", queue.size() + batch.size());
+        } finally {
+            // stopped를 켠 뒤 큐를 비우므로, 이후에 들어온 회원은 join이 직접 꺼내서 실패시킨다
+            stopped = true;
+            queue.drainTo(batch);
+            for (Pending pending : batch) {
+                if (!pending.future.isDone()) {
+                    fail(pending, new IllegalStateException("회원 저장을 종료하는 중입니다."));
+                }
+            }
+        }
+    }
+
+    // 첫 회원을 꺼낸 뒤 flushInterval 동안 maxBatch명까지 더 모은다 (종료 중이면 기다리지 않는다)
+    private void collect(List<Pending> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < maxBatch) {
+            queue.drainTo(batch, maxBatch - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() == maxBatch || remaining <= 0 || closed) {
+                return;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        // 같은 batch 안에서 이름이 겹치면 먼저 들어온 회원만 저장
+        Set<String> names = new HashSet<>();
+        List<Pending> unique = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            if (names.add(pending.member.getName())) {
+                unique.add(pending);
+            } else {
+                fail(pending, new IllegalStateException("이미 존재하는 회원입니다."));
+            }
+        }
+        if (unique.isEmpty()) {
+            return;
+        }
+
+        List<Member> members = new ArrayList<>(unique.size());
+        for (Pending pending : unique) {
+            members.add(pending.member);
+        }
+        long start = System.nanoTime();
+        List<Long> ids;
+        try {
+            ids = memberService.joinAll(members);
+        } catch (RuntimeException e) {
+            retry(unique);
+            return;
+        }
+        commitLatency.record(System.nanoTime() - start);
+        batchSizes.record(unique.size());
+        written.add(unique.size());
+        for (int i = 0; i < unique.size(); i++) {
+            unique.get(i).future.complete(ids.get(i));
+        }
+    }
+
+    // batch가 롤백되었으므로 한 명씩 따로 저장해 실패한 회원만 가려낸다
+    private void retry(List<Pending> batch) {
+        retriedBatches.increment();
+        for (Pending pending : batch) {
+            pending.member.setId(null); // 롤백된 batch에서 받은 id는 쓰지 않는다 (JPA가 새 엔티티로 보도록)
+            long start = System.nanoTime();
+            try {
+                Long id = memberService.join(pending.member);
+                commitLatency.record(System.nanoTime() - start);
+                batchSizes.record(1);
+                written.increment();
+                pending.future.complete(id);
+            } catch (RuntimeException e) {
+                fail(pending, e);
+            }
+        }
+    }
+
+    private void fail(Pending pending, RuntimeException e) {
+        failed.increment();
+        pending.future.completeExceptionally(e);
+    }
+
+    /**
+     * 새 가입을 받지 않고, 큐에 남은 회원을 모두 저장할 때까지 기다린다
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join(DRAIN_TIMEOUT.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            logger.warn("member write-behind did not drain in {}, {} members left", DRAIN_TIMEOUT, queue.size());
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    public LatencyHistogram.Snapshot getBatchSizes() {
+        return batchSizes.snapshot();
+    }
+
+    public LatencyHistogram.Snapshot getCommitLatency() {
+        return commitLatency.snapshot();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getRetriedBatches() {
+        return retriedBatches.sum();
+    }
+
+    private static final class Pending {
+
+        final Member member;
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        Pending(Member member) {
+            this.member = member;
+        }
+    }
+}
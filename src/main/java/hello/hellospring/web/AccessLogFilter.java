@@ -0,0 +1,287 @@
+package hello.hellospring.web;
+
+import hello.hellospring.aop.AccessLogWriter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 접근 로그: 응답이 끝난 뒤의 status와 본문 크기로 AccessLogWriter에 기록한다
+ *
+ * 가장 바깥 filter라 ResponseCacheFilter가 캐시에서 바로 돌려준 응답과 304도 기록한다.
+ * 비동기 요청은 AsyncContext가 끝날 때, sendError나 예외로 오류 페이지를 렌더링하는 요청은 error dispatch가 끝날 때 기록한다.
+ */
+@Component
+public class AccessLogFilter extends OncePerRequestFilter implements Ordered {
+
+    private static final String ENTRY_ATTRIBUTE = AccessLogFilter.class.getName() + ".entry";
+
+    private final AccessLogWriter accessLogWriter;
+
+    public AccessLogFilter(AccessLogWriter accessLogWriter) {
+        this.accessLogWriter = accessLogWriter;
+    }
+
+    // 다른 filter(응답 캐시 등)보다 바깥에서 감싼다 (CharacterEncodingFilter 바로 다음)
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+
+    // 오류 페이지 본문도 센다
+    @Override
+    protected boolean shouldNotFilterErrorDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Entry entry = (Entry) request.getAttribute(ENTRY_ATTRIBUTE);
+        boolean errorDispatch = request.getDispatcherType() == DispatcherType.ERROR;
+        if (entry == null) {
+            if (errorDispatch) {
+                chain.doFilter(request, response); // 이 filter를 거치지 않은 요청의 오류 페이지
+                return;
+            }
+            entry = new Entry(System.nanoTime());
+            request.setAttribute(ENTRY_ATTRIBUTE, entry);
+        }
+        CountingResponse counting = new CountingResponse(response, entry);
+        boolean failed = true;
+        try {
+            chain.doFilter(request, counting);
+            failed = false;
+        } finally {
+            if (request.isAsyncStarted() && !entry.async) {
+                // 비동기 요청은 (오류 페이지까지 포함해) AsyncContext가 끝날 때 기록한다
+                entry.async = true;
+                request.getAsyncContext().addListener(new CompleteListener(request, counting, entry));
+            } else if (!entry.async && (errorDispatch || !rendersErrorPage(response, counting, failed))) {
+                log(request, counting, entry);
+            }
+        }
+    }
+
+    // sendError나 응답을 보내기 전의 예외로 끝나면 컨테이너가 오류 페이지를 렌더링한다 (그 error dispatch에서 기록한다)
+    // (sendError 뒤에는 Tomcat의 isCommitted가 true이므로 sendError 여부를 따로 본다)
+    private static boolean rendersErrorPage(HttpServletResponse response, CountingResponse counting, boolean failed) {
+        return counting.errorSent || (failed && !response.isCommitted());
+    }
+
+    private void log(HttpServletRequest request, HttpServletResponse response, Entry entry) {
+        if (entry.logged) {
+            return;
+        }
+        entry.logged = true;
+        // 기록은 링 버퍼에 넣기만 하고, 파일 쓰기는 drainer 스레드가 한다
+        accessLogWriter.log(request.getMethod(), request.getRequestURI(), response.getStatus(),
+                System.nanoTime() - entry.start, entry.bytes);
+    }
+
+    // 요청 하나의 기록 (한 번에 한 스레드만 쓴다: 요청 스레드, async dispatch, error dispatch 순서로 이어진다)
+    private static final class Entry {
+
+        final long start;
+        long bytes;
+        boolean async;
+        boolean logged;
+
+        Entry(long start) {
+            this.start = start;
+        }
+    }
+
+    private final class CompleteListener implements AsyncListener {
+
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final Entry entry;
+
+        CompleteListener(HttpServletRequest request, HttpServletResponse response, Entry entry) {
+            this.request = request;
+            this.response = response;
+            this.entry = entry;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            log(request, response, entry);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    // 본문 바이트 수를 센다 (버퍼 없이 바로 넘기므로 flush 시점은 그대로다)
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+
+        private final Entry entry;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+        private boolean errorSent;
+
+        CountingResponse(HttpServletResponse response, Entry entry) {
+            super(response);
+            this.entry = entry;
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            errorSent = true;
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            errorSent = true;
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new CountingOutputStream(super.getOutputStream(), entry);
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                Charset charset = Charset.forName(getCharacterEncoding());
+                writer = new PrintWriter(new CountingWriter(super.getWriter(), charset, entry));
+            }
+            return writer;
+        }
+    }
+
+    private static final class CountingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream out;
+        private final Entry entry;
+
+        CountingOutputStream(ServletOutputStream out, Entry entry) {
+            this.out = out;
+            this.entry = entry;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            entry.bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            entry.bytes += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return out.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            out.setWriteListener(writeListener);
+        }
+    }
+
+    // 컨테이너의 writer에 그대로 넘기고, 인코딩한 바이트 수만 더한다 (UTF-8은 인코딩하지 않고 센다)
+    private static final class CountingWriter extends Writer {
+
+        private final Writer out;
+        private final Charset charset;
+        private final boolean utf8;
+        private final Entry entry;
+
+        CountingWriter(Writer out, Charset charset, Entry entry) {
+            this.out = out;
+            this.charset = charset;
+            this.utf8 = charset.equals(StandardCharsets.UTF_8);
+            this.entry = entry;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+            if (utf8) {
+                for (int i = off; i < off + len; i++) {
+                    entry.bytes += utf8Length(cbuf[i]);
+                }
+            } else {
+                entry.bytes += new String(cbuf, off, len).getBytes(charset).length;
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.write(str, off, len);
+            if (utf8) {
+                for (int i = off; i < off + len; i++) {
+                    entry.bytes += utf8Length(str.charAt(i));
+                }
+            } else {
+                entry.bytes += str.substring(off, off + len).getBytes(charset).length;
+            }
+        }
+
+        // surrogate 한 쌍이 4바이트이므로 한 쪽을 2바이트로 센다
+        private static int utf8Length(char c) {
+            if (c < 0x80) {
+                return 1;
+            }
+            if (c < 0x800 || Character.isSurrogate(c)) {
+                return 2;
+            }
+            return 3;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
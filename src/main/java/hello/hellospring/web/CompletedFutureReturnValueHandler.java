@@ -0,0 +1,70 @@
+package hello.hellospring.web;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.DeferredResultMethodReturnValueHandler;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ViewNameMethodReturnValueHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * controller가 이미 끝난 CompletableFuture(view 이름)를 돌려주면 비동기 요청을 시작하지 않고 바로 렌더링한다
+ *
+ * memberExecutor가 SyncTaskExecutor라 MemberController가 돌려주는 future는 이미 끝나 있다.
+ * 기본 처리는 끝난 future도 비동기 요청을 시작하고 async dispatch로 한 번 더 filter·DispatcherServlet을 지나므로,
+ * 그 왕복 없이 String을 돌려준 것과 같게 처리한다.
+ * 아직 끝나지 않은 future(write-behind)는 기본 처리(DeferredResultMethodReturnValueHandler)로 넘긴다.
+ */
+@Component
+public class CompletedFutureReturnValueHandler implements HandlerMethodReturnValueHandler {
+
+    private final HandlerMethodReturnValueHandler async = new DeferredResultMethodReturnValueHandler();
+    private final HandlerMethodReturnValueHandler viewName = new ViewNameMethodReturnValueHandler();
+
+    // 기본 처리보다 먼저 고르도록 맨 앞에 넣는다 (WebMvcConfigurer로 추가하면 기본 처리 뒤에 붙는다)
+    public CompletedFutureReturnValueHandler(RequestMappingHandlerAdapter handlerAdapter) {
+        List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>();
+        handlers.add(this);
+        handlers.addAll(handlerAdapter.getReturnValueHandlers());
+        handlerAdapter.setReturnValueHandlers(handlers);
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        return CompletionStage.class.isAssignableFrom(returnType.getParameterType())
+                && !returnType.hasMethodAnnotation(ResponseBody.class)
+                && !AnnotatedElementUtils.hasAnnotation(returnType.getContainingClass(), ResponseBody.class);
+    }
+
+    @Override
+    public void handleReturnValue(Object returnValue, MethodParameter returnType,
+                                  ModelAndViewContainer mavContainer, NativeWebRequest webRequest) throws Exception {
+        if (returnValue instanceof CompletableFuture && ((CompletableFuture<?>) returnValue).isDone()) {
+            Object result;
+            try {
+                result = ((CompletableFuture<?>) returnValue).join();
+            } catch (CompletionException e) {
+                // 예외도 String을 돌려주는 controller처럼 요청 스레드에서 바로 던진다 (@ExceptionHandler, 오류 페이지)
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            }
+            if (result instanceof CharSequence) {
+                viewName.handleReturnValue(result, returnType, mavContainer, webRequest);
+                return;
+            }
+        }
+        async.handleReturnValue(returnValue, returnType, mavContainer, webRequest);
+    }
+}
@@ -0,0 +1,75 @@
+package hello.hellospring.web;
+
+import hello.hellospring.datasource.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * 요청을 보낸 클라이언트를 ReplicaRoutingDataSource의 Writer로 건다 (read-your-writes 창을 클라이언트마다 둔다)
+ *
+ * 마지막 쓰기 시각은 쿠키에 담아 주고받으므로 세션이 없고, 다른 인스턴스로 가는 다음 요청도 primary에서 읽는다.
+ * 쓰기 요청(GET/HEAD/OPTIONS 외)은 받자마자 쓴 것으로 표시한다:
+ * write-behind처럼 다른 스레드에서 커밋되는 쓰기는 요청의 Writer가 알 수 없기 때문이다.
+ */
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "last-write";
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaRouting; // datasource.replica.enabled=false면 없음
+
+    public ReadYourWritesFilter(ObjectProvider<ReplicaRoutingDataSource> replicaRouting) {
+        this.replicaRouting = replicaRouting;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ReplicaRoutingDataSource routing = replicaRouting.getIfAvailable();
+        if (routing == null || routing.getReadYourWritesWindow().isZero()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long windowSeconds = routing.getReadYourWritesWindow().toSeconds() + 1; // 창이 끝나면 쿠키도 사라진다
+        ReplicaRoutingDataSource.Writer writer = routing.begin(lastWrite(request), now -> {
+            if (!response.isCommitted()) {
+                Cookie cookie = new Cookie(COOKIE, Long.toString(now));
+                cookie.setPath("/");
+                cookie.setHttpOnly(true);
+                cookie.setMaxAge((int) windowSeconds);
+                response.addCookie(cookie);
+            }
+        });
+        try {
+            if (!SAFE_METHODS.contains(request.getMethod())) {
+                writer.written();
+            }
+            chain.doFilter(request, response);
+        } finally {
+            routing.end();
+        }
+    }
+
+    private static long lastWrite(HttpServletRequest request) {
+        Cookie cookie = WebUtils.getCookie(request, COOKIE);
+        if (cookie == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(cookie.getValue());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package hello.hellospring.web;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * GET 응답 캐시 (경로 + 파라미터 → 렌더링된 본문)
+ *
+ * 회원이 가입하면 ResponseCacheAop가 전체를 비운다.
+ * 비우는 순간 렌더링 중이던 응답은 가입 전 데이터일 수 있으므로, 응답을 렌더링 시작 시점의 세대(generation)와 함께 저장하고
+ * 읽을 때 현재 세대와 다르면 버린다. 세대 확인과 저장 사이에 비워져도 이전 세대의 응답은 내보내지 않는다.
+ */
+@Component
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+public class ResponseCache {
+
+    private final ResponseCacheProperties properties;
+    private final Cache<String, Entry> cache;
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ResponseCache(ResponseCacheProperties properties) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumSize().toBytes())
+                .weigher((String key, Entry entry) -> key.length() + entry.response.body.length)
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+    }
+
+    boolean isCached(String path) {
+        return properties.isEnabled() && properties.getPaths().contains(path);
+    }
+
+    CachedResponse get(String key) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.generation != generation.get()) {
+            cache.asMap().remove(key, entry); // 비우기 전에 렌더링한 응답
+            return null;
+        }
+        return entry.response;
+    }
+
+    long generation() {
+        return generation.get();
+    }
+
+    // 렌더링을 시작할 때의 세대와 함께 저장 (이미 비워졌으면 저장하지 않는다)
+    void put(String key, CachedResponse response, long renderedGeneration) {
+        if (generation.get() == renderedGeneration) {
+            cache.put(key, new Entry(response, renderedGeneration));
+        }
+    }
+
+    void recordNotModified() {
+        notModified.increment();
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        invalidations.increment();
+        cache.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long getSize() {
+        return cache.estimatedSize();
+    }
+
+    public long getNotModified() {
+        return notModified.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    private static class Entry {
+
+        final CachedResponse response;
+        final long generation;
+
+        Entry(CachedResponse response, long generation) {
+            this.response = response;
+            this.generation = generation;
+        }
+    }
+
+    static class CachedResponse {
+
+        final String contentType; // charset 포함
+        final byte[] body;
+        final String etag;
+        final long lastModified; // 초 단위로 자른 저장 시각 (HTTP 날짜 헤더 정밀도)
+
+        CachedResponse(String contentType, byte[] body, String etag, long lastModified) {
+            this.contentType = contentType;
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package hello.hellospring.web;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * GET 응답 캐시 + 조건부 요청 (ETag / Last-Modified)
+ *
+ * response-cache.paths의 GET 요청은 경로와 파라미터로 캐시를 찾고, 있으면 controller와 템플릿 렌더링 없이
+ * 저장된 본문(또는 304)을 바로 돌려준다. 없으면 렌더링된 본문을 저장하고 ETag(본문 MD5)를 붙인다.
+ * 비동기 controller(/members)는 async dispatch에서 본문이 완성되므로 그때 저장한다.
+ */
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final String RENDER_ATTRIBUTE = ResponseCacheFilter.class.getName() + ".render";
+
+    private final ResponseCache responseCache;
+
+    public ResponseCacheFilter(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Render render;
+        if (isAsyncDispatch(request)) {
+            render = (Render) request.getAttribute(RENDER_ATTRIBUTE);
+            if (render == null) {
+                chain.doFilter(request, response);
+                return;
+            }
+        } else {
+            String path = request.getRequestURI().substring(request.getContextPath().length());
+            if (!"GET".equals(request.getMethod()) || !responseCache.isCached(path)) {
+                chain.doFilter(request, response);
+                return;
+            }
+            String key = key(path, request);
+            ResponseCache.CachedResponse cached = responseCache.get(key);
+            if (cached != null) {
+                writeCached(request, response, cached);
+                return;
+            }
+            render = new Render(key, responseCache.generation());
+            request.setAttribute(RENDER_ATTRIBUTE, render);
+        }
+
+        ContentCachingResponseWrapper wrapper = WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+        if (wrapper == null) {
+            wrapper = new ContentCachingResponseWrapper(response);
+        }
+        chain.doFilter(request, wrapper);
+        if (isAsyncStarted(request)) {
+            return; // 본문은 async dispatch에서 완성된다
+        }
+
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK && !wrapper.containsHeader(HttpHeaders.SET_COOKIE)) {
+            byte[] body = wrapper.getContentAsByteArray();
+            ResponseCache.CachedResponse rendered = new ResponseCache.CachedResponse(wrapper.getContentType(), body,
+                    "\"" + DigestUtils.md5DigestAsHex(body) + "\"", System.currentTimeMillis() / 1000 * 1000);
+            responseCache.put(render.key, rendered, render.generation);
+            setValidators(wrapper, rendered);
+            if (isNotModified(request, rendered)) {
+                responseCache.recordNotModified();
+                wrapper.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                wrapper.resetBuffer();
+            }
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    // 경로 + 이름 순으로 정렬한 파라미터 (같은 파라미터를 다른 순서로 보내도 같은 키)
+    private String key(String path, HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(path);
+        for (Map.Entry<String, String[]> param : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            for (String value : param.getValue()) {
+                key.append('\0').append(param.getKey()).append('=').append(value);
+            }
+        }
+        return key.toString();
+    }
+
+    private void writeCached(HttpServletRequest request, HttpServletResponse response,
+                             ResponseCache.CachedResponse cached) throws IOException {
+        setValidators(response, cached);
+        if (isNotModified(request, cached)) {
+            responseCache.recordNotModified();
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(cached.contentType);
+        response.setContentLength(cached.body.length);
+        response.getOutputStream().write(cached.body);
+    }
+
+    // 브라우저도 저장은 하되 매번 ETag로 확인하게 한다 (가입 직후 목록이 바로 보이도록)
+    private void setValidators(HttpServletResponse response, ResponseCache.CachedResponse cached) {
+        response.setHeader(HttpHeaders.ETAG, cached.etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, cached.lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+    }
+
+    // If-None-Match가 있으면 그것만 본다 (RFC 7232)
+    private boolean isNotModified(HttpServletRequest request, ResponseCache.CachedResponse cached) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(cached.etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return ifModifiedSince != -1 && ifModifiedSince >= cached.lastModified;
+        } catch (IllegalArgumentException e) {
+            return false; // 날짜 형식이 아니면 무시
+        }
+    }
+
+    // 첫 dispatch에서 정한 캐시 키와 렌더링 시작 시점의 세대 (async dispatch까지 들고 간다)
+    private static class Render {
+
+        final String key;
+        final long generation;
+
+        Render(String key, long generation) {
+            this.key = key;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package hello.hellospring.web;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * application.properties의 response-cache.* 설정
+ */
+@ConfigurationProperties(prefix = "response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled = true;
+    private List<String> paths = new ArrayList<>(); // 캐시할 GET 경로 (정확히 일치)
+    private DataSize maximumSize = DataSize.ofMegabytes(16); // 저장한 응답 본문 크기 합의 상한
+    private Duration ttl = Duration.ofMinutes(1); // 다른 인스턴스에서 가입한 회원은 무효화가 안 되므로 이 시간까지만 보관
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public void setPaths(List<String> paths) {
+        this.paths = paths;
+    }
+
+    public DataSize getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(DataSize maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+}
@@ -0,0 +1,75 @@
+package hello.hellospring.web;
+
+import hello.hellospring.datasource.SqlMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 요청 하나 동안 실행한 SQL을 SqlMetrics에 요청 단위로 모은다
+ *
+ * controller가 아직 끝나지 않은 future를 돌려줘 비동기 요청이 되면(write-behind 가입) 요청 스레드를 놓을 때가 아니라
+ * 결과를 렌더링하는 async dispatch가 끝날 때 합산을 마친다.
+ * write-behind 저장처럼 요청과 상관없는 스레드에서 실행한 SQL은 SQL별 통계에만 들어간다.
+ */
+@Component
+public class SqlMetricsFilter extends OncePerRequestFilter {
+
+    private static final String STATS_ATTRIBUTE = SqlMetricsFilter.class.getName() + ".stats";
+    private static final String START_ATTRIBUTE = SqlMetricsFilter.class.getName() + ".start";
+
+    private final ObjectProvider<SqlMetrics> sqlMetrics; // sql-metrics.enabled=false면 없음
+
+    public SqlMetricsFilter(ObjectProvider<SqlMetrics> sqlMetrics) {
+        this.sqlMetrics = sqlMetrics;
+    }
+
+    // 비동기 요청은 async dispatch에서 마무리한다
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlMetrics metrics = sqlMetrics.getIfAvailable();
+        if (metrics == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        SqlMetrics.RequestStats stats;
+        long start;
+        if (isAsyncDispatch(request)) {
+            stats = (SqlMetrics.RequestStats) request.getAttribute(STATS_ATTRIBUTE);
+            if (stats == null) {
+                chain.doFilter(request, response);
+                return;
+            }
+            start = (Long) request.getAttribute(START_ATTRIBUTE);
+            metrics.resume(stats);
+        } else {
+            stats = metrics.begin();
+            start = System.nanoTime();
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.setAttribute(STATS_ATTRIBUTE, stats);
+                request.setAttribute(START_ATTRIBUTE, start);
+                metrics.suspend();
+            } else {
+                request.removeAttribute(STATS_ATTRIBUTE);
+                request.removeAttribute(START_ATTRIBUTE);
+                metrics.end(stats, request.getMethod(), request.getRequestURI(), System.nanoTime() - start);
+            }
+        }
+    }
+}
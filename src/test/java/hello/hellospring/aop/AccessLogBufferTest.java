@@ -0,0 +1,64 @@
+package hello.hellospring.aop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessLogBufferTest {
+
+    @Test
+    public void dropWhenFull() {
+        AccessLogBuffer buffer = new AccessLogBuffer(4, AccessLogBuffer.OverflowPolicy.DROP);
+
+        for (int i = 0; i < 6; i++) {
+            buffer.offer("GET", "/members/" + i, 200, i, -1);
+        }
+
+        // 4개만 들어가고 나머지 2개는 버려진다
+        List<String> uris = new ArrayList<>();
+        buffer.drain((timestamp, method, uri, status, durationNanos, bytes) -> uris.add(uri), 100);
+        assertThat(uris).containsExactly("/members/0", "/members/1", "/members/2", "/members/3");
+        assertThat(buffer.getDropped()).isEqualTo(2);
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    public void blockUntilDrained() throws InterruptedException {
+        AccessLogBuffer buffer = new AccessLogBuffer(8, AccessLogBuffer.OverflowPolicy.BLOCK);
+        int producers = 8;
+        int perProducer = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+
+        // 버퍼보다 훨씬 많은 레코드를 여러 스레드가 동시에 넣는다
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            executor.submit(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    buffer.offer("GET", "/p" + producer, 200, i, -1);
+                }
+            });
+        }
+        executor.shutdown();
+
+        // 하나도 버려지지 않고, 스레드별로는 넣은 순서대로 나온다
+        Map<String, Long> lastDuration = new HashMap<>();
+        long[] drained = {0};
+        while (drained[0] < (long) producers * perProducer) {
+            buffer.drain((timestamp, method, uri, status, durationNanos, bytes) -> {
+                Long previous = lastDuration.put(uri, durationNanos);
+                assertThat(durationNanos).isEqualTo(previous == null ? 0 : previous + 1);
+                drained[0]++;
+            }, 64);
+        }
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(buffer.getDropped()).isZero();
+    }
+}
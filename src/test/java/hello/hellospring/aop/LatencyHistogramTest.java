@@ -0,0 +1,46 @@
+package hello.hellospring.aop;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void bucketBounds() {
+        // 모든 값은 자기가 속한 버킷의 상한 이하여야 하고, 상한과의 차이는 약 6% 이내
+        for (long value = 0; value < 10_000_000L; value = value * 3 / 2 + 1) {
+            long upper = LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(value));
+            assertThat(upper).isGreaterThanOrEqualTo(value);
+            assertThat((double) upper).isCloseTo(value, within(value * 0.0625 + 1));
+        }
+    }
+
+    @Test
+    public void percentiles() {
+        // 1µs ~ 1000µs 를 한 번씩 기록
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getCount()).isEqualTo(1000);
+        assertThat(snapshot.getMax()).isEqualTo(1_000_000);
+        assertThat((double) snapshot.getP50()).isCloseTo(500_000, within(500_000 * 0.0625));
+        assertThat((double) snapshot.getP99()).isCloseTo(990_000, within(990_000 * 0.0625));
+        assertThat(snapshot.getP999()).isLessThanOrEqualTo(snapshot.getMax());
+    }
+
+    @Test
+    public void reset() {
+        histogram.record(1000);
+        histogram.reset();
+
+        assertThat(histogram.snapshot().getCount()).isZero();
+        assertThat(histogram.snapshot().getMax()).isZero();
+    }
+}
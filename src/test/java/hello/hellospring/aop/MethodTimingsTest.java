@@ -0,0 +1,26 @@
+package hello.hellospring.aop;
+
+import hello.hellospring.service.MemberService;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MethodTimingsTest {
+
+    MethodTimings methodTimings = new MethodTimings(new TimeTraceProperties());
+
+    @Test
+    public void separatesOverloadsAndSameSimpleNames() throws NoSuchMethodException {
+        // 오버로드, 단순 이름이 같은 다른 패키지의 클래스는 서로 다른 줄로 보인다
+        methodTimings.timerFor(String.class.getMethod("valueOf", int.class)).histogram.record(1);
+        methodTimings.timerFor(String.class.getMethod("valueOf", long.class)).histogram.record(1);
+        methodTimings.timerFor(java.util.List.class.getMethod("size")).histogram.record(1);
+        methodTimings.timerFor(java.awt.List.class.getMethod("getItemCount")).histogram.record(1);
+        methodTimings.timerFor(MemberService.class.getMethod("findMembers")).histogram.record(1);
+
+        assertThat(methodTimings.snapshots()).containsOnlyKeys(
+                "java.lang.String.valueOf(int)", "java.lang.String.valueOf(long)",
+                "java.util.List.size()", "java.awt.List.getItemCount()",
+                "hello.hellospring.service.MemberService.findMembers()");
+    }
+}
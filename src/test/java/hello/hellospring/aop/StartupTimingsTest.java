@@ -0,0 +1,45 @@
+package hello.hellospring.aop;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StartupTimingsTest {
+
+    BufferingApplicationStartup startup = new BufferingApplicationStartup(100);
+
+    @Test
+    public void selfTimeExcludesNestedBeans() throws InterruptedException {
+        // a를 만들다가 a가 의존하는 b를 만든다: a 자신 10ms, b 30ms
+        StartupStep a = startup.start("spring.beans.instantiate").tag("beanName", "a");
+        Thread.sleep(10);
+        StartupStep b = startup.start("spring.beans.instantiate").tag("beanName", "b");
+        Thread.sleep(30);
+        b.end();
+        a.end();
+        startup.start("spring.context.refresh").end();
+
+        StartupTimings.Report report = StartupTimings.createReport(startup.getBufferedTimeline(), 1234, 10);
+
+        assertThat(report.getJvmUptimeMs()).isEqualTo(1234);
+        assertThat(report.getSteps()).isEqualTo(3);
+        assertThat(report.getBeans()).extracting(StartupTimings.Bean::getName).containsExactly("b", "a");
+        StartupTimings.Bean beanA = report.getBeans().get(1);
+        StartupTimings.Bean beanB = report.getBeans().get(0);
+        assertThat(beanA.getTotalMs()).isGreaterThanOrEqualTo(40);
+        assertThat(beanA.getSelfMs()).isLessThan(beanB.getSelfMs());
+        assertThat(report.getPhases().get(0).getName()).isEqualTo("spring.beans.instantiate");
+        assertThat(report.getPhases().get(0).getCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void topBeans() {
+        for (int i = 0; i < 5; i++) {
+            startup.start("spring.beans.instantiate").tag("beanName", "bean" + i).end();
+        }
+
+        assertThat(StartupTimings.createReport(startup.getBufferedTimeline(), 0, 3).getBeans()).hasSize(3);
+    }
+}
@@ -0,0 +1,125 @@
+package hello.hellospring.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    DataSource primary = new NamedDataSource("primary");
+    DataSource replica1 = new NamedDataSource("replica1");
+    DataSource replica2 = new NamedDataSource("replica2");
+
+    @AfterEach
+    public void afterEach() {
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    public void readOnlyTransactionsRoundRobinOverReplicas() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(Duration.ZERO, replica1, replica2);
+
+        // 트랜잭션 밖, 쓰기 트랜잭션은 primary
+        assertThat(routing.getConnection().toString()).isEqualTo("primary");
+        beginTransaction(false);
+        assertThat(routing.getConnection().toString()).isEqualTo("primary");
+        TransactionSynchronizationManager.clear();
+
+        beginTransaction(true);
+        assertThat(routing.getConnection().toString()).isEqualTo("replica1");
+        assertThat(routing.getConnection().toString()).isEqualTo("replica2");
+        assertThat(routing.getConnection().toString()).isEqualTo("replica1");
+        assertThat(routing.getRoutedConnections()).containsEntry("replica-1", 2L).containsEntry("replica-2", 1L);
+    }
+
+    @Test
+    public void readsFromPrimaryRightAfterOwnWrite() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(Duration.ofMinutes(1), replica1);
+        List<Long> cookies = new ArrayList<>();
+
+        // 쓰기 트랜잭션이 커밋되면 쓴 클라이언트의 창 안의 읽기는 primary
+        routing.begin(0, cookies::add);
+        beginTransaction(true);
+        assertThat(routing.getConnection().toString()).isEqualTo("replica1");
+        TransactionSynchronizationManager.clear();
+
+        beginTransaction(false);
+        routing.getConnection();
+        TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        TransactionSynchronizationManager.clear();
+        assertThat(cookies).hasSize(1);
+
+        beginTransaction(true);
+        assertThat(routing.getConnection().toString()).isEqualTo("primary");
+        routing.end();
+
+        // 다른 클라이언트(또는 클라이언트가 없는 스레드)는 계속 replica에서 읽는다
+        routing.begin(0, cookies::add);
+        assertThat(routing.getConnection().toString()).isEqualTo("replica1");
+        routing.end();
+        assertThat(routing.getConnection().toString()).isEqualTo("replica1");
+
+        // 다음 요청에 쿠키로 돌아온 쓰기 시각도 창 안이면 primary
+        routing.begin(cookies.get(0), cookies::add);
+        assertThat(routing.getConnection().toString()).isEqualTo("primary");
+        routing.end();
+        assertThat(routing.getRoutedConnections()).containsEntry("primaryAfterWrite", 2L);
+    }
+
+    @Test
+    public void fallsBackToPrimaryWhenReplicaFails() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(Duration.ZERO, new NamedDataSource(null));
+
+        beginTransaction(true);
+        assertThat(routing.getConnection().toString()).isEqualTo("primary");
+        assertThat(routing.getRoutedConnections()).containsEntry("primaryFallback", 1L);
+    }
+
+    private ReplicaRoutingDataSource routing(Duration readYourWritesWindow, DataSource... replicas) {
+        return new ReplicaRoutingDataSource(primary, List.of(replicas),
+                ReplicaRoutingDataSource.Selection.ROUND_ROBIN, readYourWritesWindow);
+    }
+
+    // JpaTransactionManager가 트랜잭션을 시작할 때 하는 것과 같이 동기화와 readOnly 표시를 건다
+    private static void beginTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    // toString이 이름인 커넥션을 주는 DataSource (이름이 null이면 커넥션을 주지 못한다)
+    static class NamedDataSource extends AbstractDataSource {
+
+        private final String name;
+
+        NamedDataSource(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (name == null) {
+                throw new SQLException("connection refused");
+            }
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> method.getName().equals("toString") ? name : null);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package hello.hellospring.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlMetricsTest {
+
+    SqlMetrics metrics = metrics();
+    SqlMetricsDataSource dataSource = new SqlMetricsDataSource(new StubDataSource(), metrics);
+
+    @Test
+    public void normalizesLiteralsAndInLists() {
+        assertThat(SqlMetrics.normalize("select  * from member\n where id = 42 and name = 'it''s'"))
+                .isEqualTo("select * from member where id = ? and name = ?");
+        assertThat(SqlMetrics.normalize("select m1_.id from member m1_ where m1_.id in (?, ?,?) limit 20"))
+                .isEqualTo("select m1_.id from member m1_ where m1_.id in (...) limit ?");
+        assertThat(SqlMetrics.normalize("select * from member where id IN (?)"))
+                .isEqualTo(SqlMetrics.normalize("select * from member where id in (?, ?, ?, ?)"));
+    }
+
+    @Test
+    public void recordsStatementsAndRowsPerQuery() throws SQLException {
+        select("select * from member where id = ?");
+        select("select * from member where id = ?");
+        select("select * from member where id = 3"); // 리터럴만 다른 SQL은 같은 통계로 모인다
+        update("update member set name = ? where id = ?");
+
+        List<SqlMetrics.QueryStats> top = metrics.top(SqlMetrics.Sort.COUNT, 10);
+        assertThat(top).hasSize(2);
+        assertThat(top.get(0).getSql()).isEqualTo("select * from member where id = ?");
+        assertThat(top.get(0).getCount()).isEqualTo(3);
+        assertThat(top.get(0).getRows()).isEqualTo(3 * StubDataSource.ROWS);
+        assertThat(top.get(1).getRows()).isEqualTo(StubDataSource.UPDATED);
+        assertThat(metrics.getAcquire().getCount()).isEqualTo(4);
+    }
+
+    @Test
+    public void flagsRequestsOverBudget() throws SQLException {
+        SqlMetrics.RequestStats request = metrics.begin();
+        select("select * from member where id = ?");
+        metrics.end(request, "GET", "/members/1", 1_000_000);
+
+        request = metrics.begin();
+        for (int i = 0; i < 3; i++) {
+            select("select * from member where id = ?");
+        }
+        update("update member set name = ? where id = ?");
+        metrics.end(request, "GET", "/members", 1_000_000);
+
+        // repeat-threshold=3, statement-budget=3
+        assertThat(request.getStatements()).isEqualTo(4);
+        assertThat(request.getRows()).isEqualTo(3 * StubDataSource.ROWS + StubDataSource.UPDATED);
+        List<SqlMetrics.FlaggedRequest> flagged = metrics.getFlaggedRequests();
+        assertThat(flagged).hasSize(1);
+        assertThat(flagged.get(0).getUri()).isEqualTo("/members");
+        assertThat(flagged.get(0).getReasons()).hasSize(2)
+                .anyMatch(reason -> reason.startsWith("statements 4"))
+                .anyMatch(reason -> reason.startsWith("N+1 3x select * from member"));
+        assertThat(metrics.getRequests()).isEqualTo(2);
+    }
+
+    private void select(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, 1);
+            int rows = 0;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    rows++;
+                }
+            }
+            assertThat(rows).isEqualTo(StubDataSource.ROWS);
+        }
+    }
+
+    private void update(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            assertThat(statement.executeUpdate()).isEqualTo(StubDataSource.UPDATED);
+        }
+    }
+
+    private static SqlMetrics metrics() {
+        SqlMetrics metrics = new SqlMetrics();
+        metrics.setEnvironment(new MockEnvironment()
+                .withProperty("sql-metrics.statement-budget", "3")
+                .withProperty("sql-metrics.repeat-threshold", "3"));
+        return metrics;
+    }
+
+    // select는 ROWS행, update는 UPDATED행을 돌려주는 가짜 DB
+    static class StubDataSource extends AbstractDataSource {
+
+        static final int ROWS = 5;
+        static final int UPDATED = 7;
+
+        @Override
+        public Connection getConnection() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("prepareStatement")) {
+                            return statement();
+                        }
+                        return null;
+                    });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            return getConnection();
+        }
+
+        private static PreparedStatement statement() {
+            return (PreparedStatement) Proxy.newProxyInstance(StubDataSource.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "executeQuery":
+                                return resultSet(ROWS);
+                            case "executeUpdate":
+                                return UPDATED;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private static ResultSet resultSet(int rows) {
+            int[] remaining = {rows};
+            return (ResultSet) Proxy.newProxyInstance(StubDataSource.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("next")) {
+                            return remaining[0]-- > 0;
+                        }
+                        return null;
+                    });
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.Member;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingMemberRepositoryTest {
+
+    MemoryMemberRepository target = new MemoryMemberRepository();
+    MemberCache cache = new MemberCache(100, Duration.ofMinutes(1));
+    CachingMemberRepository repository = new CachingMemberRepository(target, cache);
+
+    @Test
+    public void writeThrough() {
+        Member member = new Member();
+        member.setName("spring");
+        repository.save(member);
+
+        // 저장하면서 캐시에 들어갔으므로 조회는 모두 적중
+        assertThat(repository.findById(member.getId()).get().getName()).isEqualTo("spring");
+        assertThat(repository.findByName("spring").get().getId()).isEqualTo(member.getId());
+        assertThat(cache.getByIdStats().hitCount()).isEqualTo(1);
+        assertThat(cache.getByNameStats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void negativeCache() {
+        // 없는 이름도 캐시해서 두 번째 조회는 저장소까지 가지 않는다
+        assertThat(repository.findByName("spring")).isEmpty();
+        assertThat(repository.findByName("spring")).isEmpty();
+        assertThat(cache.getByNameStats().missCount()).isEqualTo(1);
+        assertThat(cache.getByNameStats().hitCount()).isEqualTo(1);
+
+        // 저장하면 negative 항목을 덮어쓴다
+        Member member = new Member();
+        member.setName("spring");
+        repository.save(member);
+        assertThat(repository.findByName("spring")).isPresent();
+    }
+
+    @Test
+    public void readThroughReturnsCopy() {
+        Member member = new Member();
+        member.setName("spring");
+        target.save(member);
+
+        Member found = repository.findById(member.getId()).get();
+        found.setName("changed");
+
+        // 호출한 쪽에서 바꿔도 캐시된 값은 그대로
+        assertThat(repository.findById(member.getId()).get().getName()).isEqualTo("spring");
+    }
+
+    @Test
+    public void findAllByNameIn() {
+        Member member = new Member();
+        member.setName("spring1");
+        target.save(member);
+
+        List<Member> first = repository.findAllByNameIn(List.of("spring1", "spring2"));
+        List<Member> second = repository.findAllByNameIn(List.of("spring1", "spring2"));
+
+        assertThat(first).extracting(Member::getName).containsExactly("spring1");
+        assertThat(second).extracting(Member::getName).containsExactly("spring1");
+        assertThat(cache.getByNameStats().hitCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void cachesSavedMemberOnlyAfterCommit() {
+        // 저장 전에 캐시된 "없음"은 저장할 때 지운다
+        assertThat(repository.findByName("spring")).isEmpty();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            Member member = new Member();
+            member.setName("spring");
+            repository.save(member);
+
+            // 커밋 전에는 캐시에 없다 (롤백되면 그대로 버려진다)
+            assertThat(cache.byId().getIfPresent(member.getId())).isNull();
+            assertThat(cache.byName().getIfPresent("spring")).isNull();
+
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+            assertThat(cache.byId().getIfPresent(member.getId()).getName()).isEqualTo("spring");
+            assertThat(cache.byName().getIfPresent("spring")).isPresent();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
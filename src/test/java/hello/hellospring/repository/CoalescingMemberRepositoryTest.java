@@ -0,0 +1,128 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.Member;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CoalescingMemberRepositoryTest {
+
+    AtomicInteger queries = new AtomicInteger();
+    MemoryMemberRepository target = new MemoryMemberRepository() {
+        @Override
+        public List<Member> findAllById(Collection<Long> ids) {
+            queries.incrementAndGet();
+            return super.findAllById(ids);
+        }
+
+        @Override
+        public List<Member> findAllByNameIn(Collection<String> names) {
+            queries.incrementAndGet();
+            return super.findAllByNameIn(names);
+        }
+    };
+    MemberCoalescer coalescer = new MemberCoalescer(Duration.ofMillis(200), 1000, NameCollation.EXACT);
+    CoalescingMemberRepository repository = new CoalescingMemberRepository(target, coalescer);
+
+    private List<Long> save(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Member member = new Member();
+            member.setName("spring" + i);
+            ids.add(target.save(member).getId());
+        }
+        return ids;
+    }
+
+    private <T> List<T> concurrently(List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            List<T> result = new ArrayList<>();
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                result.add(future.get());
+            }
+            return result;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void coalescesConcurrentLookups() throws Exception {
+        List<Long> ids = save(10);
+        List<Callable<Optional<Member>>> tasks = new ArrayList<>();
+        for (Long id : ids) {
+            tasks.add(() -> repository.findById(id));
+        }
+        tasks.add(() -> repository.findById(-1L));
+
+        List<Optional<Member>> found = concurrently(tasks);
+
+        for (int i = 0; i < ids.size(); i++) {
+            assertThat(found.get(i).get().getName()).isEqualTo("spring" + i);
+        }
+        assertThat(found.get(ids.size())).isEmpty();
+        // 11개 조회가 window(200ms) 안에 모여 in 쿼리 한두 번으로 끝난다
+        assertThat(queries.get()).isLessThanOrEqualTo(2);
+        assertThat(coalescer.getByIdStats().getRequests()).isEqualTo(11);
+    }
+
+    @Test
+    public void sharesInFlightResult() throws Exception {
+        save(1);
+        List<Callable<Optional<Member>>> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tasks.add(() -> repository.findByName("spring0"));
+        }
+
+        List<Optional<Member>> found = concurrently(tasks);
+
+        assertThat(found).allSatisfy(member -> assertThat(member.get().getName()).isEqualTo("spring0"));
+        assertThat(coalescer.getByNameStats().getShared()).isEqualTo(8 - coalescer.getByNameStats().getQueries());
+        // 요청마다 복사본이라 한쪽에서 바꿔도 다른 쪽은 그대로
+        found.get(0).get().setName("changed");
+        assertThat(found.get(1).get().getName()).isEqualTo("spring0");
+    }
+
+    @Test
+    public void matchesNamesByBackendCollation() throws Exception {
+        save(1);
+        List<Callable<Optional<Member>>> tasks = List.of(
+                () -> repository.findByName("spring0"), () -> repository.findByName("SPRING0"));
+
+        // 메모리 저장소는 대소문자를 구분하므로 같은 묶음에 "spring0"이 있어도 "SPRING0"은 없다
+        List<Optional<Member>> found = concurrently(tasks);
+        assertThat(found.get(0)).isPresent();
+        assertThat(found.get(1)).isEmpty();
+
+        // MySQL(utf8mb4_unicode_ci)처럼 비교하는 저장소면 같은 회원이다
+        MemberCoalescer caseInsensitive = new MemberCoalescer(Duration.ofMillis(200), 1000, NameCollation.UNICODE_CI);
+        assertThat(caseInsensitive.findByName("Spring0 ", names -> target.findAllByNameIn(List.of("spring0"))))
+                .map(Member::getName).contains("spring0");
+    }
+
+    @Test
+    public void errorFromLoaderDoesNotLeaveKeyInFlight() {
+        MemberCoalescer failing = new MemberCoalescer(Duration.ZERO, 1000, NameCollation.EXACT);
+        assertThatThrownBy(() -> failing.findById(1L, ids -> {
+            throw new StackOverflowError();
+        })).isInstanceOf(StackOverflowError.class);
+
+        // 같은 키를 다시 찾으면 실패한 조회를 기다리지 않고 새로 조회한다
+        Member member = new Member();
+        member.setId(1L);
+        assertThat(failing.findById(1L, ids -> List.of(member))).isPresent();
+    }
+}
@@ -0,0 +1,58 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JdbcMemberRepositoryTest {
+
+    EmbeddedDatabase database = database();
+    JdbcMemberRepository repository = new JdbcMemberRepository(database, new MemberIdAllocator(database, 10));
+
+    // sql/ddl.sql과 같은 테이블 + 이름 길이 제약 (unique 외의 무결성 위반)
+    private static EmbeddedDatabase database() {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("create table member (id bigint not null primary key, name varchar(255),"
+                + " constraint uk_member_name unique (name), constraint ck_member_name check (char_length(name) <= 10))");
+        jdbcTemplate.execute("create table member_seq (name varchar(64) not null primary key, last_val bigint not null)");
+        jdbcTemplate.execute("insert into member_seq(name, last_val) values ('member', 0)");
+        return database;
+    }
+
+    @AfterEach
+    public void afterEach() {
+        database.shutdown();
+    }
+
+    private static Member member(String name) {
+        Member member = new Member();
+        member.setName(name);
+        return member;
+    }
+
+    @Test
+    public void onlyUniqueViolationIsDuplicateKey() {
+        repository.save(member("spring"));
+
+        assertThatThrownBy(() -> repository.save(member("spring"))).isInstanceOf(DuplicateKeyException.class);
+        assertThatThrownBy(() -> repository.saveAll(List.of(member("spring1"), member("spring"))))
+                .isInstanceOf(DuplicateKeyException.class);
+
+        // 다른 무결성 위반(SQLState 23xxx)은 이름 중복이 아니다
+        assertThatThrownBy(() -> repository.save(member("spring-too-long")))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(repository.findAll()).extracting(Member::getName).containsExactly("spring");
+    }
+}
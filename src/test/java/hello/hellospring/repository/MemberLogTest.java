@@ -0,0 +1,114 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.Member;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MemberLogTest {
+
+    static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void 재시작_후_복구() {
+        MemberLog log = open();
+        MemoryMemberRepository repository = new MemoryMemberRepository(log);
+        for (int i = 0; i < 1000; i++) { // segment 여러 개에 걸쳐 기록
+            Member member = new Member();
+            member.setName(i == 0 ? null : "스프링" + i);
+            repository.save(member);
+        }
+        log.close();
+
+        MemoryMemberRepository restored = new MemoryMemberRepository(open());
+        assertThat(restored.findAll()).hasSize(1000);
+        assertThat(restored.findById(1L).get().getName()).isNull();
+        assertThat(restored.findByName("스프링999").get().getId()).isEqualTo(1000L);
+
+        // 이어서 저장하면 다음 id부터 발급된다
+        Member member = new Member();
+        member.setName("spring");
+        restored.save(member);
+        assertThat(member.getId()).isEqualTo(1001L);
+    }
+
+    @Test
+    public void compaction() throws IOException {
+        MemberLog log = open();
+        for (int i = 1; i <= 1000; i++) {
+            log.append(i, "spring" + i);
+        }
+        log.close();
+        // 재시작마다 새 segment에 쓰므로 반쯤 빈 segment가 생긴다
+        log = open();
+        log.append(1001, "spring1001");
+        long before = totalSize();
+
+        log.compact();
+
+        assertThat(totalSize()).isLessThan(before);
+        log.append(1002, "spring1002");
+        log.close();
+        assertThat(replay()).hasSize(1002).containsEntry(1L, "spring1").containsEntry(1002L, "spring1002");
+    }
+
+    @Test
+    public void 쓰다_만_레코드는_버린다() throws IOException {
+        MemberLog log = open();
+        log.append(1, "spring1");
+        log.append(2, "spring2");
+        log.close();
+
+        // 두 번째 레코드의 이름 한 바이트를 망가뜨리면 CRC가 맞지 않아 거기서 segment가 끝난 것으로 본다
+        Path segment = files().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int secondRecord = 8 + 12 + "spring1".length();
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), secondRecord + 8 + 12);
+        }
+
+        assertThat(replay()).containsOnlyKeys(1L);
+    }
+
+    private MemberLog open() {
+        return new MemberLog(directory, SEGMENT_SIZE, Duration.ofMillis(10), Duration.ZERO);
+    }
+
+    private Map<Long, String> replay() {
+        Map<Long, String> records = new ConcurrentHashMap<>();
+        MemberLog log = open();
+        log.replay(records::put);
+        log.close();
+        return records;
+    }
+
+    private long totalSize() throws IOException {
+        long total = 0;
+        for (Path file : files()) {
+            total += Files.size(file);
+        }
+        return total;
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+}
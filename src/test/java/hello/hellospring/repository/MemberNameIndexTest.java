@@ -0,0 +1,73 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.Member;
+import hello.hellospring.domain.MemberSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberNameIndexTest {
+
+    MemberNameIndex index = new MemberNameIndex();
+
+    private void add(long id, String name) {
+        index.add(new MemberSummary(id, name));
+    }
+
+    @Test
+    public void prefix() {
+        add(1, "spring1");
+        add(2, "Spring2");
+        add(3, "summer");
+        add(4, "spring10");
+
+        // 대소문자 무시, 소문자 이름 순
+        assertThat(index.prefix("SPR", 10)).extracting(MemberSummary::getName)
+                .containsExactly("spring1", "spring10", "Spring2");
+        assertThat(index.prefix("spring1", 1)).extracting(MemberSummary::getName).containsExactly("spring1");
+        assertThat(index.prefix("winter", 10)).isEmpty();
+    }
+
+    @Test
+    public void fuzzy() {
+        // id 순서와 다르게 넣어도 찾는다 (목록은 읽을 때 정렬)
+        add(3, "spring");
+        add(1, "springboot");
+        add(2, "summer");
+        add(4, "김스프링");
+
+        // 오타 한 글자: 정확히 같은 이름이 없어도 가까운 이름부터
+        List<MemberNameIndex.Match> matches = index.fuzzy("sprong", 10);
+        assertThat(matches).extracting(MemberNameIndex.Match::getName).containsExactly("spring");
+
+        // 같은 이름이 점수 1로 맨 앞
+        matches = index.fuzzy("spring", 10);
+        assertThat(matches).extracting(MemberNameIndex.Match::getName).startsWith("spring");
+        assertThat(matches.get(0).getScore()).isEqualTo(1.0);
+
+        // 이름 중간 부분
+        assertThat(index.fuzzy("스프링", 10)).extracting(MemberNameIndex.Match::getName).contains("김스프링");
+        assertThat(index.fuzzy("winter", 10)).isEmpty();
+    }
+
+    @Test
+    public void addIsIdempotent() {
+        assertThat(index.add(new MemberSummary(1L, "spring"))).isTrue();
+        assertThat(index.add(new MemberSummary(1L, "spring"))).isFalse();
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.fuzzy("spring", 10)).hasSize(1);
+    }
+
+    @Test
+    public void indexedRepositoryAddsOnSave() {
+        IndexedMemberRepository repository = new IndexedMemberRepository(new MemoryMemberRepository(), index);
+        Member member = new Member();
+        member.setName("spring");
+        repository.save(member);
+
+        // 트랜잭션 밖이라 바로 들어간다
+        assertThat(index.prefix("spr", 10)).extracting(MemberSummary::getId).containsExactly(member.getId());
+    }
+}
@@ -4,8 +4,17 @@ import hello.hellospring.domain.Member;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -63,4 +72,86 @@ class MemoryMemberRepositoryTest {
         List<Member> result = repository.findAll();
         assertThat(result.size()).isEqualTo(2);
     }
+
+    @Test
+    public void findAllAfterAndBefore() {
+        for (int i = 1; i <= 5; i++) {
+            Member member = new Member();
+            member.setName("spring" + i);
+            repository.save(member);
+        }
+
+        // keyset 조회: id 오름차순으로 커서 다음/이전 limit개
+        assertThat(repository.findAllAfter(null, 2)).extracting(Member::getName).containsExactly("spring1", "spring2");
+        assertThat(repository.findAllAfter(2L, 2)).extracting(Member::getName).containsExactly("spring3", "spring4");
+        assertThat(repository.findAllBefore(5L, 2)).extracting(Member::getName).containsExactly("spring3", "spring4");
+        assertThat(repository.streamAll()).extracting(Member::getId).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    public void concurrentSave() throws InterruptedException {
+        int threads = 32;
+        int perThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        // 32개 스레드가 동시에 서로 다른 이름으로 저장
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    Member member = new Member();
+                    member.setName("spring-" + thread + "-" + i);
+                    ids.add(repository.save(member).getId());
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        // id 유실 없이 모두 저장되고, 이름 인덱스로 모두 조회되어야 한다
+        assertThat(ids).hasSize(threads * perThread);
+        assertThat(repository.findAll()).hasSize(threads * perThread);
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < perThread; i++) {
+                String name = "spring-" + t + "-" + i;
+                assertThat(repository.findByName(name).get().getName()).isEqualTo(name);
+            }
+        }
+    }
+
+    @Test
+    public void saveAllReleasesNamesWhenLogFails(@TempDir Path directory) {
+        // 두 번째 회원의 로그 기록이 실패하는 로그
+        MemberLog failing = new MemberLog(directory, 1 << 16, Duration.ofMillis(10), Duration.ZERO) {
+            @Override
+            public synchronized void append(long id, String name) {
+                if ("spring2".equals(name)) {
+                    throw new IllegalStateException("disk full");
+                }
+                super.append(id, name);
+            }
+        };
+        try (failing) {
+            MemoryMemberRepository repository = new MemoryMemberRepository(failing);
+            List<Member> members = List.of(member("spring1"), member("spring2"), member("spring3"));
+            assertThatThrownBy(() -> repository.saveAll(members)).isInstanceOf(IllegalStateException.class);
+
+            // 저장된 회원만 남고, 실패한 회원과 그 뒤 회원의 이름은 다시 저장할 수 있다
+            assertThat(repository.findAll()).extracting(Member::getName).containsExactly("spring1");
+            assertThat(repository.save(member("spring3")).getId()).isNotNull();
+            assertThatThrownBy(() -> repository.save(member("spring2"))).isInstanceOf(IllegalStateException.class);
+            assertThat(repository.findByName("spring2")).isEmpty();
+        }
+    }
+
+    private static Member member(String name) {
+        Member member = new Member();
+        member.setName(name);
+        return member;
+    }
 }
@@ -0,0 +1,95 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OffHeapMemberRepositoryTest {
+
+    OffHeapMemberRepository repository = new OffHeapMemberRepository();
+
+    @AfterEach
+    public void afterEach() {
+        repository.clearStore();
+    }
+
+    @Test
+    public void save() {
+        Member member = new Member();
+        member.setName("스프링");
+        repository.save(member);
+
+        // 조회할 때마다 레코드에서 새 Member를 만든다
+        Member result = repository.findById(member.getId()).get();
+        assertThat(result).isNotSameAs(member);
+        assertThat(result.getId()).isEqualTo(member.getId());
+        assertThat(result.getName()).isEqualTo("스프링");
+        assertThat(repository.findByName("스프링").get().getId()).isEqualTo(member.getId());
+        assertThat(repository.findByName("스프")).isEmpty();
+    }
+
+    @Test
+    public void 중복_이름_예외() {
+        repository.save(member("spring1"));
+
+        assertThatThrownBy(() -> repository.save(member("spring1"))).isInstanceOf(DuplicateKeyException.class);
+        // 일괄 저장은 하나라도 중복이면 아무것도 저장하지 않는다
+        assertThatThrownBy(() -> repository.saveAll(Arrays.asList(member("spring2"), member("spring1"))))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThat(repository.findByName("spring2")).isEmpty();
+        assertThat(repository.findAll()).hasSize(1);
+    }
+
+    @Test
+    public void 인덱스_확장() {
+        // 초기 용량(1024)보다 많이 저장해서 id/이름 인덱스 재배치 후에도 모두 찾는지 확인
+        int count = 10_000;
+        for (int i = 0; i < count; i++) {
+            repository.save(member("spring" + i));
+        }
+        repository.save(member(null));
+
+        for (int i = 0; i < count; i++) {
+            assertThat(repository.findByName("spring" + i).get().getId()).isEqualTo(i + 1L);
+            assertThat(repository.findById(i + 1L).get().getName()).isEqualTo("spring" + i);
+        }
+        assertThat(repository.findById(count + 1L).get().getName()).isNull();
+        assertThat(repository.findById(count + 2L)).isEmpty();
+        assertThat(repository.footprint().getEntries()).isEqualTo(count + 1);
+        assertThat(repository.footprint().getBytesPerEntry()).isGreaterThan(0);
+    }
+
+    @Test
+    public void findAllAfterAndBefore() {
+        for (int i = 1; i <= 5; i++) {
+            repository.save(member("spring" + i));
+        }
+
+        assertThat(ids(repository.findAllAfter(null, 2))).containsExactly(1L, 2L);
+        assertThat(ids(repository.findAllAfter(2L, 2))).containsExactly(3L, 4L);
+        assertThat(ids(repository.findAllAfter(4L, 2))).containsExactly(5L);
+        assertThat(ids(repository.findAllBefore(5L, 2))).containsExactly(3L, 4L);
+        assertThat(ids(repository.findAllBefore(2L, 2))).containsExactly(1L);
+        try (Stream<Member> members = repository.streamAll()) {
+            assertThat(members.map(Member::getId).collect(Collectors.toList())).containsExactly(1L, 2L, 3L, 4L, 5L);
+        }
+    }
+
+    private Member member(String name) {
+        Member member = new Member();
+        member.setName(name);
+        return member;
+    }
+
+    private List<Long> ids(List<Member> members) {
+        return members.stream().map(Member::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,141 @@
+package hello.hellospring.repository;
+
+import hello.hellospring.domain.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardedMemberRepositoryTest {
+
+    static final int SHARDS = 3;
+
+    List<EmbeddedDatabase> databases = new ArrayList<>();
+    ShardedMemberRepository repository;
+
+    // shard마다 임베디드 H2 DB 하나 (sql/shard.sql과 같은 테이블)
+    @BeforeEach
+    public void beforeEach() {
+        for (int i = 0; i < SHARDS; i++) {
+            EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                    .setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+            jdbcTemplate.execute("create table member (id bigint not null primary key, name varchar(255),"
+                    + " constraint uk_member_name unique (name))");
+            jdbcTemplate.execute("create table member_seq (name varchar(64) not null primary key, last_val bigint not null)");
+            jdbcTemplate.execute("insert into member_seq(name, last_val) values ('member', 0)");
+            databases.add(database);
+        }
+        repository = new ShardedMemberRepository(databases, 10, 4);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        repository.close();
+        databases.forEach(EmbeddedDatabase::shutdown);
+    }
+
+    private static List<Member> members(int count) {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Member member = new Member();
+            member.setName("spring" + i);
+            members.add(member);
+        }
+        return members;
+    }
+
+    @Test
+    public void routesByIdAndName() {
+        List<Member> members = members(100);
+        for (Member member : members.subList(0, 50)) {
+            repository.save(member);
+        }
+        repository.saveAll(members.subList(50, 100));
+
+        for (Member member : members) {
+            // 이름의 hash로 정한 shard에 저장되고, 그 shard 번호가 id에 들어간다
+            int shard = repository.shardOf(member.getName());
+            assertThat(ShardedMemberRepository.shardOf(member.getId())).isEqualTo(shard);
+            assertThat(new JdbcTemplate(databases.get(shard)).queryForObject(
+                    "select name from member where id = ?", String.class, member.getId())).isEqualTo(member.getName());
+
+            assertThat(repository.findById(member.getId()).get().getName()).isEqualTo(member.getName());
+            assertThat(repository.findByName(member.getName()).get().getId()).isEqualTo(member.getId());
+        }
+        for (EmbeddedDatabase database : databases) {
+            assertThat(new JdbcTemplate(database).queryForObject("select count(*) from member", Integer.class)).isPositive();
+        }
+
+        List<Long> ids = members.stream().map(Member::getId).collect(Collectors.toList());
+        List<String> names = members.stream().map(Member::getName).collect(Collectors.toList());
+        assertThat(repository.findAllById(ids)).hasSize(100);
+        assertThat(repository.findAllByNameIn(names)).hasSize(100);
+        assertThat(repository.findById(ShardedMemberRepository.MAX_SHARDS - 1L)).isEmpty(); // 없는 shard
+    }
+
+    @Test
+    public void mergesShardsInIdOrder() {
+        repository.saveAll(members(200));
+
+        List<Long> ids = repository.findAll().stream().map(Member::getId).collect(Collectors.toList());
+        assertThat(ids).hasSize(200).isSorted().doesNotHaveDuplicates();
+
+        // keyset 페이지를 이어 붙이면 findAll과 같다
+        List<Long> paged = new ArrayList<>();
+        Long after = null;
+        List<Member> page;
+        while (!(page = repository.findAllAfter(after, 7)).isEmpty()) {
+            assertThat(page.size()).isLessThanOrEqualTo(7);
+            page.forEach(member -> paged.add(member.getId()));
+            after = page.get(page.size() - 1).getId();
+        }
+        assertThat(paged).isEqualTo(ids);
+
+        List<Member> before = repository.findAllBefore(ids.get(100), 5);
+        assertThat(before.stream().map(Member::getId)).containsExactlyElementsOf(ids.subList(95, 100));
+
+        try (Stream<Member> stream = repository.streamAll()) {
+            assertThat(stream.map(Member::getId)).containsExactlyElementsOf(ids);
+        }
+    }
+
+    @Test
+    public void rejectsDuplicateNameInItsShard() {
+        Member member = new Member();
+        member.setName("spring");
+        repository.save(member);
+
+        Member duplicate = new Member();
+        duplicate.setName("spring");
+        assertThatThrownBy(() -> repository.save(duplicate)).isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> repository.saveAll(List.of(duplicate))).isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(repository.findAll()).hasSize(1);
+    }
+
+    @Test
+    public void collationEqualNamesShareShard() {
+        // shard DB(utf8mb4_bin)는 끝 공백만 다른 이름을 같다고 보므로 같은 shard로 가야 그 shard의 unique index가 중복을 막는다
+        String[][] pairs = {{"a", "a "}, {"Spring", "Spring   "}, {"ß", "ß "}};
+        for (String[] pair : pairs) {
+            assertThat(NameCollation.BINARY.key(pair[0])).isEqualTo(NameCollation.BINARY.key(pair[1]));
+            assertThat(repository.shardOf(pair[0])).isEqualTo(repository.shardOf(pair[1]));
+        }
+        // 그 밖에는 글자 그대로 비교하므로 대소문자, 악센트가 다르거나 ß와 ss는 다른 이름이다
+        assertThat(NameCollation.BINARY.key("José")).isNotEqualTo(NameCollation.BINARY.key("jose"));
+        assertThat(NameCollation.BINARY.key("Spring")).isNotEqualTo(NameCollation.BINARY.key("SPRING"));
+        assertThat(NameCollation.BINARY.key("ß")).isNotEqualTo(NameCollation.BINARY.key("ss"));
+    }
+}
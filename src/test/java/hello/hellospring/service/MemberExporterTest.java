@@ -0,0 +1,96 @@
+package hello.hellospring.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.hellospring.domain.Member;
+import hello.hellospring.repository.MemoryMemberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberExporterTest {
+
+    // 쉼표, 따옴표, 역슬래시, 제어 문자, 한글, 4바이트 문자(서로게이트 쌍)
+    static final List<String> NAMES = Arrays.asList("spring", "a,b", "say \"hi\"", "back\\slash", "tab\there",
+            "스프링", "emoji 😀");
+
+    MemoryMemberRepository memberRepository;
+    MemberService memberService;
+    MemberExporter memberExporter;
+
+    @BeforeEach
+    public void beforeEach() {
+        memberRepository = new MemoryMemberRepository();
+        memberService = new MemberService(memberRepository);
+        memberExporter = new MemberExporter(memberService);
+        for (String name : NAMES) {
+            Member member = new Member();
+            member.setName(name);
+            memberService.join(member);
+        }
+    }
+
+    @Test
+    public void csv() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberExporter.Result result = memberExporter.export(MemberFormat.CSV, false, out);
+
+        String csv = out.toString(StandardCharsets.UTF_8.name());
+        assertThat(csv).startsWith("id,name\n1,spring\n2,\"a,b\"\n3,\"say \"\"hi\"\"\"\n");
+        assertThat(result.getRows()).isEqualTo(NAMES.size());
+        assertThat(result.getBytes()).isEqualTo(out.size());
+
+        // 내보낸 CSV를 그대로 다시 가져올 수 있다 (첫 열이 id라 이름 열만 남긴 뒤)
+        String names = Arrays.stream(csv.split("\n")).skip(1)
+                .map(line -> line.substring(line.indexOf(',') + 1)).collect(Collectors.joining("\n"));
+        MemoryMemberRepository copy = new MemoryMemberRepository();
+        new MemberImporter(new MemberService(copy), 3)
+                .importMembers(new ByteArrayInputStream(names.getBytes(StandardCharsets.UTF_8)), MemberFormat.CSV);
+        assertThat(copy.findAll()).extracting(Member::getName).containsExactlyElementsOf(NAMES);
+    }
+
+    @Test
+    public void ndjsonGzip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberExporter.Result result = memberExporter.export(MemberFormat.NDJSON, true, out);
+
+        byte[] ndjson = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes();
+        assertThat(result.getBytes()).isEqualTo(ndjson.length);
+        ObjectMapper objectMapper = new ObjectMapper();
+        String[] lines = new String(ndjson, StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(NAMES.size());
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode row = objectMapper.readTree(lines[i]);
+            assertThat(row.get("id").asLong()).isEqualTo(i + 1);
+            assertThat(row.get("name").asText()).isEqualTo(NAMES.get(i));
+        }
+    }
+
+    @Test
+    public void exportThenImport() throws IOException {
+        for (MemberFormat format : MemberFormat.values()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            memberExporter.export(format, false, out);
+
+            // 내보낸 파일을 빈 저장소로 가져오면 같은 이름만 그대로 들어온다
+            MemoryMemberRepository imported = new MemoryMemberRepository();
+            MemberImporter importer = new MemberImporter(new MemberService(imported), 3);
+            MemberImporter.Progress progress = importer.importMembers(new ByteArrayInputStream(out.toByteArray()), format);
+
+            assertThat(progress.getError()).isNull();
+            assertThat(progress.getImported()).isEqualTo(NAMES.size());
+            assertThat(imported.findAll().stream().map(Member::getName).collect(Collectors.toList()))
+                    .containsExactlyInAnyOrderElementsOf(NAMES);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package hello.hellospring.service;
+
+import hello.hellospring.domain.Member;
+import hello.hellospring.repository.MemoryMemberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberImporterTest {
+
+    MemoryMemberRepository memberRepository;
+    MemberService memberService;
+    MemberImporter memberImporter;
+
+    @BeforeEach
+    public void beforeEach() {
+        memberRepository = new MemoryMemberRepository();
+        memberService = new MemberService(memberRepository, 3);
+        memberImporter = new MemberImporter(memberService, 3);
+    }
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void csv() {
+        Member existing = new Member();
+        existing.setName("spring1");
+        memberService.join(existing);
+
+        MemberImporter.Progress progress = memberImporter.importMembers(body(
+                "name,email\n" +
+                "spring1,a@b.c\n" +      // 이미 있음
+                "spring2\n" +
+                "\"spring,3\",x\n" +     // 따옴표 안의 쉼표
+                "spring2\n" +            // 파일 안에서 중복
+                "\n" +                   // 이름 없음
+                "spring4\n" +
+                "spring5\n"), MemberFormat.CSV);
+
+        assertThat(progress.getError()).isNull();
+        assertThat(progress.getRows()).isEqualTo(7);
+        assertThat(progress.getImported()).isEqualTo(4);
+        assertThat(progress.getSkipped()).isEqualTo(2);
+        assertThat(progress.getInvalid()).isEqualTo(1);
+        assertThat(memberRepository.findByName("spring,3")).isPresent();
+        assertThat(memberRepository.findAll()).hasSize(5);
+    }
+
+    @Test
+    public void ndjson() {
+        MemberImporter.Progress progress = memberImporter.importMembers(body(
+                "{\"name\": \"spring1\", \"tags\": [1, 2]}\n" +
+                "{\"name\": \"spring2\"}\n" +
+                "{\"email\": \"x\"}\n" +
+                "{\"name\": \"spring3\"}\n"), MemberFormat.NDJSON);
+
+        assertThat(progress.getImported()).isEqualTo(3);
+        assertThat(progress.getInvalid()).isEqualTo(1);
+        assertThat(memberImporter.getImports()).extracting(MemberImporter.Progress::getId).containsExactly(progress.getId());
+    }
+
+    @Test
+    public void 파싱_실패시_읽은_행까지_저장() {
+        MemberImporter.Progress progress = memberImporter.importMembers(body(
+                "{\"name\": \"a\"}\n{\"name\": \"b\"}\n{\"name\": \"c\"}\n{\"name\": \"d\"}\n[1]\n"), MemberFormat.NDJSON);
+
+        assertThat(progress.getError()).startsWith("line 5");
+        assertThat(memberRepository.findAll()).hasSize(4);
+    }
+
+    @Test
+    public void batch가_롤백되면_한_명씩_다시_가입() {
+        // 중복 검사 조회가 비어 있는 저장소: 검사 뒤에 다른 요청이 먼저 저장한 경우와 같다
+        MemoryMemberRepository racing = new MemoryMemberRepository() {
+            @Override
+            public List<Member> findAllByNameIn(Collection<String> names) {
+                return new ArrayList<>();
+            }
+        };
+        MemberService service = new MemberService(racing, 3);
+        Member existing = new Member();
+        existing.setName("b");
+        service.join(existing);
+
+        MemberImporter.Progress progress = new MemberImporter(service, 3)
+                .importMembers(body("a\nb\nc\n"), MemberFormat.CSV);
+
+        assertThat(progress.getImported()).isEqualTo(2);
+        assertThat(progress.getSkipped()).isEqualTo(1);
+        assertThat(racing.findAll()).hasSize(3);
+    }
+
+    @Test
+    public void 중복이_아닌_저장_실패는_멈추고_알린다() {
+        // JdbcMemberRepository처럼 커넥션 오류도 IllegalStateException으로 던지는 저장소
+        MemoryMemberRepository failing = new MemoryMemberRepository() {
+            @Override
+            public <S extends Member> S save(S member) {
+                throw new IllegalStateException(new SQLException("connection lost", "08S01"));
+            }
+
+            @Override
+            public List<Member> saveAll(Collection<Member> members) {
+                throw new IllegalStateException(new SQLException("connection lost", "08S01"));
+            }
+        };
+        MemberImporter importer = new MemberImporter(new MemberService(failing, 3), 3);
+
+        assertThatThrownBy(() -> importer.importMembers(body("a\nb\nc\nd\n"), MemberFormat.CSV))
+                .isInstanceOf(IllegalStateException.class);
+
+        MemberImporter.Progress progress = importer.getImports().get(0);
+        assertThat(progress.isFinished()).isTrue();
+        assertThat(progress.getError()).startsWith("line 3").contains("connection lost");
+        assertThat(progress.getSkipped()).isZero();
+    }
+}
@@ -1,11 +1,20 @@
 package hello.hellospring.service;
 
 import hello.hellospring.domain.Member;
+import hello.hellospring.domain.MemberSummary;
 import hello.hellospring.repository.MemoryMemberRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -18,7 +27,7 @@ class MemberServiceTest {
     @BeforeEach
     public void beforeEach() {
         memberRepository = new MemoryMemberRepository();
-        memberService = new MemberService(memberRepository);
+        memberService = new MemberService(memberRepository, 3);
     }
 
     // 메모리 스토어 정리
@@ -56,6 +65,113 @@ class MemberServiceTest {
         assertThat(e.getMessage()).isEqualTo("이미 존재하는 회원입니다.");
     }
 
+    @Test
+    void 동시_가입_중복_회원_예외() throws InterruptedException {
+        // given: 이름 100개를 스레드 16개가 동시에 가입 시도 (이름마다 16번)
+        int threads = 16;
+        int names = 100;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger joined = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        // when
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < names; i++) {
+                    Member member = new Member();
+                    member.setName("spring" + i);
+                    try {
+                        memberService.join(member);
+                        joined.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // then: 이름마다 정확히 한 명만 가입된다
+        assertThat(joined.get()).isEqualTo(names);
+        assertThat(rejected.get()).isEqualTo(names * (threads - 1));
+        assertThat(memberService.findMembers()).hasSize(names);
+    }
+
+    @Test
+    void joinAll() {
+        // given: batch 크기(3)보다 많은 회원
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Member member = new Member();
+            member.setName("spring" + i);
+            members.add(member);
+        }
+
+        // when
+        List<Long> ids = memberService.joinAll(members);
+
+        // then
+        assertThat(ids).hasSize(10).doesNotContainNull();
+        assertThat(memberService.findOne(ids.get(9)).get().getName()).isEqualTo("spring9");
+    }
+
+    @Test
+    void 일괄_가입_중복_회원_예외() {
+        // given
+        Member member1 = new Member();
+        member1.setName("spring");
+        memberService.join(member1);
+
+        List<Member> members = new ArrayList<>();
+        for (String name : new String[]{"a", "b", "c", "spring"}) {
+            Member member = new Member();
+            member.setName(name);
+            members.add(member);
+        }
+
+        // when
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> memberService.joinAll(members));
+
+        // then: 중복이 있으면 batch 전체를 저장하지 않는다
+        assertThat(e.getMessage()).isEqualTo("이미 존재하는 회원입니다.");
+        assertThat(memberService.findMembers()).hasSize(1);
+    }
+
+    @Test
+    void findMemberPage() {
+        // given
+        List<Member> members = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            Member member = new Member();
+            member.setName("spring" + i);
+            members.add(member);
+        }
+        memberService.joinAll(members);
+
+        // when: 첫 페이지 → 다음 페이지 → 이전 페이지
+        MemberPage first = memberService.findMemberPage(null, null, 2);
+        MemberPage second = memberService.findMemberPage(first.getNextCursor(), null, 2);
+        MemberPage back = memberService.findMemberPage(null, second.getPrevCursor(), 2);
+
+        // then
+        assertThat(first.getMembers()).extracting(MemberSummary::getName).containsExactly("spring1", "spring2");
+        assertThat(first.hasPrev()).isFalse();
+        assertThat(second.getMembers()).extracting(MemberSummary::getName).containsExactly("spring3", "spring4");
+        assertThat(second.hasPrev()).isTrue();
+        assertThat(second.hasNext()).isTrue();
+        assertThat(back.getMembers()).extracting(MemberSummary::getName).containsExactly("spring1", "spring2");
+        assertThat(back.hasPrev()).isFalse();
+        assertThat(back.hasNext()).isTrue();
+    }
+
     @Test
     void findMembers() {
 
@@ -0,0 +1,114 @@
+package hello.hellospring.service;
+
+import hello.hellospring.domain.Member;
+import hello.hellospring.repository.MemoryMemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberWriteBehindTest {
+
+    MemoryMemberRepository memberRepository;
+    MemberService memberService;
+    MemberWriteBehind writeBehind;
+
+    @BeforeEach
+    public void beforeEach() {
+        memberRepository = new MemoryMemberRepository();
+        memberService = new MemberService(memberRepository);
+        writeBehind = new MemberWriteBehind(memberService, 1000, 100, Duration.ofMillis(50));
+    }
+
+    @AfterEach
+    public void afterEach() {
+        writeBehind.close();
+    }
+
+    private static Member member(String name) {
+        Member member = new Member();
+        member.setName(name);
+        return member;
+    }
+
+    @Test
+    public void joinsInBatches() throws Exception {
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            futures.add(writeBehind.join(member("spring" + i)));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            Long id = futures.get(i).get();
+            assertThat(memberRepository.findById(id).get().getName()).isEqualTo("spring" + i);
+        }
+        // flushInterval 안에 들어온 회원은 max-batch(100)명씩 묶인다
+        assertThat(writeBehind.getWritten()).isEqualTo(250);
+        assertThat(writeBehind.getBatchSizes().getCount()).isLessThan(250);
+        assertThat(writeBehind.getBatchSizes().getMax()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    public void failsOnlyDuplicateMembers() throws Exception {
+        memberService.join(member("spring1"));
+
+        CompletableFuture<Long> existing = writeBehind.join(member("spring1"));
+        CompletableFuture<Long> fresh = writeBehind.join(member("spring2"));
+        CompletableFuture<Long> sameBatch = writeBehind.join(member("spring2"));
+
+        assertThat(memberRepository.findById(fresh.get()).get().getName()).isEqualTo("spring2");
+        assertThatThrownBy(existing::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(sameBatch::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(writeBehind.getFailed()).isEqualTo(2);
+    }
+
+    @Test
+    public void closeDrainsQueue() throws Exception {
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            futures.add(writeBehind.join(member("spring" + i)));
+        }
+        writeBehind.close();
+
+        for (CompletableFuture<Long> future : futures) {
+            assertThat(future).isDone();
+            assertThat(future.get()).isNotNull();
+        }
+        assertThat(memberRepository.findAll()).hasSize(500);
+        assertThatThrownBy(() -> writeBehind.join(member("late")).get()).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void joinRacingCloseNeverHangs() throws Exception {
+        // 쓰기 스레드가 마지막으로 큐를 비우는 순간과 겹친 join도 저장되거나 실패해야 한다 (멈춘 채 남지 않는다)
+        for (int round = 0; round < 20; round++) {
+            MemberWriteBehind racing = new MemberWriteBehind(memberService, 1000, 100, Duration.ofMillis(1));
+            List<CompletableFuture<Long>> futures = new ArrayList<>();
+            CountDownLatch started = new CountDownLatch(1);
+            int base = round * 10_000;
+            Thread joiner = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    futures.add(racing.join(member("race" + (base + i))));
+                    started.countDown();
+                }
+            });
+            joiner.start();
+            started.await();
+            racing.close();
+            joiner.join();
+
+            // close가 끝나면 쓰기 스레드도 끝났으므로 모든 future가 완료되어 있어야 한다
+            assertThat(futures).allMatch(CompletableFuture::isDone);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package hello.hellospring.web;
+
+import hello.hellospring.aop.AccessLogProperties;
+import hello.hellospring.aop.AccessLogWriter;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessLogFilterTest {
+
+    List<String> logged = new ArrayList<>();
+    AccessLogFilter filter = new AccessLogFilter(new AccessLogWriter(new AccessLogProperties()) {
+        @Override
+        public boolean log(String method, String uri, int status, long durationNanos, long bytes) {
+            logged.add(method + " " + uri + " " + status + " " + bytes + "B");
+            return true;
+        }
+    });
+
+    // body를 UTF-8 writer로 쓰는 controller 대역
+    private static HttpServlet servlet(String body) {
+        return new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse res) throws IOException {
+                res.setContentType("text/html;charset=UTF-8");
+                res.getWriter().write(body);
+            }
+        };
+    }
+
+    @Test
+    public void logsStatusAndBytesAfterRendering() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/hello"), new MockHttpServletResponse(),
+                new MockFilterChain(servlet("hello 스프링")));
+
+        assertThat(logged).containsExactly("GET /hello 200 15B"); // 한글은 UTF-8로 3바이트
+    }
+
+    @Test
+    public void logsErrorStatusAfterErrorPage() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/members/x");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse res) throws IOException {
+                res.sendError(HttpServletResponse.SC_NOT_FOUND); // ResponseStatusException(404)
+            }
+        }));
+        assertThat(logged).isEmpty();
+
+        // 컨테이너가 오류 페이지를 렌더링하는 error dispatch
+        request.setDispatcherType(DispatcherType.ERROR);
+        filter.doFilter(request, response, new MockFilterChain(servlet("not found")));
+
+        assertThat(logged).containsExactly("GET /members/x 404 9B");
+    }
+
+    @Test
+    public void logsResponsesServedFromCache() throws Exception {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setPaths(Collections.singletonList("/hello-mvc"));
+        ResponseCacheFilter responseCacheFilter = new ResponseCacheFilter(new ResponseCache(properties));
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/hello-mvc"), first,
+                new MockFilterChain(servlet("hello"), responseCacheFilter));
+        filter.doFilter(new MockHttpServletRequest("GET", "/hello-mvc"), new MockHttpServletResponse(),
+                new MockFilterChain(servlet("hello"), responseCacheFilter));
+        MockHttpServletRequest conditional = new MockHttpServletRequest("GET", "/hello-mvc");
+        conditional.addHeader("If-None-Match", first.getHeader("ETag"));
+        filter.doFilter(conditional, new MockHttpServletResponse(),
+                new MockFilterChain(servlet("hello"), responseCacheFilter));
+
+        assertThat(logged).containsExactly("GET /hello-mvc 200 5B", "GET /hello-mvc 200 5B", "GET /hello-mvc 304 0B");
+    }
+
+    @Test
+    public void logsAsyncRequestWhenComplete() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/members");
+        request.setAsyncSupported(true);
+        HttpServletResponse[] wrapped = new HttpServletResponse[1];
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse res) {
+                req.startAsync();
+                wrapped[0] = res;
+            }
+        }));
+        assertThat(logged).isEmpty();
+
+        wrapped[0].getWriter().write("members");
+        request.getAsyncContext().complete();
+
+        assertThat(logged).containsExactly("GET /members 200 7B");
+    }
+}
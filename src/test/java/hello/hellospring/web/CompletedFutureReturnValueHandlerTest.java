@@ -0,0 +1,68 @@
+package hello.hellospring.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompletedFutureReturnValueHandlerTest {
+
+    RequestMappingHandlerAdapter handlerAdapter = handlerAdapter();
+    CompletedFutureReturnValueHandler handler = new CompletedFutureReturnValueHandler(handlerAdapter);
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/members/new");
+    ServletWebRequest webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
+    ModelAndViewContainer mavContainer = new ModelAndViewContainer();
+
+    private static RequestMappingHandlerAdapter handlerAdapter() {
+        RequestMappingHandlerAdapter handlerAdapter = new RequestMappingHandlerAdapter();
+        handlerAdapter.setApplicationContext(new StaticWebApplicationContext());
+        handlerAdapter.afterPropertiesSet();
+        return handlerAdapter;
+    }
+
+    // controller 메소드 대역
+    CompletableFuture<String> create() {
+        return null;
+    }
+
+    private MethodParameter returnType() throws NoSuchMethodException {
+        return new MethodParameter(getClass().getDeclaredMethod("create"), -1);
+    }
+
+    @Test
+    public void rendersCompletedFutureWithoutAsyncRequest() throws Exception {
+        assertThat(handlerAdapter.getReturnValueHandlers().get(0)).isSameAs(handler);
+        assertThat(handler.supportsReturnType(returnType())).isTrue();
+
+        handler.handleReturnValue(CompletableFuture.completedFuture("redirect:/"), returnType(), mavContainer, webRequest);
+
+        assertThat(mavContainer.getViewName()).isEqualTo("redirect:/");
+        assertThat(request.isAsyncStarted()).isFalse();
+
+        // 실패한 future는 String을 돌려주는 controller처럼 바로 던진다
+        CompletableFuture<String> failed = CompletableFuture.failedFuture(new IllegalStateException("이미 존재하는 회원입니다."));
+        assertThatThrownBy(() -> handler.handleReturnValue(failed, returnType(), mavContainer, webRequest))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void startsAsyncRequestForPendingFuture() throws Exception {
+        request.setAsyncSupported(true);
+        WebAsyncUtils.getAsyncManager(webRequest).setAsyncWebRequest(WebAsyncUtils.createAsyncWebRequest(
+                request, webRequest.getResponse()));
+
+        handler.handleReturnValue(new CompletableFuture<String>(), returnType(), mavContainer, webRequest);
+
+        assertThat(request.isAsyncStarted()).isTrue();
+    }
+}
@@ -0,0 +1,107 @@
+package hello.hellospring.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheFilterTest {
+
+    ResponseCache responseCache = new ResponseCache(properties());
+    ResponseCacheFilter filter = new ResponseCacheFilter(responseCache);
+    AtomicInteger rendered = new AtomicInteger();
+
+    private static ResponseCacheProperties properties() {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setPaths(Collections.singletonList("/hello-mvc"));
+        return properties;
+    }
+
+    // 호출될 때마다 렌더링 횟수를 세는 controller 대역
+    private MockHttpServletResponse get(String path, String name, String ifNoneMatch) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setParameter("name", name);
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse res) throws IOException {
+                rendered.incrementAndGet();
+                res.setContentType("text/html;charset=UTF-8");
+                res.getWriter().write("hello " + req.getParameter("name"));
+            }
+        }));
+        return response;
+    }
+
+    @Test
+    public void cacheHitSkipsRendering() throws Exception {
+        MockHttpServletResponse first = get("/hello-mvc", "spring", null);
+        MockHttpServletResponse second = get("/hello-mvc", "spring", null);
+
+        assertThat(rendered.get()).isEqualTo(1);
+        assertThat(second.getContentAsString()).isEqualTo("hello spring");
+        assertThat(second.getHeader("ETag")).isEqualTo(first.getHeader("ETag")).isNotNull();
+
+        get("/hello-mvc", "jpa", null); // 파라미터가 다르면 다른 키
+        assertThat(rendered.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void notModifiedWhenEtagMatches() throws Exception {
+        String etag = get("/hello-mvc", "spring", null).getHeader("ETag");
+
+        MockHttpServletResponse response = get("/hello-mvc", "spring", etag);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentLength()).isZero();
+        assertThat(responseCache.getNotModified()).isEqualTo(1);
+    }
+
+    @Test
+    public void rendersAgainAfterInvalidation() throws Exception {
+        get("/hello-mvc", "spring", null);
+
+        responseCache.invalidateAll();
+        get("/hello-mvc", "spring", null);
+
+        assertThat(rendered.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void doesNotServeResponseRenderedBeforeInvalidation() {
+        long renderedGeneration = responseCache.generation();
+        ResponseCache.CachedResponse response = new ResponseCache.CachedResponse("text/html;charset=UTF-8",
+                new byte[]{'h'}, "\"h\"", 0);
+
+        // 비우기 전에 렌더링을 시작한 응답은 비운 뒤에 저장하려 해도, 읽을 때도 내보내지 않는다
+        responseCache.put("/hello-mvc", response, renderedGeneration);
+        responseCache.invalidateAll();
+        responseCache.put("/hello-mvc?late", response, renderedGeneration);
+        assertThat(responseCache.get("/hello-mvc")).isNull();
+        assertThat(responseCache.get("/hello-mvc?late")).isNull();
+
+        responseCache.put("/hello-mvc", response, responseCache.generation());
+        assertThat(responseCache.get("/hello-mvc")).isSameAs(response);
+    }
+
+    @Test
+    public void ignoresUnlistedPaths() throws Exception {
+        get("/hello-string", "spring", null);
+        MockHttpServletResponse response = get("/hello-string", "spring", null);
+
+        assertThat(rendered.get()).isEqualTo(2);
+        assertThat(response.getHeader("ETag")).isNull();
+    }
+}
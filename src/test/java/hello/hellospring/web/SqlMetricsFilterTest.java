@@ -0,0 +1,75 @@
+package hello.hellospring.web;
+
+import hello.hellospring.datasource.SqlMetrics;
+import hello.hellospring.datasource.SqlMetricsDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlMetricsFilterTest {
+
+    EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+    SqlMetrics metrics = metrics();
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(new SqlMetricsDataSource(database, metrics));
+    SqlMetricsFilter filter = new SqlMetricsFilter(
+            new StaticListableBeanFactory(Map.of("sqlMetrics", metrics)).getBeanProvider(SqlMetrics.class));
+
+    @AfterEach
+    public void afterEach() {
+        database.shutdown();
+    }
+
+    private static SqlMetrics metrics() {
+        SqlMetrics metrics = new SqlMetrics();
+        metrics.setEnvironment(new MockEnvironment().withProperty("sql-metrics.statement-budget", "1"));
+        return metrics;
+    }
+
+    @Test
+    public void endsAsyncRequestAfterAsyncDispatch() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/members");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // controller가 SQL 하나를 실행하고 아직 끝나지 않은 future를 돌려줘 비동기 요청을 시작한다 (write-behind 가입처럼)
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse res) {
+                jdbcTemplate.queryForObject("select 1", Integer.class);
+                req.startAsync();
+            }
+        }));
+        assertThat(metrics.getRequests()).isZero(); // 요청 스레드를 놓을 때는 끝내지 않는다
+
+        // 결과를 렌더링하는 async dispatch의 SQL까지 합쳐 요청 하나로 끝낸다
+        request.setAsyncStarted(false);
+        request.setDispatcherType(DispatcherType.ASYNC);
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse res) {
+                jdbcTemplate.queryForObject("select 2", Integer.class);
+            }
+        }));
+
+        assertThat(metrics.getRequests()).isEqualTo(1);
+        assertThat(metrics.getFlaggedRequests()).singleElement()
+                .satisfies(flagged -> assertThat(flagged.getStatements()).isEqualTo(2));
+    }
+}